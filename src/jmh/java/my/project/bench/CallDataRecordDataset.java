@@ -0,0 +1,49 @@
+package my.project.bench;
+
+import my.project.entity.CallDataRecord;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Синтетический набор CDR записей для бенчмарков.
+ * <p>
+ * Записи распределены по {@value #SUBSCRIBERS} абонентам и 12 месяцам 2023 года,
+ * длительность вызова - до часа. При одинаковом размере набор всегда одинаков.
+ * </p>
+ */
+final class CallDataRecordDataset {
+
+	static final int SUBSCRIBERS = 1000;
+
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+	private static final int YEAR_SECONDS = 365 * 24 * 60 * 60;
+
+	private CallDataRecordDataset() {
+	}
+
+	/**
+	 * Генерирует набор записей.
+	 *
+	 * @param size количество записей
+	 * @return список записей данных вызовов
+	 */
+	static List<CallDataRecord> generate(int size) {
+		SplittableRandom random = new SplittableRandom(42);
+		String[] msisdns = new String[SUBSCRIBERS];
+		for (int i = 0; i < SUBSCRIBERS; i++) {
+			msisdns[i] = String.valueOf(79_000_000_000L + i);
+		}
+		List<CallDataRecord> records = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int caller = random.nextInt(SUBSCRIBERS);
+			int receiver = (caller + 1 + random.nextInt(SUBSCRIBERS - 1)) % SUBSCRIBERS;
+			LocalDateTime startTime = START.plusSeconds(random.nextInt(YEAR_SECONDS));
+			records.add(new CallDataRecord(random.nextBoolean() ? "01" : "02", msisdns[caller], msisdns[receiver],
+					startTime, startTime.plusSeconds(random.nextInt(3600))));
+		}
+		return records;
+	}
+}
@@ -0,0 +1,71 @@
+package my.project.bench;
+
+import my.project.entity.CallDataRecord;
+import my.project.util.ColumnarReportWriter;
+import my.project.util.CsvRowWriter;
+import my.project.util.ReportRowWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк форматирования строк CDR отчета.
+ * <p>
+ * Строки записываются в пустой поток, поэтому измеряется только форматирование:
+ * {@link CsvRowWriter} для отчетов csv и csv.gz и {@link ColumnarReportWriter} для cdrc.
+ * {@link #stringConcat()} - форматирование через конкатенацию строк и {@code LocalDateTime.toString()}
+ * для сравнения.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ReportRowBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	private int size;
+
+	private List<CallDataRecord> records;
+
+	/**
+	 * Генерирует набор записей для текущего размера.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		records = CallDataRecordDataset.generate(size);
+	}
+
+	@Benchmark
+	public void csv() throws IOException {
+		write(new CsvRowWriter(Writer.nullWriter(), System.lineSeparator()));
+	}
+
+	@Benchmark
+	public void columnar() throws IOException {
+		write(new ColumnarReportWriter(OutputStream.nullOutputStream()));
+	}
+
+	@Benchmark
+	public void stringConcat() throws IOException {
+		Writer writer = Writer.nullWriter();
+		for (CallDataRecord record : records) {
+			writer.write(record.getCallType() + "," + record.getPhoneOne() + "," + record.getPhoneTwo() + ","
+					+ record.getStartTime() + "," + record.getEndTime() + System.lineSeparator());
+		}
+	}
+
+	private void write(ReportRowWriter writer) throws IOException {
+		for (CallDataRecord record : records) {
+			writer.writeRow(record.getCallType(), record.getPhoneOne(), record.getPhoneTwo(),
+					record.getStartTime(), record.getEndTime());
+		}
+		writer.finish();
+	}
+}
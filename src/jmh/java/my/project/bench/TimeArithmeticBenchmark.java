@@ -0,0 +1,88 @@
+package my.project.bench;
+
+import my.project.dto.IncomingCallDTO;
+import my.project.entity.CallDataRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк вычисления длительности вызовов.
+ * <p>
+ * Сравнивает {@link Duration#between}, {@link ChronoUnit#SECONDS} и разность секунд эпохи
+ * при суммировании в {@code long}, а также накопление итога в {@link IncomingCallDTO}
+ * через {@link IncomingCallDTO#plusTotalTime(Duration)} и {@link IncomingCallDTO#plusSeconds(long)}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class TimeArithmeticBenchmark {
+
+	@Param({"1000", "100000", "10000000"})
+	private int size;
+
+	private List<CallDataRecord> records;
+
+	/**
+	 * Генерирует набор записей для текущего размера.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		records = CallDataRecordDataset.generate(size);
+	}
+
+	@Benchmark
+	public long durationBetween() {
+		long seconds = 0;
+		for (CallDataRecord record : records) {
+			seconds += Duration.between(record.getStartTime(), record.getEndTime()).getSeconds();
+		}
+		return seconds;
+	}
+
+	@Benchmark
+	public long chronoUnitBetween() {
+		long seconds = 0;
+		for (CallDataRecord record : records) {
+			seconds += ChronoUnit.SECONDS.between(record.getStartTime(), record.getEndTime());
+		}
+		return seconds;
+	}
+
+	@Benchmark
+	public long epochSecondDifference() {
+		long seconds = 0;
+		for (CallDataRecord record : records) {
+			seconds += record.getEndTime().toEpochSecond(ZoneOffset.UTC)
+					- record.getStartTime().toEpochSecond(ZoneOffset.UTC);
+		}
+		return seconds;
+	}
+
+	@Benchmark
+	public long dtoPlusDuration() {
+		IncomingCallDTO total = new IncomingCallDTO();
+		for (CallDataRecord record : records) {
+			total.plusTotalTime(Duration.between(record.getStartTime(), record.getEndTime()));
+		}
+		return total.getTotalSeconds();
+	}
+
+	@Benchmark
+	public long dtoPlusSeconds() {
+		IncomingCallDTO total = new IncomingCallDTO();
+		for (CallDataRecord record : records) {
+			total.plusSeconds(record.getEndTime().toEpochSecond(ZoneOffset.UTC)
+					- record.getStartTime().toEpochSecond(ZoneOffset.UTC));
+		}
+		return total.getTotalSeconds();
+	}
+}
@@ -0,0 +1,122 @@
+package my.project.bench;
+
+import my.project.dto.UsageDataReportDTO;
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsage;
+import my.project.entity.MonthlyUsageId;
+import my.project.util.MonthlyUsageAccumulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк агрегации длительности вызовов по абонентам.
+ * <p>
+ * {@link #accumulator()} - вычисление приращений месячных агрегатов при сохранении пакета записей,
+ * {@link #hashMapAccumulator()} - то же вычисление в {@link HashMap} с ключом (номер, месяц) и {@link Duration},
+ * как в {@link MonthlyUsageAccumulator} до перехода на {@link my.project.util.UsageTotalsTable},
+ * {@link #perRecordReport()} - построение отчета одного абонента за месяц проходом по всем записям,
+ * {@link #reportMap()} - агрегация отчетов всех абонентов в {@link HashMap} через {@link Duration},
+ * как это делалось до появления месячных агрегатов.
+ * </p>
+ * <p>
+ * По умолчанию бенчмарки запускаются с профилировщиком {@code -prof gc}, который показывает
+ * скорость выделения памяти ({@code gc.alloc.rate.norm} - байт на операцию).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class UsageAggregationBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	private int size;
+
+	private List<CallDataRecord> records;
+	private String msisdn;
+	private YearMonth month;
+
+	/**
+	 * Генерирует набор записей для текущего размера.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		records = CallDataRecordDataset.generate(size);
+		msisdn = records.get(0).getPhoneOne();
+		month = YearMonth.from(records.get(0).getStartTime());
+	}
+
+	@Benchmark
+	public List<MonthlyUsage> accumulator() {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		for (CallDataRecord record : records) {
+			accumulator.add(record);
+		}
+		return accumulator.toMonthlyUsage();
+	}
+
+	@Benchmark
+	public Map<MonthlyUsageId, long[]> hashMapAccumulator() {
+		Map<MonthlyUsageId, long[]> totals = new HashMap<>();
+		for (CallDataRecord record : records) {
+			String month = YearMonth.from(record.getStartTime()).toString();
+			long seconds = Duration.between(record.getStartTime(), record.getEndTime()).getSeconds();
+			boolean outgoing = record.getCallType().equals("01");
+			totals.computeIfAbsent(new MonthlyUsageId(record.getPhoneOne(), month), id -> new long[2])[outgoing ? 1 : 0] += seconds;
+			totals.computeIfAbsent(new MonthlyUsageId(record.getPhoneTwo(), month), id -> new long[2])[outgoing ? 0 : 1] += seconds;
+		}
+		return totals;
+	}
+
+	@Benchmark
+	public UsageDataReportDTO perRecordReport() {
+		UsageDataReportDTO report = new UsageDataReportDTO(msisdn);
+		for (CallDataRecord record : records) {
+			if (!YearMonth.from(record.getStartTime()).equals(month)) {
+				continue;
+			}
+			Duration duration = Duration.between(record.getStartTime(), record.getEndTime());
+			boolean outgoing = record.getCallType().equals("01");
+			if (record.getPhoneOne().equals(msisdn)) {
+				if (outgoing) {
+					report.plusOutcomingTime(duration);
+				} else {
+					report.plusIncomingTime(duration);
+				}
+			} else if (record.getPhoneTwo().equals(msisdn)) {
+				if (outgoing) {
+					report.plusIncomingTime(duration);
+				} else {
+					report.plusOutcomingTime(duration);
+				}
+			}
+		}
+		return report;
+	}
+
+	@Benchmark
+	public Map<String, UsageDataReportDTO> reportMap() {
+		Map<String, UsageDataReportDTO> reports = new HashMap<>();
+		for (CallDataRecord record : records) {
+			Duration duration = Duration.between(record.getStartTime(), record.getEndTime());
+			UsageDataReportDTO one = reports.computeIfAbsent(record.getPhoneOne(), UsageDataReportDTO::new);
+			UsageDataReportDTO two = reports.computeIfAbsent(record.getPhoneTwo(), UsageDataReportDTO::new);
+			if (record.getCallType().equals("01")) {
+				one.plusOutcomingTime(duration);
+				two.plusIncomingTime(duration);
+			} else {
+				one.plusIncomingTime(duration);
+				two.plusOutcomingTime(duration);
+			}
+		}
+		return reports;
+	}
+}
@@ -1,13 +1,28 @@
 package my.project.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import my.project.dto.IngestReportDTO;
+import my.project.dto.ReportJobDTO;
 import my.project.entity.CallDataRecord;
+import my.project.services.CallDataRecordIngestService;
+import my.project.services.CallDataRecordLoadGenerator;
 import my.project.services.CallDataRecordService;
+import my.project.services.ReportJobService;
+import my.project.services.ReportStorage;
+import my.project.services.SubscriberDirectory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Контроллер для обработки запросов, связанных с записями вызовов (CDR).
@@ -15,75 +30,247 @@ import java.util.List;
  *
  * <p>Контроллер обрабатывает следующие запросы:</p>
  * <ul>
+ *   <li><code>GET /cdr/all</code> - Получение страницы записей вызовов (keyset-пагинация по id).</li>
+ *   <li><code>GET /cdr/all/stream</code> - Потоковая выгрузка всех записей вызовов в формате NDJSON.</li>
  *   <li><code>POST /cdr/generateRecord</code> - Генерация записей вызовов.</li>
- *   <li><code>POST /cdr/generateReport</code> - Генерация отчета по записям вызовов для указанного абонента.</li>
+ *   <li><code>POST /cdr/ingest</code> - Загрузка записей вызовов из файла CSV или NDJSON.</li>
+ *   <li><code>POST /cdr/generateLoad</code> - Параллельная воспроизводимая генерация большого объема записей вызовов.</li>
+ *   <li><code>POST /cdr/archive</code> - Перенос записей вызовов за месяц в архивную таблицу.</li>
+ *   <li><code>POST /cdr/subscribers/refresh</code> - Обновление справочника абонентов в памяти.</li>
+ *   <li><code>POST /cdr/generateReport</code> - Постановка в очередь генерации отчета по записям вызовов для указанного абонента.</li>
+ *   <li><code>GET /cdr/report/{uuid}</code> - Получение статуса генерации отчета.</li>
+ *   <li><code>GET /cdr/report/{uuid}/file</code> - Скачивание файла сгенерированного отчета.</li>
  * </ul>
  */
 @RestController
 @RequestMapping("/cdr")
 public class CallDataRecordController {
 
+	private static final int MAX_PAGE_SIZE = 10_000;
+
 	private final CallDataRecordService callDataRecordService;
+	private final ReportJobService reportJobService;
+	private final CallDataRecordLoadGenerator callDataRecordLoadGenerator;
+	private final CallDataRecordIngestService callDataRecordIngestService;
+	private final SubscriberDirectory subscriberDirectory;
+	private final ReportStorage reportStorage;
+	private final ReportFileSender reportFileSender;
 
 	/**
 	 * Конструктор для инициализации контроллера.
 	 *
-	 * @param callDataRecordService сервис для работы с записями вызовов
+	 * @param callDataRecordService       сервис для работы с записями вызовов
+	 * @param reportJobService            сервис для асинхронной генерации отчетов
+	 * @param callDataRecordLoadGenerator сервис для параллельной генерации записей вызовов
+	 * @param callDataRecordIngestService сервис для загрузки записей вызовов из файлов
+	 * @param subscriberDirectory         справочник абонентов в памяти
+	 * @param reportStorage               хранилище файлов отчетов
+	 * @param reportFileSender            компонент для отправки файлов отчетов
 	 */
-	public CallDataRecordController(CallDataRecordService callDataRecordService) {
+	public CallDataRecordController(CallDataRecordService callDataRecordService,
+									ReportJobService reportJobService,
+									CallDataRecordLoadGenerator callDataRecordLoadGenerator,
+									CallDataRecordIngestService callDataRecordIngestService,
+									SubscriberDirectory subscriberDirectory,
+									ReportStorage reportStorage,
+									ReportFileSender reportFileSender) {
 		this.callDataRecordService = callDataRecordService;
+		this.reportJobService = reportJobService;
+		this.callDataRecordLoadGenerator = callDataRecordLoadGenerator;
+		this.callDataRecordIngestService = callDataRecordIngestService;
+		this.subscriberDirectory = subscriberDirectory;
+		this.reportStorage = reportStorage;
+		this.reportFileSender = reportFileSender;
 	}
 
 	/**
-	 * Обрабатывает HTTP GET запрос для получения всех записей данных вызовов.
+	 * Обрабатывает HTTP GET запрос для получения страницы записей данных вызовов.
 	 * <p>
-	 * Этот метод извлекает все записи данных вызовов с помощью сервиса {@code callDataRecordService}.
-	 * Возвращает список записей в формате JSON с кодом ответа 200 (OK).
+	 * Страницы строятся по идентификатору записи: для получения следующей страницы
+	 * в параметре {@code afterId} передается идентификатор последней полученной записи.
+	 * Размер страницы ограничен {@value #MAX_PAGE_SIZE} записями.
 	 *
-	 * @return {@code ResponseEntity<List<CallDataRecord>>} объект, содержащий список всех записей данных вызовов
+	 * @param afterId идентификатор, после которого начинается страница (по умолчанию 0 - первая страница)
+	 * @param limit   максимальное количество записей на странице (по умолчанию 1000)
+	 * @return {@code ResponseEntity<List<CallDataRecord>>} объект, содержащий страницу записей данных вызовов
 	 *         и статус ответа 200 (OK).
 	 */
 	@GetMapping("/all")
-	public ResponseEntity<List<CallDataRecord>> getAll() {
-		List<CallDataRecord> response = callDataRecordService.getAllCallDataRecords();
+	public ResponseEntity<List<CallDataRecord>> getAll(@RequestParam(defaultValue = "0") long afterId,
+													   @RequestParam(defaultValue = "1000") int limit) {
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<CallDataRecord> response = callDataRecordService.getCallDataRecordsAfter(afterId, pageSize);
 		return ResponseEntity.ok(response);
 	}
 
+	/**
+	 * Обрабатывает HTTP GET запрос для потоковой выгрузки всех записей данных вызовов.
+	 * <p>
+	 * Записи отдаются в формате NDJSON по мере чтения из базы данных,
+	 * поэтому ответ не буферизуется в памяти целиком.
+	 *
+	 * @return {@code ResponseEntity<StreamingResponseBody>} с потоком записей в формате {@code application/x-ndjson}
+	 */
+	@GetMapping("/all/stream")
+	public ResponseEntity<StreamingResponseBody> streamAll() {
+		StreamingResponseBody body = callDataRecordService::writeAllCallDataRecords;
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
 
 	/**
 	 * Генерирует записи вызовов.
 	 *
 	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/generateRecord</code>.
-	 * В результате выполнения метода вызывается сервис для генерации записей вызовов.</p>
+	 * В результате выполнения метода вызывается сервис для генерации записей вызовов.
+	 * Не указанные параметры берутся из свойств <code>cdr.generator.*</code>.</p>
 	 *
+	 * @param subscribers    количество абонентов
+	 * @param minCallsPerDay минимальное количество вызовов в день
+	 * @param maxCallsPerDay максимальное количество вызовов в день
+	 * @param months         количество генерируемых месяцев
 	 * @return статус ответа HTTP 200 (OK) при успешной генерации записей
 	 */
 	@PostMapping("/generateRecord")
-	public ResponseEntity<HttpStatus> generateCallDataRecord() {
-		callDataRecordService.generateCallDataRecords();
+	public ResponseEntity<HttpStatus> generateCallDataRecord(@RequestParam(value = "subscribers", required = false) Integer subscribers,
+															 @RequestParam(value = "minCallsPerDay", required = false) Integer minCallsPerDay,
+															 @RequestParam(value = "maxCallsPerDay", required = false) Integer maxCallsPerDay,
+															 @RequestParam(value = "months", required = false) Integer months) {
+		callDataRecordService.generateCallDataRecords(subscribers, minCallsPerDay, maxCallsPerDay, months);
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
 
 	/**
-	 * Генерирует отчет по записям вызовов для указанного абонента за указанный период.
+	 * Загружает записи вызовов из тела запроса.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/ingest</code>.
+	 * Тело запроса в формате CSV (<code>callType,phoneOne,phoneTwo,start,end</code>) или NDJSON
+	 * (<code>Content-Type: application/x-ndjson</code>) разбирается построчно по мере чтения,
+	 * тело, сжатое gzip (<code>Content-Encoding: gzip</code>), распаковывается на лету.</p>
+	 *
+	 * @param body            тело запроса
+	 * @param contentType     тип содержимого; по умолчанию CSV
+	 * @param contentEncoding кодирование содержимого
+	 * @return отчет о загрузке с количеством принятых и отклоненных строк
+	 * @throws IOException если произошла ошибка чтения тела запроса
+	 */
+	@PostMapping("/ingest")
+	public ResponseEntity<IngestReportDTO> ingest(InputStream body,
+												  @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+												  @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) throws IOException {
+		MediaType mediaType = contentType == null ? MediaType.TEXT_PLAIN : MediaType.parseMediaType(contentType);
+		InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body) : body;
+		return ResponseEntity.ok(callDataRecordIngestService.ingest(in, mediaType));
+	}
+
+	/**
+	 * Генерирует большой объем записей вызовов параллельно и воспроизводимо.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/generateLoad</code>.
+	 * При одинаковых параметрах генерируется один и тот же набор записей.</p>
+	 *
+	 * @param seed        начальное значение генератора случайных чисел
+	 * @param start       дата в формате "yyyy-MM-dd", месяц которой является первым месяцем генерации
+	 * @param months      количество месяцев (по умолчанию 12)
+	 * @param subscribers количество абонентов (по умолчанию 1000)
+	 * @param callsPerDay максимальное количество вызовов в день (по умолчанию 1000)
+	 * @return статус ответа HTTP 200 (OK) с количеством сгенерированных записей
+	 */
+	@PostMapping("/generateLoad")
+	public ResponseEntity<String> generateLoad(@RequestParam("seed") long seed,
+											   @RequestParam("start") String start,
+											   @RequestParam(value = "months", defaultValue = "12") int months,
+											   @RequestParam(value = "subscribers", defaultValue = "1000") int subscribers,
+											   @RequestParam(value = "callsPerDay", defaultValue = "1000") int callsPerDay) {
+		long generated = callDataRecordLoadGenerator.generate(seed, LocalDate.parse(start), months, subscribers, callsPerDay);
+		return ResponseEntity.ok("Записи вызовов были успешно сгенерированы. Количество:" + generated);
+	}
+
+	/**
+	 * Переносит записи вызовов за месяц в архивную таблицу месяца.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/archive</code>.
+	 * UDR отчеты за архивный месяц остаются доступны.</p>
+	 *
+	 * @param month месяц в формате "yyyy-MM"
+	 * @return статус ответа HTTP 200 (OK) с количеством перенесенных записей
+	 */
+	@PostMapping("/archive")
+	public ResponseEntity<String> archiveMonth(@RequestParam("month") String month) {
+		int moved = callDataRecordService.archiveMonth(month);
+		return ResponseEntity.ok("Записи вызовов за месяц перенесены в архив. Количество:" + moved);
+	}
+
+	/**
+	 * Перечитывает номера абонентов в справочник абонентов в памяти.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/subscribers/refresh</code>.
+	 * Справочник обновляется и сам после сохранения абонентов; запрос нужен, если абоненты
+	 * были добавлены в базу данных в обход приложения.</p>
+	 *
+	 * @return статус ответа HTTP 200 (OK) с количеством абонентов в справочнике
+	 */
+	@PostMapping("/subscribers/refresh")
+	public ResponseEntity<String> refreshSubscribers() {
+		int size = subscriberDirectory.refresh();
+		return ResponseEntity.ok("Справочник абонентов обновлен. Количество:" + size);
+	}
+
+	/**
+	 * Ставит в очередь генерацию отчета по записям вызовов для указанного абонента за указанный период.
 	 *
 	 * <p>Этот метод обрабатывает POST-запрос на <code>/cdr/generateReport</code>.
-	 * Отчет генерируется на основе переданных параметров: номера абонента,
-	 * начало периода и конец периода.</p>
+	 * Параметры проверяются сразу, а сам отчет генерируется асинхронно;
+	 * его статус можно получить по <code>GET /cdr/report/{uuid}</code>.</p>
 	 *
 	 * @param msisdn номер абонента, для которого генерируется отчет
 	 * @param startTime время начала периода, за который генерируется отчет
 	 * @param endTime время окончания периода, за который генерируется отчет
-	 * @return сообщение об успешной генерации отчета и его уникальный идентификатор
-	 * @throws IOException если произошла ошибка при генерации отчета
+	 * @param format формат отчета: "csv" (по умолчанию), "csv.gz" или "cdrc"
+	 * @return статус ответа HTTP 202 (ACCEPTED) с уникальным идентификатором отчета
 	 */
 	@PostMapping("/generateReport")
 	public ResponseEntity<String> generateReport(@RequestParam("msisdn") String msisdn,
 												 @RequestParam("start") String startTime,
-												 @RequestParam("end") String endTime) throws IOException {
-		String uuid = callDataRecordService.generateReport(msisdn, startTime, endTime);
-		return ResponseEntity.ok("Отчет был успешно сгенерирован. UUID:" + uuid);
+												 @RequestParam("end") String endTime,
+												 @RequestParam(value = "format", defaultValue = "csv") String format) {
+		ReportJobDTO job = reportJobService.submit(msisdn, startTime, endTime, format);
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body("Отчет поставлен в очередь на генерацию. UUID:" + job.getUuid());
 	}
-}
 
+	/**
+	 * Получает статус генерации отчета.
+	 *
+	 * <p>Этот метод обрабатывает GET-запрос на <code>/cdr/report/{uuid}</code>.</p>
+	 *
+	 * @param uuid уникальный идентификатор отчета
+	 * @return задание на генерацию отчета со статусом, количеством строк и размером файла
+	 */
+	@GetMapping("/report/{uuid}")
+	public ResponseEntity<ReportJobDTO> getReportStatus(@PathVariable("uuid") String uuid) {
+		return ResponseEntity.ok(reportJobService.getJob(uuid));
+	}
 
+	/**
+	 * Отдает файл сгенерированного отчета.
+	 *
+	 * <p>Этот метод обрабатывает GET-запрос на <code>/cdr/report/{uuid}/file</code>.
+	 * Поддерживаются запросы диапазона байт (заголовок <code>Range</code>)
+	 * и сжатие gzip по заголовку <code>Accept-Encoding</code>. Файл отчета, который еще генерируется
+	 * или генерация которого завершилась ошибкой, не отдается (статус 409).</p>
+	 *
+	 * @param uuid     уникальный идентификатор отчета
+	 * @param request  HTTP запрос
+	 * @param response HTTP ответ, в который записывается файл
+	 * @throws IOException если не удалось прочитать файл отчета
+	 */
+	@GetMapping("/report/{uuid}/file")
+	public void downloadReport(@PathVariable("uuid") String uuid,
+							   HttpServletRequest request,
+							   HttpServletResponse response) throws IOException {
+		reportJobService.checkReportReady(uuid);
+		reportFileSender.send(reportStorage.findReport(uuid), request, response);
+	}
+}
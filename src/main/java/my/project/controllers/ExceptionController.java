@@ -1,7 +1,13 @@
 package my.project.controllers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.util.IncorrectGenerationParametersException;
 import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.IncorrectReportFormatException;
 import my.project.util.NoDataToReceiveException;
+import my.project.util.ReportNotReadyException;
+import my.project.util.ReportQueueFullException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,12 +27,32 @@ import java.time.format.DateTimeParseException;
  *   <li>{@link DateTimeParseException} - Исключение, связанное с неправильным форматом даты и времени.</li>
  *   <li>{@link NoDataToReceiveException} - Исключение, возникающее при отсутствии данных для получения.</li>
  *   <li>{@link IncorrectPhoneNumberException} - Исключение, связанное с неправильным номером телефона.</li>
+ *   <li>{@link IncorrectGenerationParametersException} - Исключение, связанное с некорректными параметрами генерации записей.</li>
+ *   <li>{@link IncorrectReportFormatException} - Исключение, связанное с неизвестным форматом отчета.</li>
  *   <li>{@link IOException} - Исключение, возникающее при ошибках ввода-вывода, например, при генерации отчетов.</li>
+ *   <li>{@link ReportQueueFullException} - Исключение, возникающее при переполнении очереди генерации отчетов.</li>
+ *   <li>{@link ReportNotReadyException} - Исключение, возникающее при запросе файла незавершенного отчета.</li>
  * </ul>
+ *
+ * <p>Каждое обработанное исключение учитывается в счетчике {@value #EXCEPTIONS_METRIC}
+ * с тегами {@code exception} (имя класса исключения) и {@code status} (код ответа).</p>
  */
 @ControllerAdvice
 public class ExceptionController {
 
+	private static final String EXCEPTIONS_METRIC = "cdr.exceptions";
+
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Конструктор контроллера.
+	 *
+	 * @param meterRegistry реестр метрик для учета обработанных исключений
+	 */
+	public ExceptionController(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
 	/**
 	 * Обрабатывает исключение {@link DateTimeParseException}, возникающее в контроллерах,
 	 * связанных с форматом даты и времени.
@@ -34,13 +60,13 @@ public class ExceptionController {
 	 * <p>Возвращает сообщение об ошибке с кодом состояния 400 (BAD REQUEST),
 	 * если формат даты некорректен.</p>
 	 *
-	 * @param ignoredE исключение {@link DateTimeParseException}, которое было выброшено
+	 * @param e исключение {@link DateTimeParseException}, которое было выброшено
 	 * @return ResponseEntity с сообщением об ошибке и статусом BAD REQUEST
 	 */
 	@ExceptionHandler(DateTimeParseException.class)
-	public ResponseEntity<String> dateParseException(DateTimeParseException ignoredE) {
+	public ResponseEntity<String> dateParseException(DateTimeParseException e) {
 		String message = "Некорректный дата, введите день в формате YYYY-MM-DD или месяц в формате YYYY-MM";
-		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message);
+		return response(e, HttpStatus.BAD_REQUEST, message);
 	}
 
 	/**
@@ -49,13 +75,13 @@ public class ExceptionController {
 	 *
 	 * <p>Возвращает сообщение об ошибке с кодом состояния 404 (NOT FOUND).</p>
 	 *
-	 * @param ignoredE исключение {@link NoDataToReceiveException}, которое было выброшено
+	 * @param e исключение {@link NoDataToReceiveException}, которое было выброшено
 	 * @return ResponseEntity с сообщением об ошибке и статусом NOT FOUND
 	 */
 	@ExceptionHandler(NoDataToReceiveException.class)
-	public ResponseEntity<String> noDataToReceiveException(NoDataToReceiveException ignoredE) {
+	public ResponseEntity<String> noDataToReceiveException(NoDataToReceiveException e) {
 		String message = "Нет данных для получения";
-		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(message);
+		return response(e, HttpStatus.NOT_FOUND, message);
 	}
 
 	/**
@@ -64,13 +90,43 @@ public class ExceptionController {
 	 *
 	 * <p>Возвращает сообщение об ошибке с кодом состояния 400 (BAD REQUEST).</p>
 	 *
-	 * @param ignoredE исключение {@link IncorrectPhoneNumberException}, которое было выброшено
+	 * @param e исключение {@link IncorrectPhoneNumberException}, которое было выброшено
 	 * @return ResponseEntity с сообщением об ошибке и статусом BAD REQUEST
 	 */
 	@ExceptionHandler(IncorrectPhoneNumberException.class)
-	public ResponseEntity<String> incorrectPhoneNumberException(IncorrectPhoneNumberException ignoredE) {
+	public ResponseEntity<String> incorrectPhoneNumberException(IncorrectPhoneNumberException e) {
 		String message = "Некорректный номер телефона";
-		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message);
+		return response(e, HttpStatus.BAD_REQUEST, message);
+	}
+
+	/**
+	 * Обрабатывает исключение {@link IncorrectGenerationParametersException},
+	 * возникающее при некорректных параметрах генерации записей вызовов.
+	 *
+	 * <p>Возвращает сообщение об ошибке с кодом состояния 400 (BAD REQUEST).</p>
+	 *
+	 * @param e исключение {@link IncorrectGenerationParametersException}, которое было выброшено
+	 * @return ResponseEntity с сообщением об ошибке и статусом BAD REQUEST
+	 */
+	@ExceptionHandler(IncorrectGenerationParametersException.class)
+	public ResponseEntity<String> incorrectGenerationParametersException(IncorrectGenerationParametersException e) {
+		String message = "Некорректные параметры генерации: нужно не меньше 1 месяца, 2 абонентов и 1 вызова в день, минимум вызовов не больше максимума";
+		return response(e, HttpStatus.BAD_REQUEST, message);
+	}
+
+	/**
+	 * Обрабатывает исключение {@link IncorrectReportFormatException},
+	 * возникающее при запросе отчета в неизвестном формате.
+	 *
+	 * <p>Возвращает сообщение об ошибке с кодом состояния 400 (BAD REQUEST).</p>
+	 *
+	 * @param e исключение {@link IncorrectReportFormatException}, которое было выброшено
+	 * @return ResponseEntity с сообщением об ошибке и статусом BAD REQUEST
+	 */
+	@ExceptionHandler(IncorrectReportFormatException.class)
+	public ResponseEntity<String> incorrectReportFormatException(IncorrectReportFormatException e) {
+		String message = "Некорректный формат отчета, допустимые значения: csv, csv.gz, cdrc";
+		return response(e, HttpStatus.BAD_REQUEST, message);
 	}
 
 	/**
@@ -79,15 +135,60 @@ public class ExceptionController {
 	 *
 	 * <p>Возвращает сообщение об ошибке с кодом состояния 500 (INTERNAL SERVER ERROR).</p>
 	 *
-	 * @param ignoredE исключение {@link IOException}, которое было выброшено
+	 * @param e исключение {@link IOException}, которое было выброшено
 	 * @return ResponseEntity с сообщением об ошибке и статусом INTERNAL SERVER ERROR
 	 */
 	@ExceptionHandler(IOException.class)
-	public ResponseEntity<String> ioException(IOException ignoredE) {
+	public ResponseEntity<String> ioException(IOException e) {
 		String message = "Ошибка при генерации отчета";
-		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message);
+		return response(e, HttpStatus.INTERNAL_SERVER_ERROR, message);
 	}
-}
 
+	/**
+	 * Обрабатывает исключение {@link ReportQueueFullException},
+	 * возникающее при переполнении очереди генерации отчетов.
+	 *
+	 * <p>Возвращает сообщение об ошибке с кодом состояния 503 (SERVICE UNAVAILABLE).</p>
+	 *
+	 * @param e исключение {@link ReportQueueFullException}, которое было выброшено
+	 * @return ResponseEntity с сообщением об ошибке и статусом SERVICE UNAVAILABLE
+	 */
+	@ExceptionHandler(ReportQueueFullException.class)
+	public ResponseEntity<String> reportQueueFullException(ReportQueueFullException e) {
+		String message = "Очередь генерации отчетов переполнена, повторите запрос позже";
+		return response(e, HttpStatus.SERVICE_UNAVAILABLE, message);
+	}
 
+	/**
+	 * Обрабатывает исключение {@link ReportNotReadyException},
+	 * возникающее при запросе файла отчета, генерация которого не завершилась успешно.
+	 *
+	 * <p>Возвращает сообщение об ошибке с кодом состояния 409 (CONFLICT).</p>
+	 *
+	 * @param e исключение {@link ReportNotReadyException}, которое было выброшено
+	 * @return ResponseEntity с сообщением об ошибке и статусом CONFLICT
+	 */
+	@ExceptionHandler(ReportNotReadyException.class)
+	public ResponseEntity<String> reportNotReadyException(ReportNotReadyException e) {
+		String message = "Отчет еще не готов или его генерация завершилась ошибкой";
+		return response(e, HttpStatus.CONFLICT, message);
+	}
 
+	/**
+	 * Учитывает исключение в счетчике {@value #EXCEPTIONS_METRIC} и формирует ответ.
+	 *
+	 * @param e       обработанное исключение
+	 * @param status  статус ответа
+	 * @param message сообщение об ошибке
+	 * @return ResponseEntity с сообщением об ошибке и заданным статусом
+	 */
+	private ResponseEntity<String> response(Exception e, HttpStatus status, String message) {
+		Counter.builder(EXCEPTIONS_METRIC)
+				.description("Исключения, обработанные ExceptionController")
+				.tag("exception", e.getClass().getSimpleName())
+				.tag("status", String.valueOf(status.value()))
+				.register(meterRegistry)
+				.increment();
+		return ResponseEntity.status(status).body(message);
+	}
+}
@@ -0,0 +1,172 @@
+package my.project.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Отправляет файлы отчетов в HTTP ответ.
+ * <p>
+ * Поддерживает запросы с одним диапазоном байт (заголовок {@code Range}) и сжатие gzip,
+ * если клиент указал его в заголовке {@code Accept-Encoding}. Файлы, уже сжатые gzip, повторно не сжимаются.
+ * Диапазон за концом файла отклоняется со статусом 416; в ответ на запрос нескольких диапазонов или заголовок
+ * {@code Range}, который не удалось разобрать, файл отправляется целиком.
+ * Несжатые файлы и диапазоны передаются без копирования через кучу: средствами sendfile контейнера Tomcat,
+ * если он поддерживает его для текущего соединения, иначе через {@link FileChannel#transferTo}.
+ * </p>
+ */
+@Component
+public class ReportFileSender {
+
+	private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Отправляет файл отчета в ответ на запрос.
+	 *
+	 * @param file     файл отчета
+	 * @param request  HTTP запрос
+	 * @param response HTTP ответ
+	 * @throws IOException если не удалось прочитать файл или записать ответ
+	 */
+	public void send(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long length = Files.size(file);
+		String fileName = file.getFileName().toString();
+		response.setContentType(MediaTypeFactory.getMediaType(fileName)
+				.orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename(fileName).build().toString());
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+		if (ranges.size() == 1) {
+			long start = ranges.get(0).getRangeStart(length);
+			long end = ranges.get(0).getRangeEnd(length);
+			if (start >= length || start > end) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				return;
+			}
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+			sendRegion(file, start, end - start + 1, request, response);
+			return;
+		}
+
+		if (!fileName.endsWith(".gz") && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			try (InputStream in = Files.newInputStream(file);
+				 GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)) {
+				in.transferTo(out);
+			}
+			return;
+		}
+		sendRegion(file, 0, length, request, response);
+	}
+
+	/**
+	 * Разбирает заголовок {@code Range}.
+	 * <p>
+	 * Заголовок, который не удалось разобрать, игнорируется (RFC 9110, раздел 14.2), и файл отправляется целиком.
+	 * </p>
+	 *
+	 * @param range значение заголовка {@code Range} или {@code null}
+	 * @return диапазоны байт или пустой список, если заголовка нет или его не удалось разобрать
+	 */
+	private static List<HttpRange> parseRanges(String range) {
+		if (range == null) {
+			return List.of();
+		}
+		try {
+			return HttpRange.parseRanges(range);
+		} catch (IllegalArgumentException e) {
+			return List.of();
+		}
+	}
+
+	/**
+	 * Отправляет участок файла без сжатия.
+	 *
+	 * @param file     файл отчета
+	 * @param start    смещение первого байта
+	 * @param count    количество байт
+	 * @param request  HTTP запрос
+	 * @param response HTTP ответ
+	 * @throws IOException если не удалось прочитать файл или записать ответ
+	 */
+	private void sendRegion(Path file, long start, long count,
+							HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentLengthLong(count);
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_END_ATTR, start + count);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = start;
+			long end = start + count;
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, out);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+
+	/**
+	 * Проверяет, принимает ли клиент ответ, сжатый gzip.
+	 *
+	 * @param acceptEncoding значение заголовка {@code Accept-Encoding}
+	 * @return {@code true}, если gzip указан с ненулевым коэффициентом качества
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String token : acceptEncoding.split(",")) {
+			String[] parts = token.split(";");
+			if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+				continue;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						return Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+}
@@ -1,15 +1,21 @@
 package my.project.controllers;
 
+import my.project.dto.CacheStatsDTO;
 import my.project.dto.UsageDataReportDTO;
 import my.project.services.UsageDataReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -20,6 +26,9 @@ import java.util.List;
  * <ul>
  *   <li><code>GET /udr/getByMsisdn</code> - Получает отчет о потреблении данных для указанного абонента (MSISDN).</li>
  *   <li><code>GET /udr/getAllByMonth</code> - Получает все отчеты о потреблении данных за указанный месяц.</li>
+ *   <li><code>POST /udr/batch</code> - Потоковая выдача отчетов о потреблении данных по списку абонентов.</li>
+ *   <li><code>POST /udr/rebuild</code> - Пересчитывает месячные агрегаты UDR из записей вызовов.</li>
+ *   <li><code>GET /udr/cache/stats</code> - Получает статистику кэша отчетов UDR.</li>
  * </ul>
  */
 @Controller
@@ -69,5 +78,53 @@ public class UsageDataReportController {
 		var response = usageDataReportService.getUsageDataReportByMsisdn(month);
 		return ResponseEntity.ok(response);
 	}
-}
 
+	/**
+	 * Получает отчеты об использовании данных по списку абонентов одним запросом.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос к <code>/udr/batch</code> с JSON-массивом номеров в теле.
+	 * Номера проверяются до начала ответа, отчеты отдаются в формате NDJSON по мере чтения из базы данных
+	 * в порядке номеров; абоненты без данных пропускаются.</p>
+	 *
+	 * @param msisdns номера абонентов, для которых запрашиваются отчеты
+	 * @param month   необязательный параметр, указывающий месяц (YYYY-MM); если не указан, то за весь тарифицируемый период
+	 * @return {@code ResponseEntity<StreamingResponseBody>} с потоком отчетов в формате {@code application/x-ndjson}
+	 */
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> getUsageDataReportBatch(@RequestBody List<String> msisdns,
+																		 @RequestParam(required = false) String month) {
+		List<String> batch = usageDataReportService.prepareBatch(msisdns, month);
+		StreamingResponseBody body = outputStream -> usageDataReportService.writeUsageDataReports(batch, month, outputStream);
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
+	/**
+	 * Пересчитывает месячные агрегаты UDR из всех записей вызовов.
+	 *
+	 * <p>Этот метод обрабатывает POST-запрос к <code>/udr/rebuild</code>.
+	 * Используется для восстановления агрегатов, например, после изменения записей вызовов в обход приложения.</p>
+	 *
+	 * @return ResponseEntity с сообщением о количестве пересчитанных агрегатов
+	 */
+	@PostMapping("/rebuild")
+	public ResponseEntity<String> rebuildMonthlyUsage() {
+		int count = usageDataReportService.rebuildMonthlyUsage();
+		return ResponseEntity.ok("Агрегаты UDR были успешно пересчитаны. Количество:" + count);
+	}
+
+	/**
+	 * Получает статистику кэша отчетов об использовании данных.
+	 *
+	 * <p>Этот метод обрабатывает GET-запрос к <code>/udr/cache/stats</code>.
+	 * Возвращает количество попаданий, промахов, вытеснений и текущий размер кэша
+	 * отчетов по абоненту и кэша отчетов по месяцу.</p>
+	 *
+	 * @return ResponseEntity, содержащий статистику кэшей по их названиям
+	 */
+	@GetMapping("/cache/stats")
+	public ResponseEntity<Map<String, CacheStatsDTO>> getCacheStats() {
+		return ResponseEntity.ok(usageDataReportService.getCacheStats());
+	}
+}
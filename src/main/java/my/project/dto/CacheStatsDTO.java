@@ -0,0 +1,64 @@
+package my.project.dto;
+
+/**
+ * DTO (Data Transfer Object) со статистикой кэша.
+ * Содержит количество попаданий, промахов и вытеснений, а также текущий размер кэша.
+ */
+public class CacheStatsDTO {
+
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final int size;
+
+	/**
+	 * Конструктор с параметрами.
+	 *
+	 * @param hits      количество попаданий
+	 * @param misses    количество промахов
+	 * @param evictions количество записей, вытесненных по размеру или сроку жизни
+	 * @param size      текущее количество записей в кэше
+	 */
+	public CacheStatsDTO(long hits, long misses, long evictions, int size) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.size = size;
+	}
+
+	/**
+	 * Получает количество попаданий.
+	 *
+	 * @return количество попаданий
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Получает количество промахов.
+	 *
+	 * @return количество промахов
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Получает количество вытесненных записей.
+	 *
+	 * @return количество записей, вытесненных по размеру или сроку жизни
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Получает текущий размер кэша.
+	 *
+	 * @return количество записей в кэше
+	 */
+	public int getSize() {
+		return size;
+	}
+}
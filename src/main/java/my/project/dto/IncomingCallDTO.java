@@ -1,51 +1,82 @@
 package my.project.dto;
 
+import my.project.util.CallDurationFormat;
+
 import java.time.Duration;
-import java.time.LocalTime;
 
 /**
  * DTO (Data Transfer Object) для входящего звонка.
  * Этот класс используется для представления информации о времени,
- * затраченном на входящий звонок.
+ * затраченном на входящих звонки.
+ * <p>
+ * Время хранится в секундах и выводится в виде {@code HH:mm:ss}, где количество часов
+ * может превышать 24, поэтому итоги за месяц и за все время не переполняются.
+ * </p>
  */
 public class IncomingCallDTO {
 
-	private LocalTime totalTime;
+	private long totalSeconds;
 
 	/**
 	 * Конструктор по умолчанию.
-	 * Инициализирует {@code totalTime} значением {@link LocalTime#MIDNIGHT}.
+	 * Инициализирует общее время нулем.
 	 */
 	public IncomingCallDTO() {
-		this.totalTime = LocalTime.MIDNIGHT;
 	}
 
 	/**
 	 * Конструктор с параметром.
-	 * Инициализирует {@code totalTime} заданным временем.
+	 * Инициализирует общее время заданным количеством секунд.
 	 *
-	 * @param totalTime общее время входящего звонка
+	 * @param totalSeconds общее время входящего звонка в секундах
 	 */
-	public IncomingCallDTO(LocalTime totalTime) {
-		this.totalTime = totalTime;
+	public IncomingCallDTO(long totalSeconds) {
+		this.totalSeconds = totalSeconds;
 	}
 
 	/**
 	 * Получает общее время входящего звонка.
 	 *
-	 * @return общее время в формате {@link LocalTime}
+	 * @return общее время в формате {@code HH:mm:ss}, часов может быть больше 24
 	 */
-	public LocalTime getTotalTime() {
-		return totalTime;
+	public String getTotalTime() {
+		return CallDurationFormat.format(totalSeconds);
 	}
 
 	/**
 	 * Устанавливает общее время входящего звонка.
 	 *
-	 * @param totalTime общее время, которое нужно установить
+	 * @param totalTime общее время в формате {@code HH:mm:ss}
 	 */
-	public void setTotalTime(LocalTime totalTime) {
-		this.totalTime = totalTime;
+	public void setTotalTime(String totalTime) {
+		this.totalSeconds = CallDurationFormat.parse(totalTime);
+	}
+
+	/**
+	 * Получает общее время входящего звонка в секундах.
+	 *
+	 * @return общее время в секундах
+	 */
+	public long getTotalSeconds() {
+		return totalSeconds;
+	}
+
+	/**
+	 * Устанавливает общее время входящего звонка в секундах.
+	 *
+	 * @param totalSeconds общее время в секундах
+	 */
+	public void setTotalSeconds(long totalSeconds) {
+		this.totalSeconds = totalSeconds;
+	}
+
+	/**
+	 * Добавляет заданное количество секунд к общему времени входящего звонка.
+	 *
+	 * @param seconds количество секунд, которое нужно добавить к общему времени
+	 */
+	public void plusSeconds(long seconds) {
+		this.totalSeconds += seconds;
 	}
 
 	/**
@@ -54,7 +85,6 @@ public class IncomingCallDTO {
 	 * @param duration продолжительность, которую нужно добавить к общему времени
 	 */
 	public void plusTotalTime(Duration duration) {
-		this.totalTime = totalTime.plus(duration);
+		plusSeconds(duration.getSeconds());
 	}
 }
-
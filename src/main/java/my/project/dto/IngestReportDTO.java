@@ -0,0 +1,80 @@
+package my.project.dto;
+
+import java.util.List;
+
+/**
+ * DTO (Data Transfer Object) с итогами загрузки записей вызовов.
+ * Содержит количество принятых и отклоненных строк, скорость загрузки
+ * и номера строк, которые не удалось загрузить.
+ */
+public class IngestReportDTO {
+
+	private final long accepted;
+	private final long rejected;
+	private final long elapsedMillis;
+	private final double rowsPerSecond;
+	private final List<Long> failedLines;
+
+	/**
+	 * Конструктор с параметрами.
+	 *
+	 * @param accepted      количество сохраненных строк
+	 * @param rejected      количество отклоненных строк
+	 * @param elapsedMillis длительность загрузки в миллисекундах
+	 * @param rowsPerSecond количество обработанных строк в секунду
+	 * @param failedLines   номера отклоненных строк (начиная с 1)
+	 */
+	public IngestReportDTO(long accepted, long rejected, long elapsedMillis, double rowsPerSecond, List<Long> failedLines) {
+		this.accepted = accepted;
+		this.rejected = rejected;
+		this.elapsedMillis = elapsedMillis;
+		this.rowsPerSecond = rowsPerSecond;
+		this.failedLines = failedLines;
+	}
+
+	/**
+	 * Получает количество сохраненных строк.
+	 *
+	 * @return количество строк
+	 */
+	public long getAccepted() {
+		return accepted;
+	}
+
+	/**
+	 * Получает количество отклоненных строк.
+	 *
+	 * @return количество строк
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Получает длительность загрузки.
+	 *
+	 * @return длительность в миллисекундах
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Получает скорость загрузки.
+	 *
+	 * @return количество обработанных строк в секунду
+	 */
+	public double getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+
+	/**
+	 * Получает номера отклоненных строк. Список может быть короче количества отклоненных строк,
+	 * если их слишком много.
+	 *
+	 * @return номера строк, начиная с 1
+	 */
+	public List<Long> getFailedLines() {
+		return failedLines;
+	}
+}
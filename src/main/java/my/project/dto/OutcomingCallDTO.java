@@ -1,60 +1,90 @@
 package my.project.dto;
 
+import my.project.util.CallDurationFormat;
+
 import java.time.Duration;
-import java.time.LocalTime;
 
 /**
  * DTO (Data Transfer Object) для исходящего звонка.
  * Этот класс используется для представления информации о времени,
- * затраченном на исходящий звонок.
+ * затраченном на исходящих звонки.
+ * <p>
+ * Время хранится в секундах и выводится в виде {@code HH:mm:ss}, где количество часов
+ * может превышать 24, поэтому итоги за месяц и за все время не переполняются.
+ * </p>
  */
 public class OutcomingCallDTO {
 
-	private LocalTime totalTime;
+	private long totalSeconds;
 
 	/**
 	 * Конструктор по умолчанию.
-	 * Инициализирует {@code totalTime} значением {@link LocalTime#MIDNIGHT}.
+	 * Инициализирует общее время нулем.
 	 */
 	public OutcomingCallDTO() {
-		this.totalTime = LocalTime.MIDNIGHT;
 	}
 
 	/**
 	 * Конструктор с параметром.
-	 * Инициализирует {@code totalTime} заданным временем.
+	 * Инициализирует общее время заданным количеством секунд.
 	 *
-	 * @param totalTime общее время исходящего звонка
+	 * @param totalSeconds общее время исходящего звонка в секундах
 	 */
-	public OutcomingCallDTO(LocalTime totalTime) {
-		this.totalTime = totalTime;
+	public OutcomingCallDTO(long totalSeconds) {
+		this.totalSeconds = totalSeconds;
 	}
 
 	/**
 	 * Получает общее время исходящего звонка.
 	 *
-	 * @return Общее время исходящего звонка в формате LocalTime.
+	 * @return общее время в формате {@code HH:mm:ss}, часов может быть больше 24
 	 */
-	public LocalTime getTotalTime() {
-		return totalTime;
+	public String getTotalTime() {
+		return CallDurationFormat.format(totalSeconds);
 	}
 
 	/**
 	 * Устанавливает общее время исходящего звонка.
 	 *
-	 * @param totalTime Общее время исходящего звонка в формате LocalTime.
+	 * @param totalTime общее время в формате {@code HH:mm:ss}
 	 */
-	public void setTotalTime(LocalTime totalTime) {
-		this.totalTime = totalTime;
+	public void setTotalTime(String totalTime) {
+		this.totalSeconds = CallDurationFormat.parse(totalTime);
+	}
+
+	/**
+	 * Получает общее время исходящего звонка в секундах.
+	 *
+	 * @return общее время в секундах
+	 */
+	public long getTotalSeconds() {
+		return totalSeconds;
+	}
+
+	/**
+	 * Устанавливает общее время исходящего звонка в секундах.
+	 *
+	 * @param totalSeconds общее время в секундах
+	 */
+	public void setTotalSeconds(long totalSeconds) {
+		this.totalSeconds = totalSeconds;
+	}
+
+	/**
+	 * Добавляет заданное количество секунд к общему времени исходящего звонка.
+	 *
+	 * @param seconds количество секунд, которое нужно добавить к общему времени
+	 */
+	public void plusSeconds(long seconds) {
+		this.totalSeconds += seconds;
 	}
 
 	/**
 	 * Добавляет заданную продолжительность к общему времени исходящего звонка.
 	 *
-	 * @param duration Продолжительность, которую необходимо добавить к общему времени.
+	 * @param duration продолжительность, которую нужно добавить к общему времени
 	 */
 	public void plusTotalTime(Duration duration) {
-		this.totalTime = totalTime.plus(duration);
+		plusSeconds(duration.getSeconds());
 	}
 }
-
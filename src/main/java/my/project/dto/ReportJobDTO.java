@@ -0,0 +1,184 @@
+package my.project.dto;
+
+import my.project.util.ReportFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO (Data Transfer Object) задания на генерацию CDR отчета.
+ * Этот класс используется для отслеживания состояния асинхронной генерации отчета:
+ * статуса задания, количества записанных строк и размера файла.
+ */
+public class ReportJobDTO {
+
+	/**
+	 * Статус задания на генерацию отчета.
+	 */
+	public enum Status {
+		/** Задание ожидает в очереди. */
+		QUEUED,
+		/** Отчет генерируется. */
+		RUNNING,
+		/** Отчет успешно сгенерирован. */
+		DONE,
+		/** Генерация отчета завершилась ошибкой. */
+		FAILED
+	}
+
+	private final String uuid;
+	private final String msisdn;
+	private final LocalDateTime start;
+	private final LocalDateTime end;
+	private final ReportFormat format;
+	private volatile Status status;
+	private volatile long rowsWritten;
+	private volatile long bytesWritten;
+	private volatile String error;
+
+	/**
+	 * Конструктор задания на генерацию отчета в формате {@link ReportFormat#CSV} в статусе {@link Status#QUEUED}.
+	 *
+	 * @param uuid   уникальный идентификатор отчета
+	 * @param msisdn номер абонента, для которого генерируется отчет
+	 * @param start  начало периода отчета
+	 * @param end    конец периода отчета
+	 */
+	public ReportJobDTO(String uuid, String msisdn, LocalDateTime start, LocalDateTime end) {
+		this(uuid, msisdn, start, end, ReportFormat.CSV);
+	}
+
+	/**
+	 * Конструктор задания в статусе {@link Status#QUEUED}.
+	 *
+	 * @param uuid   уникальный идентификатор отчета
+	 * @param msisdn номер абонента, для которого генерируется отчет
+	 * @param start  начало периода отчета
+	 * @param end    конец периода отчета
+	 * @param format формат файла отчета
+	 */
+	public ReportJobDTO(String uuid, String msisdn, LocalDateTime start, LocalDateTime end, ReportFormat format) {
+		this.uuid = uuid;
+		this.msisdn = msisdn;
+		this.start = start;
+		this.end = end;
+		this.format = format;
+		this.status = Status.QUEUED;
+	}
+
+	/**
+	 * Получает уникальный идентификатор отчета.
+	 *
+	 * @return UUID отчета
+	 */
+	public String getUuid() {
+		return uuid;
+	}
+
+	/**
+	 * Получает номер абонента.
+	 *
+	 * @return номер абонента (MSISDN)
+	 */
+	public String getMsisdn() {
+		return msisdn;
+	}
+
+	/**
+	 * Получает начало периода отчета.
+	 *
+	 * @return начало периода
+	 */
+	public LocalDateTime getStart() {
+		return start;
+	}
+
+	/**
+	 * Получает конец периода отчета.
+	 *
+	 * @return конец периода
+	 */
+	public LocalDateTime getEnd() {
+		return end;
+	}
+
+	/**
+	 * Получает формат файла отчета.
+	 *
+	 * @return формат отчета
+	 */
+	public ReportFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Получает статус задания.
+	 *
+	 * @return статус задания
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Устанавливает статус задания.
+	 *
+	 * @param status статус задания
+	 */
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	/**
+	 * Получает количество записанных строк отчета.
+	 *
+	 * @return количество строк
+	 */
+	public long getRowsWritten() {
+		return rowsWritten;
+	}
+
+	/**
+	 * Устанавливает количество записанных строк отчета.
+	 *
+	 * @param rowsWritten количество строк
+	 */
+	public void setRowsWritten(long rowsWritten) {
+		this.rowsWritten = rowsWritten;
+	}
+
+	/**
+	 * Получает размер файла отчета.
+	 *
+	 * @return размер в байтах
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Устанавливает размер файла отчета.
+	 *
+	 * @param bytesWritten размер в байтах
+	 */
+	public void setBytesWritten(long bytesWritten) {
+		this.bytesWritten = bytesWritten;
+	}
+
+	/**
+	 * Получает описание ошибки, если генерация завершилась неудачно.
+	 *
+	 * @return описание ошибки или {@code null}
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Устанавливает описание ошибки.
+	 *
+	 * @param error описание ошибки
+	 */
+	public void setError(String error) {
+		this.error = error;
+	}
+}
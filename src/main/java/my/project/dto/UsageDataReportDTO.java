@@ -48,6 +48,24 @@ public class UsageDataReportDTO {
 		this.outcomingCall = outcomingCall;
 	}
 
+	/**
+	 * Добавляет заданное количество секунд к общему времени входящих звонков.
+	 *
+	 * @param seconds Количество секунд, которое необходимо добавить к общему времени входящих звонков.
+	 */
+	public void plusIncomingSeconds(long seconds) {
+		this.incomingCall.plusSeconds(seconds);
+	}
+
+	/**
+	 * Добавляет заданное количество секунд к общему времени исходящих звонков.
+	 *
+	 * @param seconds Количество секунд, которое необходимо добавить к общему времени исходящих звонков.
+	 */
+	public void plusOutcomingSeconds(long seconds) {
+		this.outcomingCall.plusSeconds(seconds);
+	}
+
 	/**
 	 * Добавляет заданную продолжительность к общему времени входящих звонков.
 	 *
@@ -0,0 +1,89 @@
+package my.project.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Представляет месяц, записи вызовов которого перенесены из таблицы "cdr" в архивную таблицу.
+ * Этот класс отображается на таблицу "cdr_archived_month" в базе данных.
+ * <p>
+ * Записи каждого месяца архивируются в отдельную таблицу {@code cdr_archive_yyyy_mm}, которую можно
+ * выгрузить или удалить целиком, не затрагивая таблицу cdr. Месячные агрегаты архивных месяцев
+ * сохраняются и не пересчитываются.
+ * </p>
+ */
+@Entity
+@Table(name = "cdr_archived_month")
+public class ArchivedMonth {
+
+	@Id
+	@Column(name = "billing_month", length = 7)
+	private String month;
+
+	@Column(name = "table_name")
+	private String tableName;
+
+	@Column(name = "row_count")
+	private long rowCount;
+
+	@Column(name = "archived_at")
+	private LocalDateTime archivedAt;
+
+	/**
+	 * Конструктор по умолчанию для ArchivedMonth.
+	 */
+	public ArchivedMonth() {
+	}
+
+	/**
+	 * Конструктор, создающий запись об архивном месяце с указанными параметрами.
+	 *
+	 * @param month      месяц в формате "yyyy-MM"
+	 * @param tableName  имя архивной таблицы
+	 * @param rowCount   количество перенесенных записей
+	 * @param archivedAt время последнего переноса
+	 */
+	public ArchivedMonth(String month, String tableName, long rowCount, LocalDateTime archivedAt) {
+		this.month = month;
+		this.tableName = tableName;
+		this.rowCount = rowCount;
+		this.archivedAt = archivedAt;
+	}
+
+	/**
+	 * Возвращает месяц.
+	 *
+	 * @return месяц в формате "yyyy-MM"
+	 */
+	public String getMonth() {
+		return month;
+	}
+
+	/**
+	 * Возвращает имя архивной таблицы.
+	 *
+	 * @return имя архивной таблицы
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * Возвращает количество перенесенных записей.
+	 *
+	 * @return количество записей в архивной таблице
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Возвращает время последнего переноса.
+	 *
+	 * @return время последнего переноса
+	 */
+	public LocalDateTime getArchivedAt() {
+		return archivedAt;
+	}
+}
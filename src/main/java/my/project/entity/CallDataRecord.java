@@ -1,29 +1,76 @@
 package my.project.entity;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * Представляет запись данных вызова (CDR), которая хранит информацию о телефонном звонке.
  * Этот класс отображается на таблицу "cdr" в базе данных.
+ * <p>
+ * Идентификаторы выделяются из последовательности "cdr_seq" блоками (pooled),
+ * что позволяет Hibernate объединять вставки в пакеты JDBC. В существующей базе данных
+ * последовательность начинается после уже выделенных идентификаторов (см. {@code CallDataRecordSchemaMigration}).
+ * </p>
+ * <p>
+ * Запись хранится в компактном виде: номера телефонов - числами BIGINT, тип вызова - {@link CallType}
+ * в столбце TINYINT, время начала - количеством секунд от 1970-01-01T00:00:00 (UTC), длительность -
+ * количеством секунд. Поэтому запись в памяти не содержит вложенных объектов, а время хранится
+ * с точностью до секунды. Методы доступа принимают и возвращают номера строками из 11 цифр,
+ * тип вызова - кодом "01" или "02", время - {@link LocalDateTime}, поэтому представление записи
+ * в JSON и отчетах не изменилось. Номер телефона не из 11 цифр отклоняется конструктором и методами
+ * установки номера с {@link IllegalArgumentException}. Неизвестный тип вызова и время окончания
+ * раньше времени начала не могут быть сохранены и возвращаются как {@code null}.
+ * </p>
+ * <p>
+ * Индексы по (phone_one, start_time) и (phone_two, start_time) обслуживают выборки
+ * по номеру абонента и периоду времени. Индекс по start_time ограничивает операции над месяцем
+ * (перенос в архив) диапазоном этого месяца и поиск последнего вызова при генерации.
+ * </p>
  */
 @Entity
-@Table(name = "cdr")
+@Table(name = "cdr", indexes = {
+		@Index(name = "idx_cdr_phone_one_start_time", columnList = "phone_one, start_time"),
+		@Index(name = "idx_cdr_phone_two_start_time", columnList = "phone_two, start_time"),
+		@Index(name = "idx_cdr_start_time", columnList = "start_time")
+})
+@JsonPropertyOrder({"id", "callType", "phoneOne", "phoneTwo", "startTime", "endTime"})
 public class CallDataRecord {
 
+	/**
+	 * Количество идентификаторов, выделяемых из последовательности "cdr_seq" за одно обращение.
+	 */
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	private static final long MSISDN_RANGE = 100_000_000_000L;
+	private static final long NO_TIME = Long.MIN_VALUE;
+	private static final int NO_DURATION = -1;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cdr_seq")
+	@SequenceGenerator(name = "cdr_seq", sequenceName = "cdr_seq",
+			allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
 
-	private String callType;
+	@Convert(converter = CallTypeConverter.class)
+	@Column(name = "call_type")
+	private CallType callType;
 
-	private String phoneOne;
+	@Column(name = "phone_one")
+	private long phoneOne = -1;
 
-	private String phoneTwo;
+	@Column(name = "phone_two")
+	private long phoneTwo = -1;
 
-	private LocalDateTime startTime;
+	@Column(name = "start_time")
+	private long startTime = NO_TIME;
 
-	private LocalDateTime endTime;
+	@Column(name = "duration")
+	private int duration = NO_DURATION;
 
 	/**
 	 * Конструктор по умолчанию для CallDataRecord.
@@ -33,55 +80,62 @@ public class CallDataRecord {
 
 	/**
 	 * Конструктор, создающий запись данных вызова с указанными параметрами.
+	 * Используется также при чтении записи из JSON.
 	 *
 	 * @param callType  тип вызова (например, 01 - исходящие, 02 - входящие)
 	 * @param phoneOne  номер телефона, инициирующий вызов
 	 * @param phoneTwo  номер телефона, принимающий вызов
 	 * @param startTime время начала вызова
 	 * @param endTime   время окончания вызова
+	 * @throws IllegalArgumentException если номер телефона не состоит из 11 цифр
 	 */
-	public CallDataRecord(String callType, String phoneOne, String phoneTwo, LocalDateTime startTime, LocalDateTime endTime) {
-		this.callType = callType;
-		this.phoneOne = phoneOne;
-		this.phoneTwo = phoneTwo;
-		this.startTime = startTime;
-		this.endTime = endTime;
+	@JsonCreator
+	public CallDataRecord(@JsonProperty("callType") String callType,
+						  @JsonProperty("phoneOne") String phoneOne,
+						  @JsonProperty("phoneTwo") String phoneTwo,
+						  @JsonProperty("startTime") LocalDateTime startTime,
+						  @JsonProperty("endTime") LocalDateTime endTime) {
+		this.callType = CallType.fromCode(callType);
+		this.phoneOne = parseMsisdn(phoneOne);
+		this.phoneTwo = parseMsisdn(phoneTwo);
+		setTimes(startTime == null ? NO_TIME : toEpochSecond(startTime), endTime);
 	}
 
 	/**
 	 * Возвращает время начала вызова.
 	 *
-	 * @return время начала как {@link LocalDateTime}
+	 * @return время начала как {@link LocalDateTime} или {@code null}, если оно не задано
 	 */
 	public LocalDateTime getStartTime() {
-		return startTime;
+		return startTime == NO_TIME ? null : LocalDateTime.ofEpochSecond(startTime, 0, ZoneOffset.UTC);
 	}
 
 	/**
-	 * Устанавливает время начала вызова.
+	 * Устанавливает время начала вызова, сохраняя время окончания.
 	 *
 	 * @param startTime время начала для установки
 	 */
 	public void setStartTime(LocalDateTime startTime) {
-		this.startTime = startTime;
+		setTimes(startTime == null ? NO_TIME : toEpochSecond(startTime), getEndTime());
 	}
 
 	/**
 	 * Возвращает время окончания вызова.
 	 *
-	 * @return время окончания как {@link LocalDateTime}
+	 * @return время окончания как {@link LocalDateTime} или {@code null}, если оно не задано
+	 * или раньше времени начала
 	 */
 	public LocalDateTime getEndTime() {
-		return endTime;
+		return duration == NO_DURATION ? null : LocalDateTime.ofEpochSecond(startTime + duration, 0, ZoneOffset.UTC);
 	}
 
 	/**
-	 * Устанавливает время окончания вызова.
+	 * Устанавливает время окончания вызова. Время начала должно быть установлено раньше.
 	 *
 	 * @param endOfCall время окончания для установки
 	 */
 	public void setEndTime(LocalDateTime endOfCall) {
-		this.endTime = endOfCall;
+		setTimes(startTime, endOfCall);
 	}
 
 	/**
@@ -90,16 +144,17 @@ public class CallDataRecord {
 	 * @return номер телефона, принимающего вызов, как {@link String}
 	 */
 	public String getPhoneTwo() {
-		return phoneTwo;
+		return toMsisdn(phoneTwo);
 	}
 
 	/**
 	 * Устанавливает номер телефона, принимающего вызов.
 	 *
 	 * @param receiveNumber номер телефона для установки
+	 * @throws IllegalArgumentException если номер не состоит из 11 цифр
 	 */
 	public void setPhoneTwo(String receiveNumber) {
-		this.phoneTwo = receiveNumber;
+		this.phoneTwo = parseMsisdn(receiveNumber);
 	}
 
 	/**
@@ -108,34 +163,85 @@ public class CallDataRecord {
 	 * @return номер телефона, инициирующий вызов, как {@link String}
 	 */
 	public String getPhoneOne() {
-		return phoneOne;
+		return toMsisdn(phoneOne);
 	}
 
 	/**
 	 * Устанавливает номер телефона, инициирующий вызов.
 	 *
 	 * @param initNumber номер телефона для установки
+	 * @throws IllegalArgumentException если номер не состоит из 11 цифр
 	 */
 	public void setPhoneOne(String initNumber) {
-		this.phoneOne = initNumber;
+		this.phoneOne = parseMsisdn(initNumber);
 	}
 
 	/**
-	 * Возвращает тип вызова.
+	 * Возвращает код типа вызова.
 	 *
-	 * @return тип вызова как {@link String}
+	 * @return код типа вызова "01" или "02" как {@link String}
 	 */
 	public String getCallType() {
-		return callType;
+		return callType == null ? null : callType.getCode();
 	}
 
 	/**
-	 * Устанавливает тип вызова.
+	 * Устанавливает тип вызова по коду.
 	 *
-	 * @param callType тип вызова для установки
+	 * @param callType код типа вызова для установки
 	 */
 	public void setCallType(String callType) {
-		this.callType = callType;
+		this.callType = CallType.fromCode(callType);
+	}
+
+	/**
+	 * Возвращает тип вызова.
+	 *
+	 * @return тип вызова или {@code null}, если код типа неизвестен
+	 */
+	@JsonIgnore
+	public CallType getType() {
+		return callType;
+	}
+
+	/**
+	 * Возвращает номер телефона, инициирующего вызов, в виде числа.
+	 *
+	 * @return номер телефона или -1, если номер не задан
+	 */
+	@JsonIgnore
+	public long getPhoneOneNumber() {
+		return phoneOne;
+	}
+
+	/**
+	 * Возвращает номер телефона, принимающего вызов, в виде числа.
+	 *
+	 * @return номер телефона или -1, если номер не задан
+	 */
+	@JsonIgnore
+	public long getPhoneTwoNumber() {
+		return phoneTwo;
+	}
+
+	/**
+	 * Возвращает время начала вызова в секундах от 1970-01-01T00:00:00 (UTC).
+	 *
+	 * @return время начала в секундах
+	 */
+	@JsonIgnore
+	public long getStartEpochSecond() {
+		return startTime;
+	}
+
+	/**
+	 * Возвращает длительность вызова.
+	 *
+	 * @return длительность в секундах или -1, если время окончания не задано
+	 */
+	@JsonIgnore
+	public int getDuration() {
+		return duration;
 	}
 
 	/**
@@ -155,5 +261,73 @@ public class CallDataRecord {
 	public void setId(Long id) {
 		this.id = id;
 	}
-}
 
+	/**
+	 * Преобразует номер телефона из 11 цифр в число для поиска записей. Записи с номером -1
+	 * не сохраняются, поэтому поиск по некорректному номеру ничего не находит.
+	 *
+	 * @param msisdn номер телефона
+	 * @return номер в виде числа или -1, если номер не состоит из 11 цифр
+	 */
+	public static long toMsisdnNumber(String msisdn) {
+		if (msisdn == null || msisdn.length() != 11) {
+			return -1;
+		}
+		long number = 0;
+		for (int i = 0; i < 11; i++) {
+			char c = msisdn.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			number = number * 10 + (c - '0');
+		}
+		return number;
+	}
+
+	/**
+	 * Преобразует число в номер телефона из 11 цифр, дополняя его ведущими нулями.
+	 *
+	 * @param number номер в виде числа
+	 * @return номер телефона или {@code null}, если число вне диапазона номеров
+	 */
+	public static String toMsisdn(long number) {
+		if (number < 0 || number >= MSISDN_RANGE) {
+			return null;
+		}
+		char[] digits = new char[11];
+		for (int i = 10; i >= 0; i--) {
+			digits[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+		return new String(digits);
+	}
+
+	/**
+	 * Преобразует время в количество секунд от 1970-01-01T00:00:00 (UTC), отбрасывая доли секунды.
+	 *
+	 * @param dateTime время
+	 * @return количество секунд
+	 */
+	public static long toEpochSecond(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static long parseMsisdn(String msisdn) {
+		long number = toMsisdnNumber(msisdn);
+		if (number < 0) {
+			throw new IllegalArgumentException("Invalid msisdn: " + msisdn);
+		}
+		return number;
+	}
+
+	private void setTimes(long start, LocalDateTime end) {
+		this.startTime = start;
+		this.duration = NO_DURATION;
+		if (start != NO_TIME && end != null) {
+			long seconds = toEpochSecond(end) - start;
+			if (seconds >= 0 && seconds <= Integer.MAX_VALUE) {
+				this.duration = (int) seconds;
+			}
+		}
+	}
+}
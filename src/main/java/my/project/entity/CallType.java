@@ -0,0 +1,79 @@
+package my.project.entity;
+
+/**
+ * Тип вызова записи данных вызова (CDR).
+ * <p>
+ * Во внешних форматах (JSON, CSV отчет) тип передается кодом "01" или "02",
+ * в базе данных хранится числом {@link #getId()} в столбце TINYINT.
+ * </p>
+ */
+public enum CallType {
+
+	/**
+	 * Исходящий вызов (код "01"): phone_one - вызывающий абонент.
+	 */
+	OUTGOING("01", (byte) 1),
+
+	/**
+	 * Входящий вызов (код "02"): phone_one - принимающий абонент.
+	 */
+	INCOMING("02", (byte) 2);
+
+	private final String code;
+	private final byte id;
+
+	CallType(String code, byte id) {
+		this.code = code;
+		this.id = id;
+	}
+
+	/**
+	 * Возвращает код типа вызова во внешних форматах.
+	 *
+	 * @return код "01" или "02"
+	 */
+	public String getCode() {
+		return code;
+	}
+
+	/**
+	 * Возвращает значение типа вызова, хранимое в базе данных.
+	 *
+	 * @return значение столбца call_type
+	 */
+	public byte getId() {
+		return id;
+	}
+
+	/**
+	 * Находит тип вызова по коду.
+	 *
+	 * @param code код типа вызова
+	 * @return тип вызова или {@code null}, если код неизвестен
+	 */
+	public static CallType fromCode(String code) {
+		if (OUTGOING.code.equals(code)) {
+			return OUTGOING;
+		}
+		if (INCOMING.code.equals(code)) {
+			return INCOMING;
+		}
+		return null;
+	}
+
+	/**
+	 * Находит тип вызова по значению, хранимому в базе данных.
+	 *
+	 * @param id значение столбца call_type
+	 * @return тип вызова
+	 * @throws IllegalArgumentException если значение неизвестно
+	 */
+	public static CallType fromId(byte id) {
+		for (CallType type : values()) {
+			if (type.id == id) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown call type: " + id);
+	}
+}
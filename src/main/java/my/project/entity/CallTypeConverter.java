@@ -0,0 +1,21 @@
+package my.project.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Преобразует {@link CallType} в значение столбца TINYINT и обратно.
+ */
+@Converter
+public class CallTypeConverter implements AttributeConverter<CallType, Byte> {
+
+	@Override
+	public Byte convertToDatabaseColumn(CallType callType) {
+		return callType == null ? null : callType.getId();
+	}
+
+	@Override
+	public CallType convertToEntityAttribute(Byte id) {
+		return id == null ? null : CallType.fromId(id);
+	}
+}
@@ -0,0 +1,123 @@
+package my.project.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Представляет агрегат использования связи абонентом за месяц.
+ * Этот класс отображается на таблицу "udr_monthly" в базе данных и хранит
+ * суммарную длительность входящих и исходящих вызовов абонента за месяц.
+ * <p>
+ * Вызов относится к месяцу, в котором он начался.
+ * </p>
+ */
+@Entity
+@Table(name = "udr_monthly")
+@IdClass(MonthlyUsageId.class)
+public class MonthlyUsage {
+
+	@Id
+	private String msisdn;
+
+	@Id
+	@Column(name = "billing_month", length = 7)
+	private String month;
+
+	@Column(name = "incoming_seconds")
+	private long incomingSeconds;
+
+	@Column(name = "outgoing_seconds")
+	private long outgoingSeconds;
+
+	/**
+	 * Конструктор по умолчанию для MonthlyUsage.
+	 */
+	public MonthlyUsage() {
+	}
+
+	/**
+	 * Конструктор, создающий агрегат с указанными параметрами.
+	 *
+	 * @param msisdn          номер абонента
+	 * @param month           месяц в формате "yyyy-MM"
+	 * @param incomingSeconds суммарная длительность входящих вызовов в секундах
+	 * @param outgoingSeconds суммарная длительность исходящих вызовов в секундах
+	 */
+	public MonthlyUsage(String msisdn, String month, long incomingSeconds, long outgoingSeconds) {
+		this.msisdn = msisdn;
+		this.month = month;
+		this.incomingSeconds = incomingSeconds;
+		this.outgoingSeconds = outgoingSeconds;
+	}
+
+	/**
+	 * Возвращает номер абонента.
+	 *
+	 * @return номер абонента как {@link String}
+	 */
+	public String getMsisdn() {
+		return msisdn;
+	}
+
+	/**
+	 * Устанавливает номер абонента.
+	 *
+	 * @param msisdn номер абонента для установки
+	 */
+	public void setMsisdn(String msisdn) {
+		this.msisdn = msisdn;
+	}
+
+	/**
+	 * Возвращает месяц агрегата.
+	 *
+	 * @return месяц в формате "yyyy-MM"
+	 */
+	public String getMonth() {
+		return month;
+	}
+
+	/**
+	 * Устанавливает месяц агрегата.
+	 *
+	 * @param month месяц в формате "yyyy-MM"
+	 */
+	public void setMonth(String month) {
+		this.month = month;
+	}
+
+	/**
+	 * Возвращает суммарную длительность входящих вызовов.
+	 *
+	 * @return длительность в секундах
+	 */
+	public long getIncomingSeconds() {
+		return incomingSeconds;
+	}
+
+	/**
+	 * Устанавливает суммарную длительность входящих вызовов.
+	 *
+	 * @param incomingSeconds длительность в секундах
+	 */
+	public void setIncomingSeconds(long incomingSeconds) {
+		this.incomingSeconds = incomingSeconds;
+	}
+
+	/**
+	 * Возвращает суммарную длительность исходящих вызовов.
+	 *
+	 * @return длительность в секундах
+	 */
+	public long getOutgoingSeconds() {
+		return outgoingSeconds;
+	}
+
+	/**
+	 * Устанавливает суммарную длительность исходящих вызовов.
+	 *
+	 * @param outgoingSeconds длительность в секундах
+	 */
+	public void setOutgoingSeconds(long outgoingSeconds) {
+		this.outgoingSeconds = outgoingSeconds;
+	}
+}
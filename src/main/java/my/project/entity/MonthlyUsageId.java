@@ -0,0 +1,61 @@
+package my.project.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Составной ключ агрегата {@link MonthlyUsage}: номер абонента и месяц.
+ */
+public class MonthlyUsageId implements Serializable {
+
+	private String msisdn;
+
+	private String month;
+
+	/**
+	 * Конструктор по умолчанию для MonthlyUsageId.
+	 */
+	public MonthlyUsageId() {
+	}
+
+	/**
+	 * Конструктор, создающий ключ с указанными параметрами.
+	 *
+	 * @param msisdn номер абонента
+	 * @param month  месяц в формате "yyyy-MM"
+	 */
+	public MonthlyUsageId(String msisdn, String month) {
+		this.msisdn = msisdn;
+		this.month = month;
+	}
+
+	/**
+	 * Возвращает номер абонента.
+	 *
+	 * @return номер абонента как {@link String}
+	 */
+	public String getMsisdn() {
+		return msisdn;
+	}
+
+	/**
+	 * Возвращает месяц.
+	 *
+	 * @return месяц в формате "yyyy-MM"
+	 */
+	public String getMonth() {
+		return month;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) return true;
+		if (!(object instanceof MonthlyUsageId that)) return false;
+		return Objects.equals(msisdn, that.msisdn) && Objects.equals(month, that.month);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(msisdn, month);
+	}
+}
@@ -0,0 +1,88 @@
+package my.project.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Представляет контрольную точку загрузки файла из каталога приема CDR.
+ * Этот класс отображается на таблицу "spool_checkpoint" в базе данных и хранит
+ * смещение, до которого записи файла уже сохранены.
+ * <p>
+ * Контрольная точка обновляется в той же транзакции, что и сохраняемые записи,
+ * поэтому после сбоя загрузка продолжается ровно с первой несохраненной строки.
+ * Размер и время изменения файла позволяют отличить новый файл с тем же именем.
+ * </p>
+ */
+@Entity
+@Table(name = "spool_checkpoint")
+public class SpoolCheckpoint {
+
+	@Id
+	@Column(name = "file_name")
+	private String fileName;
+
+	@Column(name = "byte_offset")
+	private long offset;
+
+	@Column(name = "file_size")
+	private long fileSize;
+
+	@Column(name = "last_modified")
+	private long lastModified;
+
+	/**
+	 * Конструктор по умолчанию для SpoolCheckpoint.
+	 */
+	public SpoolCheckpoint() {
+	}
+
+	/**
+	 * Конструктор, создающий контрольную точку с указанными параметрами.
+	 *
+	 * @param fileName     имя файла
+	 * @param offset       смещение первой несохраненной строки в байтах
+	 * @param fileSize     размер файла в байтах
+	 * @param lastModified время изменения файла в миллисекундах
+	 */
+	public SpoolCheckpoint(String fileName, long offset, long fileSize, long lastModified) {
+		this.fileName = fileName;
+		this.offset = offset;
+		this.fileSize = fileSize;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Возвращает имя файла.
+	 *
+	 * @return имя файла
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Возвращает смещение первой несохраненной строки.
+	 *
+	 * @return смещение в байтах
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Возвращает размер файла.
+	 *
+	 * @return размер в байтах
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Возвращает время изменения файла.
+	 *
+	 * @return время в миллисекундах
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+}
@@ -10,7 +10,8 @@ import jakarta.persistence.*;
 public class Subscriber {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscriber_seq")
+	@SequenceGenerator(name = "subscriber_seq", sequenceName = "subscriber_seq", allocationSize = 50)
 	private Long id;
 
 	private String msisdn;
@@ -0,0 +1,37 @@
+package my.project.repositories;
+
+import my.project.entity.ArchivedMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Репозиторий для работы с архивными месяцами записей вызовов (таблица cdr_archived_month).
+ */
+@Repository
+public interface ArchivedMonthRepository extends JpaRepository<ArchivedMonth, String> {
+
+	/**
+	 * Находит архивные месяцы в диапазоне.
+	 *
+	 * @param from первый месяц диапазона в формате "yyyy-MM"
+	 * @param to   последний месяц диапазона включительно в формате "yyyy-MM"
+	 * @return список архивных месяцев, упорядоченный по месяцу
+	 */
+	List<ArchivedMonth> findAllByMonthBetweenOrderByMonth(String from, String to);
+
+	/**
+	 * Удаляет все архивные месяцы в отдельной транзакции, которая фиксируется до возврата из метода.
+	 * Вызывается перед удалением архивных таблиц, чтобы в cdr_archived_month не оставалось ссылок
+	 * на удаленные таблицы, даже если транзакция вызывающего кода будет откачена.
+	 */
+	@Modifying
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Query("DELETE FROM ArchivedMonth")
+	void deleteAllInNewTransaction();
+}
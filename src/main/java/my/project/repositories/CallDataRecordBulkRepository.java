@@ -0,0 +1,88 @@
+package my.project.repositories;
+
+import my.project.entity.CallDataRecord;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Фрагмент репозитория для пакетной записи и потокового чтения CDR.
+ * Подключается к {@link CallDataRecordRepository} и позволяет обрабатывать большие объемы записей,
+ * не накапливая сущности в контексте персистентности.
+ */
+public interface CallDataRecordBulkRepository {
+
+	/**
+	 * Сохраняет записи данных вызовов пакетами.
+	 * <p>
+	 * После каждого пакета размером {@code hibernate.jdbc.batch_size} контекст персистентности
+	 * сбрасывается в базу данных и очищается. В той же транзакции месячные агрегаты
+	 * (таблица udr_monthly) увеличиваются на длительность сохраненных вызовов
+	 * и публикуется событие {@link my.project.util.CallDataRecordsSavedEvent}.
+	 * </p>
+	 *
+	 * @param records записи данных вызовов для сохранения
+	 */
+	void saveAllInBatch(List<CallDataRecord> records);
+
+	/**
+	 * Отсоединяет запись данных вызова от контекста персистентности.
+	 * Используется при потоковом чтении, чтобы прочитанные записи не накапливались в памяти.
+	 *
+	 * @param record запись данных вызова
+	 */
+	void detach(CallDataRecord record);
+
+	/**
+	 * Создает архивную таблицу месяца со структурой таблицы cdr, если ее еще нет.
+	 * <p>
+	 * H2 фиксирует транзакцию при выполнении DDL, поэтому таблица создается в отдельной
+	 * транзакции и не фиксирует досрочно транзакцию вызывающего кода. Для выборок отчетов из архивной
+	 * таблицы создаются индексы по (phone_one, start_time) и (phone_two, start_time), как у таблицы cdr.
+	 * </p>
+	 *
+	 * @param tableName имя архивной таблицы
+	 */
+	void createArchiveTable(String tableName);
+
+	/**
+	 * Удаляет архивную таблицу месяца, если она существует.
+	 * Как и {@link #createArchiveTable(String)}, выполняется в отдельной транзакции.
+	 *
+	 * @param tableName имя архивной таблицы
+	 */
+	void dropArchiveTable(String tableName);
+
+	/**
+	 * Переносит записи вызовов, начавшихся в указанном месяце, из таблицы cdr в архивную таблицу,
+	 * созданную {@link #createArchiveTable(String)}.
+	 * <p>
+	 * Записи выбираются и удаляются по диапазону индекса по start_time, поэтому
+	 * остальные месяцы не просматриваются.
+	 * </p>
+	 *
+	 * @param month     месяц
+	 * @param tableName имя архивной таблицы
+	 * @return количество перенесенных записей
+	 */
+	int moveMonthToArchive(YearMonth month, String tableName);
+
+	/**
+	 * Возвращает записи данных вызовов по номеру абонента в виде числа и диапазону времени начала в секундах
+	 * из таблицы cdr и указанных архивных таблиц в виде потока, читаемого через курсор JDBC.
+	 * <p>
+	 * Выполняет тот же запрос, что и {@link CallDataRecordRepository#streamByMsisdnNumberAndStartRange},
+	 * объединяя через UNION ALL таблицу cdr и архивные таблицы. Поток должен потребляться
+	 * внутри транзакции и быть закрыт после использования.
+	 * </p>
+	 *
+	 * @param msisdn        номер абонента в виде числа
+	 * @param start         начало диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @param end           конец диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @param archiveTables имена архивных таблиц месяцев диапазона
+	 * @return поток записей данных вызовов, упорядоченный по времени начала
+	 */
+	Stream<CallDataRecord> streamByMsisdnNumberAndStartRangeWithArchives(long msisdn, long start, long end,
+																		  List<String> archiveTables);
+}
@@ -0,0 +1,146 @@
+package my.project.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsage;
+import my.project.entity.MonthlyUsageId;
+import my.project.util.CallDataRecordsSavedEvent;
+import my.project.util.MonthlyUsageAccumulator;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Реализация {@link CallDataRecordBulkRepository} на основе {@link EntityManager}.
+ * <p>
+ * Запросы к архивным таблицам перечисляют столбцы явно ({@value #ARCHIVE_COLUMNS}), поэтому не зависят
+ * от порядка столбцов таблицы cdr, который меняется при обновлении схемы Hibernate.
+ * </p>
+ */
+public class CallDataRecordBulkRepositoryImpl implements CallDataRecordBulkRepository {
+
+	private static final String ARCHIVE_COLUMNS = "id, call_type, phone_one, phone_two, start_time, duration";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final MonthlyUsageRepository monthlyUsageRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+
+	/**
+	 * Конструктор фрагмента репозитория.
+	 *
+	 * @param monthlyUsageRepository репозиторий месячных агрегатов, обновляемых вместе с записями
+	 * @param eventPublisher         публикатор события {@link CallDataRecordsSavedEvent}
+	 * @param batchSize              размер пакета JDBC, после которого контекст персистентности сбрасывается и очищается
+	 */
+	public CallDataRecordBulkRepositoryImpl(MonthlyUsageRepository monthlyUsageRepository,
+											ApplicationEventPublisher eventPublisher,
+											@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+		this.monthlyUsageRepository = monthlyUsageRepository;
+		this.eventPublisher = eventPublisher;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	@Transactional
+	public void saveAllInBatch(List<CallDataRecord> records) {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		for (int i = 0; i < records.size(); i++) {
+			CallDataRecord record = records.get(i);
+			entityManager.persist(record);
+			accumulator.add(record);
+			if ((i + 1) % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		Set<MonthlyUsageId> affected = new HashSet<>();
+		for (MonthlyUsage usage : accumulator.toMonthlyUsage()) {
+			monthlyUsageRepository.addUsage(usage.getMsisdn(), usage.getMonth(),
+					usage.getIncomingSeconds(), usage.getOutgoingSeconds());
+			affected.add(new MonthlyUsageId(usage.getMsisdn(), usage.getMonth()));
+		}
+		eventPublisher.publishEvent(new CallDataRecordsSavedEvent(affected));
+	}
+
+	@Override
+	public void detach(CallDataRecord record) {
+		entityManager.detach(record);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void createArchiveTable(String tableName) {
+		entityManager.createNativeQuery("CREATE TABLE IF NOT EXISTS " + tableName
+						+ " AS SELECT " + ARCHIVE_COLUMNS + " FROM cdr WITH NO DATA")
+				.executeUpdate();
+		entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS " + tableName + "_phone_one_start_time ON "
+				+ tableName + " (phone_one, start_time)").executeUpdate();
+		entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS " + tableName + "_phone_two_start_time ON "
+				+ tableName + " (phone_two, start_time)").executeUpdate();
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void dropArchiveTable(String tableName) {
+		entityManager.createNativeQuery("DROP TABLE IF EXISTS " + tableName).executeUpdate();
+	}
+
+	@Override
+	@Transactional
+	public int moveMonthToArchive(YearMonth month, String tableName) {
+		long from = CallDataRecord.toEpochSecond(month.atDay(1).atStartOfDay());
+		long to = CallDataRecord.toEpochSecond(month.plusMonths(1).atDay(1).atStartOfDay());
+		int moved = entityManager.createNativeQuery("INSERT INTO " + tableName + " (" + ARCHIVE_COLUMNS + ")"
+						+ " SELECT " + ARCHIVE_COLUMNS + " FROM cdr WHERE start_time >= :from AND start_time < :to")
+				.setParameter("from", from)
+				.setParameter("to", to)
+				.executeUpdate();
+		entityManager.createNativeQuery("DELETE FROM cdr WHERE start_time >= :from AND start_time < :to")
+				.setParameter("from", from)
+				.setParameter("to", to)
+				.executeUpdate();
+		return moved;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Stream<CallDataRecord> streamByMsisdnNumberAndStartRangeWithArchives(long msisdn, long start, long end,
+																				 List<String> archiveTables) {
+		StringBuilder sql = new StringBuilder();
+		List<String> tables = new ArrayList<>(archiveTables.size() + 1);
+		tables.add("cdr");
+		tables.addAll(archiveTables);
+		for (String table : tables) {
+			if (sql.length() > 0) {
+				sql.append(" UNION ALL ");
+			}
+			sql.append("SELECT ").append(ARCHIVE_COLUMNS).append(" FROM ").append(table)
+					.append(" WHERE phone_one = :msisdn AND start_time BETWEEN :start AND :end")
+					.append(" UNION ALL SELECT ").append(ARCHIVE_COLUMNS).append(" FROM ").append(table)
+					.append(" WHERE phone_two = :msisdn AND phone_one <> :msisdn AND start_time BETWEEN :start AND :end");
+		}
+		sql.append(" ORDER BY start_time");
+		return entityManager.createNativeQuery(sql.toString(), CallDataRecord.class)
+				.setParameter("msisdn", msisdn)
+				.setParameter("start", start)
+				.setParameter("end", end)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+	}
+}
@@ -1,60 +1,201 @@
 package my.project.repositories;
 
+import jakarta.persistence.QueryHint;
 import my.project.entity.CallDataRecord;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с записями данных вызовов CDR (Call Data Records).
- * Этот интерфейс расширяет JpaRepository и предоставляет методы для выполнения запросов к базе данных.
+ * Этот интерфейс расширяет JpaRepository и предоставляет методы для выполнения запросов к базе данных,
+ * а также пакетную запись через {@link CallDataRecordBulkRepository}.
  */
 @Repository
-public interface CallDataRecordRepository extends JpaRepository<CallDataRecord, Long> {
+public interface CallDataRecordRepository extends JpaRepository<CallDataRecord, Long>, CallDataRecordBulkRepository {
 
 	/**
 	 * Находит записи данных вызовов по номеру абонента (MSISDN) и диапазону дат.
+	 * <p>
+	 * Номер и время преобразуются в хранимое представление (см. {@link CallDataRecord}),
+	 * после чего выполняется {@link #findByMsisdnNumberAndStartRange}.
+	 * </p>
 	 *
 	 * @param msisdn номер абонента, по которому выполняется поиск
 	 * @param start  начальная дата и время диапазона
 	 * @param end    конечная дата и время диапазона
-	 * @return список записей данных вызовов, соответствующих указанному номеру и диапазону дат
+	 * @return список записей данных вызовов, соответствующих указанному номеру и диапазону дат, упорядоченный по времени начала
 	 */
-	@Query("SELECT c FROM CallDataRecord c WHERE c.startTime BETWEEN :start AND :end AND (c.phoneOne = :msisdn OR c.phoneTwo = :msisdn)")
-	List<CallDataRecord> findByMsisdnAndDateRange(@Param("msisdn") String msisdn,
-												  @Param("start") LocalDateTime start,
-												  @Param("end") LocalDateTime end);
+	default List<CallDataRecord> findByMsisdnAndDateRange(String msisdn, LocalDateTime start, LocalDateTime end) {
+		return findByMsisdnNumberAndStartRange(CallDataRecord.toMsisdnNumber(msisdn),
+				CallDataRecord.toEpochSecond(start), CallDataRecord.toEpochSecond(end));
+	}
+
+	/**
+	 * Находит записи данных вызовов по номеру абонента в виде числа и диапазону времени начала в секундах.
+	 * <p>
+	 * Условие по номеру разбито на две ветви UNION ALL, чтобы каждая из них использовала
+	 * свой индекс (phone_one, start_time) и (phone_two, start_time) вместо полного сканирования таблицы.
+	 * </p>
+	 *
+	 * @param msisdn номер абонента в виде числа
+	 * @param start  начало диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @param end    конец диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @return список записей данных вызовов, упорядоченный по времени начала
+	 */
+	@Query(value = """
+			SELECT * FROM cdr WHERE phone_one = :msisdn AND start_time BETWEEN :start AND :end
+			UNION ALL
+			SELECT * FROM cdr WHERE phone_two = :msisdn AND phone_one <> :msisdn AND start_time BETWEEN :start AND :end
+			ORDER BY start_time""", nativeQuery = true)
+	List<CallDataRecord> findByMsisdnNumberAndStartRange(@Param("msisdn") long msisdn,
+														 @Param("start") long start,
+														 @Param("end") long end);
+
+	/**
+	 * Возвращает записи данных вызовов по номеру абонента (MSISDN) и диапазону дат в виде потока,
+	 * читаемого через курсор JDBC.
+	 * <p>
+	 * Выполняет тот же запрос, что и {@link #findByMsisdnAndDateRange}. Поток должен потребляться
+	 * внутри транзакции и быть закрыт после использования.
+	 * </p>
+	 *
+	 * @param msisdn номер абонента, по которому выполняется поиск
+	 * @param start  начальная дата и время диапазона
+	 * @param end    конечная дата и время диапазона
+	 * @return поток записей данных вызовов, упорядоченный по времени начала
+	 */
+	default Stream<CallDataRecord> streamByMsisdnAndDateRange(String msisdn, LocalDateTime start, LocalDateTime end) {
+		return streamByMsisdnNumberAndStartRange(CallDataRecord.toMsisdnNumber(msisdn),
+				CallDataRecord.toEpochSecond(start), CallDataRecord.toEpochSecond(end));
+	}
+
+	/**
+	 * Возвращает записи данных вызовов по номеру абонента в виде числа и диапазону времени начала в секундах
+	 * в виде потока, читаемого через курсор JDBC.
+	 *
+	 * @param msisdn номер абонента в виде числа
+	 * @param start  начало диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @param end    конец диапазона в секундах от 1970-01-01T00:00:00 (UTC)
+	 * @return поток записей данных вызовов, упорядоченный по времени начала
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query(value = """
+			SELECT * FROM cdr WHERE phone_one = :msisdn AND start_time BETWEEN :start AND :end
+			UNION ALL
+			SELECT * FROM cdr WHERE phone_two = :msisdn AND phone_one <> :msisdn AND start_time BETWEEN :start AND :end
+			ORDER BY start_time""", nativeQuery = true)
+	Stream<CallDataRecord> streamByMsisdnNumberAndStartRange(@Param("msisdn") long msisdn,
+															 @Param("start") long start,
+															 @Param("end") long end);
 
 	/**
 	 * Находит все записи данных вызовов по номеру абонента (MSISDN).
 	 *
 	 * @param msisdn номер абонента, по которому выполняется поиск
-	 * @return список записей данных вызовов, соответствующих указанному номеру
+	 * @return список записей данных вызовов, соответствующих указанному номеру, упорядоченный по времени начала
 	 */
-	@Query("SELECT c FROM CallDataRecord c WHERE c.phoneOne = :msisdn OR c.phoneTwo = :msisdn")
-	List<CallDataRecord> findByMsisdn(@Param("msisdn") String msisdn);
+	default List<CallDataRecord> findByMsisdn(String msisdn) {
+		return findByMsisdnNumber(CallDataRecord.toMsisdnNumber(msisdn));
+	}
 
 	/**
-	 * Находит все записи данных вызовов в указанном диапазоне дат.
+	 * Находит все записи данных вызовов по номеру абонента в виде числа.
+	 * <p>
+	 * Как и {@link #findByMsisdnNumberAndStartRange}, выполняется через UNION ALL по двум индексам.
+	 * </p>
 	 *
-	 * @param start начальная дата и время диапазона
-	 * @param end   конечная дата и время диапазона
-	 * @return список всех записей данных вызовов, соответствующих указанному диапазону дат
+	 * @param msisdn номер абонента в виде числа
+	 * @return список записей данных вызовов, упорядоченный по времени начала
 	 */
-	@Query("SELECT c FROM CallDataRecord c WHERE c.startTime BETWEEN :start AND :end")
-	List<CallDataRecord> findAllByDateRange(@Param("start") LocalDateTime start,
-											@Param("end") LocalDateTime end);
+	@Query(value = """
+			SELECT * FROM cdr WHERE phone_one = :msisdn
+			UNION ALL
+			SELECT * FROM cdr WHERE phone_two = :msisdn AND phone_one <> :msisdn
+			ORDER BY start_time""", nativeQuery = true)
+	List<CallDataRecord> findByMsisdnNumber(@Param("msisdn") long msisdn);
 
 	/**
-	 * Находит последнюю запись данных вызовов по времени окончания вызова
+	 * Находит время окончания последнего по времени начала вызова. Из вызовов, начавшихся
+	 * одновременно, выбирается самый длинный. Оба подзапроса используют индекс по start_time.
 	 *
-	 * @return последняя запись данных вызовов, если такая существует, иначе {@link Optional#empty()}
+	 * @return время окончания в секундах от 1970-01-01T00:00:00 (UTC), если записи существуют,
+	 * иначе {@link Optional#empty()}
 	 */
-	Optional<CallDataRecord> findFirstByOrderByEndTimeDesc();
-}
+	@Query(value = """
+			SELECT MAX(start_time + duration) FROM cdr
+			WHERE start_time = (SELECT MAX(start_time) FROM cdr)""", nativeQuery = true)
+	Optional<Long> findLastCallEndEpochSecond();
+
+	/**
+	 * Находит страницу записей данных вызовов, идентификатор которых больше указанного (keyset-пагинация).
+	 *
+	 * @param afterId идентификатор последней записи предыдущей страницы
+	 * @param limit   максимальное количество записей на странице
+	 * @return список записей данных вызовов, упорядоченный по идентификатору
+	 */
+	@Query("SELECT c FROM CallDataRecord c WHERE c.id > :afterId ORDER BY c.id")
+	List<CallDataRecord> findAllAfterId(@Param("afterId") long afterId, Limit limit);
+
+	/**
+	 * Возвращает все записи данных вызовов в виде потока, читаемого через курсор JDBC.
+	 * <p>
+	 * Поток должен потребляться внутри транзакции и быть закрыт после использования.
+	 * </p>
+	 *
+	 * @return поток записей данных вызовов, упорядоченный по идентификатору
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT c FROM CallDataRecord c ORDER BY c.id")
+	Stream<CallDataRecord> streamAll();
+
+	/**
+	 * Возвращает записи данных вызовов с идентификаторами в диапазоне {@code (afterId, toId]}
+	 * в виде потока, читаемого через курсор JDBC.
+	 * <p>
+	 * Используется для независимого чтения частей таблицы в параллельных транзакциях.
+	 * Поток должен потребляться внутри транзакции и быть закрыт после использования.
+	 * </p>
+	 *
+	 * @param afterId идентификатор, после которого начинается диапазон
+	 * @param toId    последний идентификатор диапазона
+	 * @return поток записей данных вызовов
+	 */
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT c FROM CallDataRecord c WHERE c.id > :afterId AND c.id <= :toId")
+	Stream<CallDataRecord> streamByIdRange(@Param("afterId") long afterId, @Param("toId") long toId);
+
+	/**
+	 * Находит наименьший идентификатор записи данных вызовов.
+	 *
+	 * @return наименьший идентификатор или {@code null}, если записей нет
+	 */
+	@Query("SELECT MIN(c.id) FROM CallDataRecord c")
+	Long findMinId();
 
+	/**
+	 * Находит наибольший идентификатор записи данных вызовов.
+	 *
+	 * @return наибольший идентификатор или {@code null}, если записей нет
+	 */
+	@Query("SELECT MAX(c.id) FROM CallDataRecord c")
+	Long findMaxId();
+}
@@ -0,0 +1,186 @@
+package my.project.repositories;
+
+import my.project.entity.CallDataRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Приведение существующей таблицы cdr к схеме сущности {@link CallDataRecord}.
+ * <p>
+ * Схема обновляется Hibernate ({@code spring.jpa.hibernate.ddl-auto=update}), который создает недостающие
+ * таблицы, столбцы и последовательности, но не изменяет существующие. Поэтому изменения, которые Hibernate
+ * не выполняет, выполняются здесь - до создания фабрики EntityManager, то есть до обновления схемы Hibernate
+ * и до первой записи. В новой базе данных таблицы cdr еще нет, и миграция ничего не делает.
+ * </p>
+ * <p>
+ * Таблица первой версии схемы (текстовые номера и время в TIMESTAMP) переносится в числовое представление,
+ * вычисляемый столбец end_time удаляется.
+ * </p>
+ * <p>
+ * Идентификаторы записей выделяются из последовательности cdr_seq блоками по {@value CallDataRecord#ID_ALLOCATION_SIZE}.
+ * В таблице, заполненной до перехода на последовательность (идентификаторы IDENTITY), последовательность
+ * создается или перезапускается так, чтобы выделяемые идентификаторы были больше максимального существующего.
+ * </p>
+ */
+@Component
+public class CallDataRecordSchemaMigration implements InitializingBean {
+
+	private static final Logger log = LoggerFactory.getLogger(CallDataRecordSchemaMigration.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Конструктор миграции.
+	 *
+	 * @param jdbcTemplate шаблон JDBC для выполнения запросов миграции
+	 */
+	public CallDataRecordSchemaMigration(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		migrate();
+	}
+
+	/**
+	 * Выполняет миграцию таблицы cdr, если она существует.
+	 */
+	public void migrate() {
+		if (!tableExists("CDR")) {
+			return;
+		}
+		migrateTextLayout();
+		dropEndTimeColumn();
+		initializeIdSequence();
+	}
+
+	/**
+	 * Переносит записи из таблицы первой версии схемы (номера и тип вызова в текстовых столбцах,
+	 * время начала и окончания в столбцах TIMESTAMP) в таблицу текущей схемы.
+	 * <p>
+	 * Записи копируются в новую таблицу cdr_migrated, после чего она заменяет таблицу cdr. Записи,
+	 * которые не могут быть сохранены в текущей схеме (номер не из 11 цифр, неизвестный тип вызова,
+	 * время окончания раньше времени начала), не переносятся: в этом случае исходная таблица
+	 * сохраняется под именем cdr_legacy, иначе удаляется. Если миграция была прервана,
+	 * при следующем запуске она выполняется заново.
+	 * </p>
+	 */
+	private void migrateTextLayout() {
+		if (!"CHARACTER VARYING".equals(columnType("CDR", "PHONE_ONE"))) {
+			return;
+		}
+		jdbcTemplate.execute("DROP TABLE IF EXISTS cdr_migrated");
+		jdbcTemplate.execute("""
+				CREATE TABLE cdr_migrated (
+					id BIGINT NOT NULL PRIMARY KEY,
+					call_type TINYINT,
+					phone_one BIGINT NOT NULL,
+					phone_two BIGINT NOT NULL,
+					start_time BIGINT NOT NULL,
+					duration INTEGER NOT NULL)""");
+		int migrated = jdbcTemplate.update("""
+				INSERT INTO cdr_migrated (id, call_type, phone_one, phone_two, start_time, duration)
+				SELECT id,
+					CASE call_type WHEN '01' THEN 1 WHEN '02' THEN 2 END,
+					CAST(phone_one AS BIGINT),
+					CAST(phone_two AS BIGINT),
+					DATEDIFF(SECOND, TIMESTAMP '1970-01-01 00:00:00', start_time),
+					DATEDIFF(SECOND, start_time, end_time)
+				FROM cdr
+				WHERE call_type IN ('01', '02')
+					AND REGEXP_LIKE(phone_one, '^[0-9]{11}$')
+					AND REGEXP_LIKE(phone_two, '^[0-9]{11}$')
+					AND start_time IS NOT NULL
+					AND end_time >= start_time""");
+		Integer total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cdr", Integer.class);
+		int skipped = total == null ? 0 : total - migrated;
+
+		for (String index : jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'CDR' AND INDEX_TYPE_NAME <> 'PRIMARY KEY'",
+				String.class)) {
+			jdbcTemplate.execute("DROP INDEX \"" + index + "\"");
+		}
+		if (skipped > 0) {
+			jdbcTemplate.execute("ALTER TABLE cdr RENAME TO cdr_legacy");
+			log.warn("Migrated {} call data records to the numeric layout, {} invalid records left in cdr_legacy",
+					migrated, skipped);
+		} else {
+			jdbcTemplate.execute("DROP TABLE cdr");
+			log.info("Migrated {} call data records to the numeric layout", migrated);
+		}
+		jdbcTemplate.execute("ALTER TABLE cdr_migrated RENAME TO cdr");
+	}
+
+	/**
+	 * Удаляет вычисляемый столбец end_time и его индекс, созданные предыдущей версией схемы.
+	 * Время окончания вызова не хранится: оно вычисляется как start_time + duration.
+	 */
+	private void dropEndTimeColumn() {
+		if (!"BIGINT".equals(columnType("CDR", "END_TIME"))) {
+			return;
+		}
+		jdbcTemplate.execute("DROP INDEX IF EXISTS idx_cdr_end_time");
+		jdbcTemplate.execute("ALTER TABLE cdr DROP COLUMN end_time");
+		log.info("Dropped computed column cdr.end_time");
+	}
+
+	/**
+	 * Создает или перезапускает последовательность cdr_seq так, чтобы следующий выделенный блок
+	 * начинался после максимального идентификатора таблицы cdr.
+	 * <p>
+	 * Hibernate выделяет блок идентификаторов {@code (значение - размер блока, значение]} по очередному
+	 * значению последовательности, поэтому следующее значение должно быть не меньше
+	 * {@code MAX(id) + размер блока}.
+	 * </p>
+	 */
+	private void initializeIdSequence() {
+		Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cdr", Long.class);
+		if (maxId == null) {
+			return;
+		}
+		long start = maxId + CallDataRecord.ID_ALLOCATION_SIZE;
+		List<Long> next = jdbcTemplate.queryForList("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+				+ "WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = 'CDR_SEQ'", Long.class);
+		if (next.isEmpty()) {
+			jdbcTemplate.execute("CREATE SEQUENCE cdr_seq START WITH " + start
+					+ " INCREMENT BY " + CallDataRecord.ID_ALLOCATION_SIZE);
+			log.info("Created sequence cdr_seq starting with {} after existing ids", start);
+		} else if (next.get(0) < start) {
+			jdbcTemplate.execute("ALTER SEQUENCE cdr_seq RESTART WITH " + start);
+			log.info("Restarted sequence cdr_seq with {} after existing ids", start);
+		}
+	}
+
+	private String columnType(String table, String column) {
+		List<String> types = jdbcTemplate.queryForList("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? AND COLUMN_NAME = ?", String.class, table, column);
+		return types.isEmpty() ? null : types.get(0);
+	}
+
+		private boolean tableExists(String table) {
+		Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+				+ "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ?", Integer.class, table);
+		return count != null && count > 0;
+	}
+
+	/**
+	 * Создает фабрику EntityManager только после выполнения миграции.
+	 */
+	@Component
+	public static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+		/**
+		 * Конструктор зависимости фабрики EntityManager от миграции.
+		 */
+		public EntityManagerFactoryDependency() {
+			super(CallDataRecordSchemaMigration.class);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package my.project.repositories;
+
+import jakarta.persistence.QueryHint;
+import my.project.entity.MonthlyUsage;
+import my.project.entity.MonthlyUsageId;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий для работы с месячными агрегатами использования связи (таблица udr_monthly).
+ * Этот интерфейс расширяет JpaRepository и предоставляет методы для чтения агрегатов,
+ * их инкрементального обновления и полного пересчета из таблицы cdr.
+ */
+@Repository
+public interface MonthlyUsageRepository extends JpaRepository<MonthlyUsage, MonthlyUsageId> {
+
+	/**
+	 * Находит агрегаты всех абонентов за указанный месяц.
+	 *
+	 * @param month месяц в формате "yyyy-MM"
+	 * @return список агрегатов за месяц, упорядоченный по номеру абонента
+	 */
+	List<MonthlyUsage> findAllByMonthOrderByMsisdn(String month);
+
+	/**
+	 * Находит агрегаты абонента за все месяцы.
+	 *
+	 * @param msisdn номер абонента
+	 * @return список агрегатов абонента
+	 */
+	List<MonthlyUsage> findAllByMsisdn(String msisdn);
+
+	/**
+	 * Находит агрегаты указанных абонентов за все месяцы одним запросом.
+	 * Агрегаты возвращаются копиями, не связанными с контекстом персистентности.
+	 *
+	 * @param msisdns номера абонентов
+	 * @return список агрегатов, упорядоченный по номеру абонента
+	 */
+	@Query("SELECT new my.project.entity.MonthlyUsage(u.msisdn, u.month, u.incomingSeconds, u.outgoingSeconds) "
+			+ "FROM MonthlyUsage u WHERE u.msisdn IN :msisdns ORDER BY u.msisdn")
+	List<MonthlyUsage> findUsagesByMsisdnIn(@Param("msisdns") Collection<String> msisdns);
+
+	/**
+	 * Находит агрегаты указанных абонентов за месяц одним запросом.
+	 * Агрегаты возвращаются копиями, не связанными с контекстом персистентности.
+	 *
+	 * @param month   месяц в формате "yyyy-MM"
+	 * @param msisdns номера абонентов
+	 * @return список агрегатов, упорядоченный по номеру абонента
+	 */
+	@Query("SELECT new my.project.entity.MonthlyUsage(u.msisdn, u.month, u.incomingSeconds, u.outgoingSeconds) "
+			+ "FROM MonthlyUsage u WHERE u.month = :month AND u.msisdn IN :msisdns ORDER BY u.msisdn")
+	List<MonthlyUsage> findUsagesByMonthAndMsisdnIn(@Param("month") String month,
+													@Param("msisdns") Collection<String> msisdns);
+
+	/**
+	 * Возвращает пары (абонент, месяц) всех агрегатов в виде потока, читаемого через курсор JDBC.
+	 * <p>
+	 * Поток должен потребляться внутри транзакции и быть закрыт после использования.
+	 * </p>
+	 *
+	 * @return поток идентификаторов агрегатов
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT new my.project.entity.MonthlyUsageId(u.msisdn, u.month) FROM MonthlyUsage u")
+	Stream<MonthlyUsageId> streamAllIds();
+
+	/**
+	 * Прибавляет длительность вызовов к агрегату абонента за месяц, создавая агрегат при его отсутствии.
+	 *
+	 * @param msisdn          номер абонента
+	 * @param month           месяц в формате "yyyy-MM"
+	 * @param incomingSeconds длительность входящих вызовов в секундах
+	 * @param outgoingSeconds длительность исходящих вызовов в секундах
+	 */
+	@Modifying
+	@Query(value = """
+			MERGE INTO udr_monthly u
+			USING (VALUES (CAST(:msisdn AS VARCHAR(255)), CAST(:month AS VARCHAR(7)),
+					CAST(:incoming AS BIGINT), CAST(:outgoing AS BIGINT)))
+				AS v(msisdn, billing_month, incoming_seconds, outgoing_seconds)
+			ON u.msisdn = v.msisdn AND u.billing_month = v.billing_month
+			WHEN MATCHED THEN UPDATE SET
+				incoming_seconds = u.incoming_seconds + v.incoming_seconds,
+				outgoing_seconds = u.outgoing_seconds + v.outgoing_seconds
+			WHEN NOT MATCHED THEN INSERT (msisdn, billing_month, incoming_seconds, outgoing_seconds)
+				VALUES (v.msisdn, v.billing_month, v.incoming_seconds, v.outgoing_seconds)""", nativeQuery = true)
+	void addUsage(@Param("msisdn") String msisdn,
+				  @Param("month") String month,
+				  @Param("incoming") long incomingSeconds,
+				  @Param("outgoing") long outgoingSeconds);
+
+	/**
+	 * Удаляет агрегаты всех месяцев, кроме архивных (таблица cdr_archived_month).
+	 * Агрегаты архивных месяцев не могут быть пересчитаны из таблицы cdr и сохраняются.
+	 */
+	@Modifying
+	@Query(value = "DELETE FROM udr_monthly WHERE billing_month NOT IN (SELECT billing_month FROM cdr_archived_month)",
+			nativeQuery = true)
+	void deleteAllExceptArchivedMonths();
+
+	/**
+	 * Заполняет таблицу агрегатов по всем записям таблицы cdr, кроме записей архивных месяцев.
+	 * <p>
+	 * Каждая запись учитывается дважды через UNION ALL: для phone_one и для phone_two.
+	 * Для типа "01" (call_type = 1) phone_one - исходящая сторона, phone_two - входящая;
+	 * для типа "02" (call_type = 2) - наоборот. Номера дополняются ведущими нулями до 11 цифр.
+	 * Вызов относится к месяцу времени начала. Перед вызовом агрегаты неархивных месяцев
+	 * должны быть удалены ({@link #deleteAllExceptArchivedMonths()}).
+	 * </p>
+	 *
+	 * @return количество созданных агрегатов
+	 */
+	@Modifying
+	@Query(value = """
+			INSERT INTO udr_monthly (msisdn, billing_month, incoming_seconds, outgoing_seconds)
+			SELECT msisdn, billing_month, SUM(incoming), SUM(outgoing) FROM (
+				SELECT LPAD(CAST(phone_one AS VARCHAR), 11, '0') AS msisdn,
+					FORMATDATETIME(DATEADD(SECOND, start_time, TIMESTAMP '1970-01-01 00:00:00'), 'yyyy-MM') AS billing_month,
+					CASE WHEN call_type = 2 THEN duration ELSE 0 END AS incoming,
+					CASE WHEN call_type = 1 THEN duration ELSE 0 END AS outgoing
+				FROM cdr
+				UNION ALL
+				SELECT LPAD(CAST(phone_two AS VARCHAR), 11, '0') AS msisdn,
+					FORMATDATETIME(DATEADD(SECOND, start_time, TIMESTAMP '1970-01-01 00:00:00'), 'yyyy-MM') AS billing_month,
+					CASE WHEN call_type = 1 THEN duration ELSE 0 END AS incoming,
+					CASE WHEN call_type = 2 THEN duration ELSE 0 END AS outgoing
+				FROM cdr
+			) sides
+			WHERE billing_month NOT IN (SELECT billing_month FROM cdr_archived_month)
+			GROUP BY msisdn, billing_month""", nativeQuery = true)
+	int rebuildFromCallDataRecords();
+}
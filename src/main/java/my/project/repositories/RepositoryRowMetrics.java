@@ -0,0 +1,116 @@
+package my.project.repositories;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Учитывает количество строк, возвращаемых методами репозиториев.
+ * <p>
+ * Каждый репозиторий Spring Data получает перехватчик, который записывает размер результата в метрику
+ * {@value #ROWS_METRIC} с тегами {@code repository} и {@code method}: размер коллекции или страницы,
+ * 0 или 1 для {@link Optional} и одиночной сущности, количество измененных строк для модифицирующих запросов.
+ * Для {@link Stream} количество строк записывается при закрытии потока.
+ * Длительность вызовов учитывается Spring Boot в метрике {@code spring.data.repository.invocations}.
+ * </p>
+ */
+@Component
+public class RepositoryRowMetrics implements BeanPostProcessor {
+
+	private static final String ROWS_METRIC = "cdr.repository.rows";
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	/**
+	 * Конструктор.
+	 *
+	 * @param meterRegistry реестр метрик; получается при первом вызове репозитория,
+	 *                      чтобы не создавать его раньше остальных компонентов
+	 */
+	public RepositoryRowMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+			factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+					(proxyFactory, information) -> proxyFactory.addAdvice(
+							new RowCountInterceptor(information.getRepositoryInterface().getSimpleName()))));
+		}
+		return bean;
+	}
+
+	/**
+	 * Перехватчик вызовов одного репозитория.
+	 */
+	private class RowCountInterceptor implements MethodInterceptor {
+
+		private final String repository;
+
+		RowCountInterceptor(String repository) {
+			this.repository = repository;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			Object result = invocation.proceed();
+			String method = invocation.getMethod().getName();
+			if (result instanceof Stream<?> stream) {
+				long[] rows = new long[1];
+				return stream.peek(row -> rows[0]++).onClose(() -> record(method, rows[0]));
+			}
+			long rows = rows(result, invocation.getMethod().getReturnType());
+			if (rows >= 0) {
+				record(method, rows);
+			}
+			return result;
+		}
+
+		/**
+		 * Определяет количество строк в результате вызова.
+		 *
+		 * @param result     результат вызова
+		 * @param returnType объявленный тип результата
+		 * @return количество строк или -1, если результат не является набором строк
+		 */
+		private long rows(Object result, Class<?> returnType) {
+			if (result instanceof Collection<?> collection) {
+				return collection.size();
+			}
+			if (result instanceof Slice<?> slice) {
+				return slice.getNumberOfElements();
+			}
+			if (result instanceof Optional<?> optional) {
+				return optional.isPresent() ? 1 : 0;
+			}
+			if (result instanceof Number number && (returnType == int.class || returnType == Integer.class)) {
+				return number.intValue();
+			}
+			if (returnType == void.class || returnType == boolean.class || returnType == Boolean.class
+					|| returnType == long.class || returnType == Long.class) {
+				return -1;
+			}
+			return result == null ? 0 : 1;
+		}
+
+		private void record(String method, long rows) {
+			DistributionSummary.builder(ROWS_METRIC)
+					.description("Количество строк, возвращенных или измененных методом репозитория")
+					.tag("repository", repository)
+					.tag("method", method)
+					.register(meterRegistry.getObject())
+					.record(rows);
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package my.project.repositories;
+
+import my.project.entity.SpoolCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Репозиторий для работы с контрольными точками загрузки файлов из каталога приема CDR (таблица spool_checkpoint).
+ */
+@Repository
+public interface SpoolCheckpointRepository extends JpaRepository<SpoolCheckpoint, String> {
+
+}
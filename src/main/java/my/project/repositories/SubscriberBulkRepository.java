@@ -0,0 +1,25 @@
+package my.project.repositories;
+
+import my.project.entity.Subscriber;
+
+import java.util.List;
+
+/**
+ * Фрагмент репозитория для пакетной записи абонентов.
+ * Подключается к {@link SubscriberRepository} и позволяет сохранять сотни тысяч абонентов,
+ * не накапливая сущности в контексте персистентности.
+ */
+public interface SubscriberBulkRepository {
+
+	/**
+	 * Сохраняет абонентов пакетами.
+	 * <p>
+	 * После каждого пакета размером {@code hibernate.jdbc.batch_size} контекст персистентности
+	 * сбрасывается в базу данных и очищается. После сохранения публикуется событие
+	 * {@link my.project.util.SubscribersSavedEvent}.
+	 * </p>
+	 *
+	 * @param subscribers абоненты для сохранения
+	 */
+	void saveAllInBatch(List<Subscriber> subscribers);
+}
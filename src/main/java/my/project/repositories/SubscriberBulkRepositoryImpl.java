@@ -0,0 +1,50 @@
+package my.project.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import my.project.entity.Subscriber;
+import my.project.util.SubscribersSavedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Реализация {@link SubscriberBulkRepository} на основе {@link EntityManager}.
+ */
+public class SubscriberBulkRepositoryImpl implements SubscriberBulkRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+
+	/**
+	 * Конструктор фрагмента репозитория.
+	 *
+	 * @param eventPublisher публикатор события {@link SubscribersSavedEvent}
+	 * @param batchSize      размер пакета JDBC, после которого контекст персистентности сбрасывается и очищается
+	 */
+	public SubscriberBulkRepositoryImpl(ApplicationEventPublisher eventPublisher,
+										@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+		this.eventPublisher = eventPublisher;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	@Transactional
+	public void saveAllInBatch(List<Subscriber> subscribers) {
+		for (int i = 0; i < subscribers.size(); i++) {
+			entityManager.persist(subscribers.get(i));
+			if ((i + 1) % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		eventPublisher.publishEvent(new SubscribersSavedEvent(subscribers.size()));
+	}
+}
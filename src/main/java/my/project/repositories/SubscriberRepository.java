@@ -1,16 +1,35 @@
 package my.project.repositories;
 
 import my.project.entity.Subscriber;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Репозиторий для работы с абонентами (Subscriber).
  * Этот интерфейс расширяет JpaRepository и предоставляет методы для выполнения CRUD операций
  * с сущностью Subscriber в базе данных.
  */
 @Repository
-public interface SubscriberRepository extends JpaRepository<Subscriber, Long> {
+public interface SubscriberRepository extends JpaRepository<Subscriber, Long>, SubscriberBulkRepository {
 
-}
+	/**
+	 * Получает номера абонентов в порядке их добавления.
+	 *
+	 * @param limit максимальное количество номеров
+	 * @return список номеров абонентов
+	 */
+	@Query("SELECT s.msisdn FROM Subscriber s ORDER BY s.id")
+	List<String> findMsisdns(Limit limit);
 
+	/**
+	 * Получает номера всех абонентов.
+	 *
+	 * @return список номеров абонентов
+	 */
+	@Query("SELECT s.msisdn FROM Subscriber s")
+	List<String> findAllMsisdns();
+}
@@ -0,0 +1,92 @@
+package my.project.services;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Параметры генерации записей вызовов по умолчанию (свойства с префиксом {@code cdr.generator}).
+ * <p>
+ * Используются при генерации при запуске приложения и в запросах, в которых параметры не указаны.
+ * </p>
+ */
+@Component
+@ConfigurationProperties(prefix = "cdr.generator")
+public class CallDataRecordGeneratorProperties {
+
+	private int subscribers = 21;
+	private int minCallsPerDay = 1;
+	private int maxCallsPerDay = 20;
+	private int months = 12;
+
+	/**
+	 * Получает количество абонентов, между которыми генерируются вызовы.
+	 *
+	 * @return количество абонентов
+	 */
+	public int getSubscribers() {
+		return subscribers;
+	}
+
+	/**
+	 * Устанавливает количество абонентов, между которыми генерируются вызовы.
+	 *
+	 * @param subscribers количество абонентов
+	 */
+	public void setSubscribers(int subscribers) {
+		this.subscribers = subscribers;
+	}
+
+	/**
+	 * Получает минимальное количество вызовов в день.
+	 *
+	 * @return минимальное количество вызовов
+	 */
+	public int getMinCallsPerDay() {
+		return minCallsPerDay;
+	}
+
+	/**
+	 * Устанавливает минимальное количество вызовов в день.
+	 *
+	 * @param minCallsPerDay минимальное количество вызовов
+	 */
+	public void setMinCallsPerDay(int minCallsPerDay) {
+		this.minCallsPerDay = minCallsPerDay;
+	}
+
+	/**
+	 * Получает максимальное количество вызовов в день.
+	 *
+	 * @return максимальное количество вызовов
+	 */
+	public int getMaxCallsPerDay() {
+		return maxCallsPerDay;
+	}
+
+	/**
+	 * Устанавливает максимальное количество вызовов в день.
+	 *
+	 * @param maxCallsPerDay максимальное количество вызовов
+	 */
+	public void setMaxCallsPerDay(int maxCallsPerDay) {
+		this.maxCallsPerDay = maxCallsPerDay;
+	}
+
+	/**
+	 * Получает количество генерируемых месяцев.
+	 *
+	 * @return количество месяцев
+	 */
+	public int getMonths() {
+		return months;
+	}
+
+	/**
+	 * Устанавливает количество генерируемых месяцев.
+	 *
+	 * @param months количество месяцев
+	 */
+	public void setMonths(int months) {
+		this.months = months;
+	}
+}
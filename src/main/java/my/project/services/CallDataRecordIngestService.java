@@ -0,0 +1,145 @@
+package my.project.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import my.project.dto.IngestReportDTO;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.util.CallDataRecordValidator;
+import my.project.util.CsvRowParser;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис для загрузки записей вызовов из файлов коммутаторов.
+ * <p>
+ * Поддерживаются CSV в формате {@code callType,phoneOne,phoneTwo,start,end} (как в CDR отчете)
+ * и NDJSON (как в потоковой выгрузке {@code /cdr/all/stream}). Данные разбираются построчно по мере чтения,
+ * корректные записи сохраняются пакетами по {@value #BATCH_SIZE} в отдельных транзакциях,
+ * некорректные строки пропускаются и попадают в отчет о загрузке.
+ * </p>
+ */
+@Service
+public class CallDataRecordIngestService {
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int MAX_REPORTED_FAILURES = 1000;
+
+	private final CallDataRecordRepository callDataRecordRepository;
+	private final SubscriberDirectory subscriberDirectory;
+	private final ObjectReader jsonReader;
+
+	/**
+	 * Конструктор сервиса.
+	 *
+	 * @param callDataRecordRepository репозиторий для работы с записями вызовов
+	 * @param subscriberDirectory      справочник абонентов для проверки номеров записей
+	 * @param objectMapper             десериализатор JSON для строк NDJSON
+	 */
+	public CallDataRecordIngestService(CallDataRecordRepository callDataRecordRepository,
+									   SubscriberDirectory subscriberDirectory,
+									   ObjectMapper objectMapper) {
+		this.callDataRecordRepository = callDataRecordRepository;
+		this.subscriberDirectory = subscriberDirectory;
+		this.jsonReader = objectMapper.readerFor(CallDataRecord.class);
+	}
+
+	/**
+	 * Загружает записи вызовов из потока.
+	 * <p>
+	 * Пустые строки и строка заголовка CSV пропускаются. Строка отклоняется, если ее не удалось разобрать,
+	 * если тип вызова отличен от "01" и "02", если номер телефона не состоит из 11 цифр,
+	 * если время окончания раньше времени начала или если номер не найден в справочнике абонентов
+	 * (при {@code cdr.subscribers.reject-unknown=true}).
+	 * </p>
+	 *
+	 * @param in          поток с данными в кодировке UTF-8
+	 * @param contentType тип содержимого: {@code application/x-ndjson} или {@code application/json} для NDJSON,
+	 *                    любой другой для CSV
+	 * @return отчет о загрузке
+	 * @throws IOException если произошла ошибка чтения потока
+	 */
+	public IngestReportDTO ingest(InputStream in, MediaType contentType) throws IOException {
+		boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+				|| MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+		long startNanos = System.nanoTime();
+		long accepted = 0;
+		long rejected = 0;
+		List<Long> failedLines = new ArrayList<>();
+		List<CallDataRecord> batch = new ArrayList<>(BATCH_SIZE);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		long lineNumber = 0;
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			lineNumber++;
+			if (line.isBlank() || (lineNumber == 1 && !ndjson && line.startsWith("callType"))) {
+				continue;
+			}
+			CallDataRecord record = ndjson ? parseJson(line) : parseCsv(line);
+			if (record == null || !CallDataRecordValidator.isValid(record) || !subscriberDirectory.accepts(record)) {
+				rejected++;
+				if (failedLines.size() < MAX_REPORTED_FAILURES) {
+					failedLines.add(lineNumber);
+				}
+				continue;
+			}
+			batch.add(record);
+			if (batch.size() == BATCH_SIZE) {
+				callDataRecordRepository.saveAllInBatch(batch);
+				accepted += batch.size();
+				batch = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+		if (!batch.isEmpty()) {
+			callDataRecordRepository.saveAllInBatch(batch);
+			accepted += batch.size();
+		}
+
+		long elapsedNanos = System.nanoTime() - startNanos;
+		double rowsPerSecond = elapsedNanos == 0 ? 0 : (accepted + rejected) / (elapsedNanos / 1_000_000_000.0);
+		return new IngestReportDTO(accepted, rejected, elapsedNanos / 1_000_000, rowsPerSecond, failedLines);
+	}
+
+	/**
+	 * Разбирает строку CSV.
+	 *
+	 * @param line строка CSV
+	 * @return запись данных вызова или {@code null}, если строка не соответствует формату
+	 */
+	private static CallDataRecord parseCsv(String line) {
+		try {
+			return CsvRowParser.parse(line);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Разбирает строку NDJSON. Идентификатор записи, если он указан, игнорируется.
+	 *
+	 * @param line строка с JSON объектом
+	 * @return запись данных вызова или {@code null}, если строка не соответствует формату
+	 *         или содержит JSON значение {@code null}
+	 */
+	private CallDataRecord parseJson(String line) {
+		CallDataRecord record;
+		try {
+			record = jsonReader.readValue(line);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+		if (record == null) {
+			return null;
+		}
+		record.setId(null);
+		return record;
+	}
+}
@@ -0,0 +1,197 @@
+package my.project.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import my.project.entity.CallDataRecord;
+import my.project.entity.Subscriber;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.SubscriberRepository;
+import my.project.util.IncorrectGenerationParametersException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Сервис для параллельной генерации больших объемов записей вызовов с воспроизводимым результатом.
+ * <p>
+ * Период генерации делится на календарные месяцы, каждый месяц генерируется отдельной задачей
+ * в {@link ForkJoinPool} со своим {@link SplittableRandom}, полученным из начального значения (seed).
+ * Поэтому при одинаковых параметрах получается один и тот же набор записей независимо от
+ * количества потоков и порядка выполнения задач. Записи каждого месяца сохраняются пакетами
+ * по {@value #BATCH_SIZE} в отдельных транзакциях; так как вызов учитывается в месяце своего начала,
+ * задачи не обновляют одни и те же месячные агрегаты.
+ * </p>
+ */
+@Service
+public class CallDataRecordLoadGenerator {
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+	private final SubscriberRepository subscriberRepository;
+	private final CallDataRecordRepository callDataRecordRepository;
+	private final Counter generatedRecords;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Конструктор сервиса.
+	 *
+	 * @param subscriberRepository     репозиторий для работы с абонентами
+	 * @param callDataRecordRepository репозиторий для работы с записями вызовов
+	 * @param meterRegistry            реестр метрик, в котором учитывается количество сгенерированных записей
+	 * @param parallelism              количество потоков генерации; 0 - по количеству процессоров
+	 */
+	public CallDataRecordLoadGenerator(SubscriberRepository subscriberRepository,
+									   CallDataRecordRepository callDataRecordRepository,
+									   MeterRegistry meterRegistry,
+									   @Value("${cdr.generator.parallelism:0}") int parallelism) {
+		this.subscriberRepository = subscriberRepository;
+		this.callDataRecordRepository = callDataRecordRepository;
+		this.generatedRecords = Counter.builder("cdr.records.generated")
+				.description("Сгенерированные и сохраненные записи вызовов")
+				.tag("generator", "load")
+				.register(meterRegistry);
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Генерирует записи вызовов за указанное количество месяцев начиная с месяца даты начала.
+	 * <p>
+	 * Номера абонентов также выводятся из seed; отсутствующие в базе абоненты сохраняются.
+	 * </p>
+	 *
+	 * @param seed        начальное значение генератора случайных чисел
+	 * @param start       дата, месяц которой является первым месяцем генерации
+	 * @param months      количество месяцев
+	 * @param subscribers количество абонентов (не меньше 2)
+	 * @param callsPerDay максимальное количество вызовов в день
+	 * @return количество сгенерированных записей
+	 * @throws IncorrectGenerationParametersException если параметры вне допустимых пределов
+	 */
+	public long generate(long seed, LocalDate start, int months, int subscribers, int callsPerDay) {
+		if (months < 1 || subscribers < 2 || callsPerDay < 1) {
+			throw new IncorrectGenerationParametersException();
+		}
+		SplittableRandom root = new SplittableRandom(seed);
+		List<String> msisdns = generateMsisdns(root, subscribers);
+		saveMissingSubscribers(msisdns);
+
+		YearMonth firstMonth = YearMonth.from(start);
+		List<Callable<Long>> tasks = new ArrayList<>(months);
+		for (int i = 0; i < months; i++) {
+			YearMonth month = firstMonth.plusMonths(i);
+			SplittableRandom random = root.split();
+			tasks.add(() -> generateMonth(month, msisdns, callsPerDay, random));
+		}
+
+		long generated = 0;
+		try {
+			for (Future<Long> future : pool.invokeAll(tasks)) {
+				generated += future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		return generated;
+	}
+
+	/**
+	 * Останавливает пул генерации при завершении приложения.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Генерирует и сохраняет записи вызовов, начавшихся в указанном месяце.
+	 *
+	 * @param month       месяц
+	 * @param msisdns     номера абонентов
+	 * @param callsPerDay максимальное количество вызовов в день
+	 * @param random      генератор случайных чисел месяца
+	 * @return количество сгенерированных записей
+	 */
+	private long generateMonth(YearMonth month, List<String> msisdns, int callsPerDay, SplittableRandom random) {
+		long generated = 0;
+		List<CallDataRecord> batch = new ArrayList<>(BATCH_SIZE);
+		for (LocalDate day = month.atDay(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+			int callsToday = random.nextInt(1, callsPerDay + 1);
+			for (int i = 0; i < callsToday; i++) {
+				int caller = random.nextInt(msisdns.size());
+				int receiver = (caller + 1 + random.nextInt(msisdns.size() - 1)) % msisdns.size();
+				LocalDateTime startTime = day.atStartOfDay().plusSeconds(random.nextInt(SECONDS_PER_DAY));
+				LocalDateTime endTime = startTime.plusSeconds(random.nextInt(30, 600));
+				batch.add(new CallDataRecord(
+						random.nextBoolean() ? "01" : "02",
+						msisdns.get(caller),
+						msisdns.get(receiver),
+						startTime,
+						endTime));
+				if (batch.size() == BATCH_SIZE) {
+					callDataRecordRepository.saveAllInBatch(batch);
+					generatedRecords.increment(batch.size());
+					generated += batch.size();
+					batch = new ArrayList<>(BATCH_SIZE);
+				}
+			}
+		}
+		if (!batch.isEmpty()) {
+			callDataRecordRepository.saveAllInBatch(batch);
+			generatedRecords.increment(batch.size());
+			generated += batch.size();
+		}
+		return generated;
+	}
+
+	/**
+	 * Генерирует различные номера абонентов.
+	 *
+	 * @param random      генератор случайных чисел
+	 * @param subscribers количество номеров
+	 * @return номера абонентов в порядке генерации
+	 */
+	private static List<String> generateMsisdns(SplittableRandom random, int subscribers) {
+		Set<String> msisdns = new LinkedHashSet<>();
+		while (msisdns.size() < subscribers) {
+			msisdns.add("7" + random.nextLong(1_000_000_000L, 10_000_000_000L));
+		}
+		return new ArrayList<>(msisdns);
+	}
+
+	/**
+	 * Сохраняет абонентов, номеров которых еще нет в базе данных.
+	 *
+	 * @param msisdns номера абонентов
+	 */
+	private void saveMissingSubscribers(List<String> msisdns) {
+		Set<String> existing = new HashSet<>(subscriberRepository.findAllMsisdns());
+		List<Subscriber> missing = new ArrayList<>();
+		for (String msisdn : msisdns) {
+			if (!existing.contains(msisdn)) {
+				missing.add(new Subscriber(msisdn));
+			}
+		}
+		subscriberRepository.saveAllInBatch(missing);
+	}
+}
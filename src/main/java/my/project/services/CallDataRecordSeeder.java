@@ -0,0 +1,93 @@
+package my.project.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Наполняет базу данных записями вызовов при запуске приложения.
+ * <p>
+ * Наполнение включается свойством {@code cdr.generator.seed-on-startup} и выполняется в отдельном потоке
+ * после {@link ApplicationReadyEvent}, поэтому HTTP порт открывается сразу. Существующие записи вызовов
+ * и месячные агрегаты удаляются, после чего генерируются новые записи с параметрами {@code cdr.generator.*}.
+ * Пока наполнение не завершено, индикатор здоровья {@code seeding} (входит в группу readiness)
+ * возвращает статус OUT_OF_SERVICE.
+ * </p>
+ */
+@Component("seeding")
+public class CallDataRecordSeeder implements HealthIndicator {
+
+	private static final Logger log = LoggerFactory.getLogger(CallDataRecordSeeder.class);
+
+	/**
+	 * Состояние наполнения.
+	 */
+	private enum State {
+		DISABLED, RUNNING, DONE, FAILED
+	}
+
+	private final CallDataRecordService callDataRecordService;
+	private final UsageDataReportCache usageDataReportCache;
+	private final boolean seedOnStartup;
+	private volatile State state = State.DISABLED;
+
+	/**
+	 * Конструктор компонента.
+	 *
+	 * @param callDataRecordService сервис для работы с записями вызовов
+	 * @param usageDataReportCache  кэш отчетов, сбрасываемый после удаления записей
+	 * @param seedOnStartup         наполнять ли базу данных при запуске
+	 */
+	public CallDataRecordSeeder(CallDataRecordService callDataRecordService,
+								UsageDataReportCache usageDataReportCache,
+								@Value("${cdr.generator.seed-on-startup:false}") boolean seedOnStartup) {
+		this.callDataRecordService = callDataRecordService;
+		this.usageDataReportCache = usageDataReportCache;
+		this.seedOnStartup = seedOnStartup;
+	}
+
+	/**
+	 * Запускает наполнение в отдельном потоке после готовности приложения, если оно включено.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		if (!seedOnStartup) {
+			return;
+		}
+		state = State.RUNNING;
+		Thread thread = new Thread(this::seed, "cdr-seeder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public Health health() {
+		return switch (state) {
+			case RUNNING -> Health.outOfService().withDetail("seeding", "in progress").build();
+			case FAILED -> Health.down().withDetail("seeding", "failed").build();
+			default -> Health.up().build();
+		};
+	}
+
+	/**
+	 * Удаляет существующие записи и генерирует новые.
+	 */
+	private void seed() {
+		try {
+			long startNanos = System.nanoTime();
+			callDataRecordService.deleteAllCallDataRecords();
+			usageDataReportCache.invalidateAll();
+			callDataRecordService.generateCallDataRecords();
+			state = State.DONE;
+			log.info("Seeded call data records in {} ms", (System.nanoTime() - startNanos) / 1_000_000);
+		} catch (RuntimeException e) {
+			state = State.FAILED;
+			log.error("Seeding call data records failed", e);
+		}
+	}
+}
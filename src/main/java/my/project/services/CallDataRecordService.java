@@ -1,30 +1,49 @@
 package my.project.services;
 
-import jakarta.annotation.PostConstruct;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.dto.ReportJobDTO;
+import my.project.entity.ArchivedMonth;
 import my.project.entity.CallDataRecord;
 import my.project.entity.Subscriber;
+import my.project.repositories.ArchivedMonthRepository;
 import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.MonthlyUsageRepository;
 import my.project.repositories.SubscriberRepository;
+import my.project.util.IncorrectGenerationParametersException;
 import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.IncorrectReportFormatException;
 import my.project.util.NoDataToReceiveException;
+import my.project.util.ReportFormat;
+import my.project.util.ReportRowWriter;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Paths;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 import java.util.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с записями данных о вызовах.
@@ -40,58 +59,169 @@ public class CallDataRecordService {
 
 	private final Random random = new Random();
 
-	private static final int NUMBER_OF_CALLER = 21;
-	private static final int MAX_CALLS_PER_DAY = 21;
+	private static final int GENERATION_CHUNK_SIZE = 1000;
 
 	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
 	private final SubscriberRepository subscriberRepository;
 	private final CallDataRecordRepository callDataRecordRepository;
+	private final MonthlyUsageRepository monthlyUsageRepository;
+	private final ArchivedMonthRepository archivedMonthRepository;
+	private final MsisdnActivityFilter msisdnActivityFilter;
+	private final ReportStorage reportStorage;
+	private final CallDataRecordGeneratorProperties generatorProperties;
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final Counter generatedRecords;
 
 	/**
 	 * Конструктор класса CallDataRecordService.
 	 *
 	 * @param subscriberRepository     Репозиторий для работы с абонентами.
 	 * @param callDataRecordRepository Репозиторий для работы с записями данных о вызовах.
+	 * @param monthlyUsageRepository   Репозиторий для работы с месячными агрегатами использования связи.
+	 * @param archivedMonthRepository  Репозиторий архивных месяцев записей вызовов.
+	 * @param msisdnActivityFilter     Фильтр номеров абонентов, встречавшихся в записях вызовов.
+	 * @param reportStorage            Хранилище файлов отчетов.
+	 * @param generatorProperties      Параметры генерации записей по умолчанию.
+	 * @param objectMapper             Сериализатор JSON для потоковой выдачи записей.
+	 * @param meterRegistry            Реестр метрик генерации записей и размеров отчетов.
 	 */
 	public CallDataRecordService(SubscriberRepository subscriberRepository,
-								 CallDataRecordRepository callDataRecordRepository) {
+								 CallDataRecordRepository callDataRecordRepository,
+								 MonthlyUsageRepository monthlyUsageRepository,
+								 ArchivedMonthRepository archivedMonthRepository,
+								 MsisdnActivityFilter msisdnActivityFilter,
+								 ReportStorage reportStorage,
+								 CallDataRecordGeneratorProperties generatorProperties,
+								 ObjectMapper objectMapper,
+								 MeterRegistry meterRegistry) {
 		this.subscriberRepository = subscriberRepository;
 		this.callDataRecordRepository = callDataRecordRepository;
+		this.monthlyUsageRepository = monthlyUsageRepository;
+		this.archivedMonthRepository = archivedMonthRepository;
+		this.msisdnActivityFilter = msisdnActivityFilter;
+		this.reportStorage = reportStorage;
+		this.generatorProperties = generatorProperties;
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		this.generatedRecords = Counter.builder("cdr.records.generated")
+				.description("Сгенерированные и сохраненные записи вызовов")
+				.tag("generator", "random")
+				.register(meterRegistry);
 	}
 
 	/**
-	 * Инициализация данных при создании сервиса.
+	 * Удаляет все записи данных о вызовах вместе с их месячными агрегатами и архивными таблицами.
 	 * <p>
-	 * Удаляет все предыдущие записи данных о вызовах и генерирует новые записи.
+	 * Таблицы очищаются одним запросом DELETE каждая, без загрузки сущностей в контекст персистентности.
+	 * Архивные таблицы, перечисленные в cdr_archived_month, удаляются, чтобы повторный перенос месяца
+	 * после новой генерации не дописывал записи к устаревшим.
+	 * </p>
+	 * <p>
+	 * Удаление таблиц (DDL) фиксируется сразу, поэтому сначала в отдельной транзакции удаляются строки
+	 * cdr_archived_month, а затем сами таблицы. При сбое на любом шаге в cdr_archived_month не остается
+	 * ссылок на удаленные таблицы, и отчеты за бывшие архивные месяцы не обращаются к ним.
 	 * </p>
 	 */
-	@PostConstruct
-	private void generate() {
-		callDataRecordRepository.deleteAll();
-		generateCallDataRecords();
+	public void deleteAllCallDataRecords() {
+		List<ArchivedMonth> archivedMonths = archivedMonthRepository.findAll();
+		archivedMonthRepository.deleteAllInNewTransaction();
+		for (ArchivedMonth archivedMonth : archivedMonths) {
+			callDataRecordRepository.dropArchiveTable(archivedMonth.getTableName());
+		}
+		callDataRecordRepository.deleteAllInBatch();
+		monthlyUsageRepository.deleteAllInBatch();
 	}
 
 	/**
-	 * Получает все записи данных вызовов (CDR) из репозитория.
+	 * Переносит записи вызовов, начавшихся в указанном месяце, в архивную таблицу месяца {@code cdr_archive_yyyy_mm}.
+	 * <p>
+	 * Записи выбираются по диапазону индекса по времени начала и не загружаются в приложение.
+	 * Месячные агрегаты месяца сохраняются, поэтому UDR отчеты за него остаются доступны,
+	 * а при пересчете агрегатов месяц пропускается. CDR отчеты за архивный месяц читают записи и из архивной
+	 * таблицы, постраничная и потоковая выгрузка всех записей - только из таблицы cdr. Повторный перенос того же
+	 * месяца (например, после загрузки опоздавших записей) дописывает записи в ту же таблицу.
+	 * </p>
 	 * <p>
-	 * Этот метод извлекает все записи данных вызовов из {@code callDataRecordRepository}.
-	 * Если записи отсутствуют, выбрасывается исключение {@code NoDataToReceiveException}.
+	 * H2 не поддерживает секционирование таблиц, поэтому месяц не отсоединяется за O(1): записи копируются
+	 * и удаляются построчно, и время переноса пропорционально количеству записей месяца.
+	 * </p>
+	 * <p>
+	 * Перенос записей и отметка месяца в таблице cdr_archived_month фиксируются одной транзакцией,
+	 * поэтому пересчет агрегатов не может застать записи месяца перенесенными, а месяц - не отмеченным
+	 * архивным. Архивная таблица создается заранее в отдельной транзакции, так как DDL в H2
+	 * фиксирует текущую транзакцию.
+	 * </p>
 	 *
-	 * @return Список объектов {@code CallDataRecord}, содержащий все записи данных вызовов.
+	 * @param month Месяц в формате "yyyy-MM".
+	 * @return Количество перенесенных записей.
+	 * @throws DateTimeParseException Если месяц не соответствует формату.
+	 */
+	@Transactional
+	public int archiveMonth(String month) {
+		YearMonth yearMonth = YearMonth.parse(month);
+		if (yearMonth.getYear() < 0 || yearMonth.getYear() > 9999) {
+			throw new DateTimeParseException("Year out of range", month, 0);
+		}
+		String tableName = String.format("cdr_archive_%04d_%02d", yearMonth.getYear(), yearMonth.getMonthValue());
+		callDataRecordRepository.createArchiveTable(tableName);
+		int moved = callDataRecordRepository.moveMonthToArchive(yearMonth, tableName);
+		long rowCount = archivedMonthRepository.findById(yearMonth.toString())
+				.map(ArchivedMonth::getRowCount)
+				.orElse(0L);
+		archivedMonthRepository.save(new ArchivedMonth(yearMonth.toString(), tableName, rowCount + moved, LocalDateTime.now()));
+		return moved;
+	}
+
+	/**
+	 * Получает страницу записей данных вызовов (CDR), следующих за указанным идентификатором.
+	 * <p>
+	 * Используется keyset-пагинация по {@code id}: для получения следующей страницы
+	 * передается идентификатор последней записи предыдущей страницы.
+	 * Если записи отсутствуют уже на первой странице, выбрасывается исключение {@code NoDataToReceiveException}.
+	 *
+	 * @param afterId идентификатор, после которого начинается страница (0 для первой страницы).
+	 * @param limit   максимальное количество записей на странице.
+	 * @return Список объектов {@code CallDataRecord}, упорядоченный по идентификатору.
 	 * @throws NoDataToReceiveException если записи данных вызовов не найдены.
 	 */
-	public List<CallDataRecord> getAllCallDataRecords() {
-		List<CallDataRecord> callDataRecords = callDataRecordRepository.findAll();
-		if (callDataRecords.isEmpty()) {
+	public List<CallDataRecord> getCallDataRecordsAfter(long afterId, int limit) {
+		List<CallDataRecord> callDataRecords = callDataRecordRepository.findAllAfterId(afterId, Limit.of(limit));
+		if (callDataRecords.isEmpty() && afterId == 0) {
 			throw new NoDataToReceiveException();
 		}
 		return callDataRecords;
 	}
 
+	/**
+	 * Записывает все записи данных вызовов в поток вывода в формате NDJSON (одна JSON-запись на строку).
+	 * <p>
+	 * Записи читаются через курсор JDBC и отсоединяются от контекста персистентности сразу после записи,
+	 * поэтому потребление памяти не зависит от размера таблицы.
+	 * </p>
+	 *
+	 * @param outputStream поток вывода, в который записываются данные
+	 * @throws IOException если произошла ошибка записи
+	 */
+	@Transactional(readOnly = true)
+	public void writeAllCallDataRecords(OutputStream outputStream) throws IOException {
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (Stream<CallDataRecord> records = callDataRecordRepository.streamAll();
+			 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+					 .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+					 .setRootValueSeparator(null)) {
+			for (CallDataRecord record : (Iterable<CallDataRecord>) records::iterator) {
+				writer.writeValue(generator, record);
+				generator.writeRaw('\n');
+				callDataRecordRepository.detach(record);
+			}
+		}
+	}
+
 
 	/**
-	 * Генерирует отчет о вызовах для указанного номера телефона за заданный период.
+	 * Генерирует отчет о вызовах для указанного номера телефона за заданный период в формате CSV.
 	 *
 	 * @param msisdn    Номер телефона абонента (должен содержать 11 цифр).
 	 * @param startDate Дата начала периода в формате "yyyy-MM-dd".
@@ -102,88 +232,221 @@ public class CallDataRecordService {
 	 * @throws NoDataToReceiveException      Если нет данных для генерации отчета.
 	 */
 	public String generateReport(String msisdn, String startDate, String endDate) throws IOException {
+		return generateReport(msisdn, startDate, endDate, ReportFormat.CSV.getParameter());
+	}
+
+	/**
+	 * Генерирует отчет о вызовах для указанного номера телефона за заданный период в указанном формате.
+	 *
+	 * @param msisdn    Номер телефона абонента (должен содержать 11 цифр).
+	 * @param startDate Дата начала периода в формате "yyyy-MM-dd".
+	 * @param endDate   Дата окончания периода в формате "yyyy-MM-dd".
+	 * @param format    Формат отчета: "csv", "csv.gz" или "cdrc".
+	 * @return UUID файла отчета.
+	 * @throws IOException                    Если произошла ошибка при записи файла.
+	 * @throws IncorrectPhoneNumberException  Если номер телефона не соответствует формату.
+	 * @throws IncorrectReportFormatException Если формат отчета неизвестен.
+	 * @throws NoDataToReceiveException       Если нет данных для генерации отчета.
+	 */
+	public String generateReport(String msisdn, String startDate, String endDate, String format) throws IOException {
+		ReportJobDTO job = createReportJob(msisdn, startDate, endDate, format);
+		writeReport(job);
+		return job.getUuid();
+	}
+
+	/**
+	 * Проверяет параметры отчета и создает задание на его генерацию.
+	 *
+	 * @param msisdn    Номер телефона абонента (должен содержать 11 цифр).
+	 * @param startDate Дата начала периода в формате "yyyy-MM-dd".
+	 * @param endDate   Дата окончания периода в формате "yyyy-MM-dd".
+	 * @param format    Формат отчета: "csv", "csv.gz" или "cdrc".
+	 * @return Задание в статусе {@link ReportJobDTO.Status#QUEUED} с новым UUID.
+	 * @throws IncorrectPhoneNumberException  Если номер телефона не соответствует формату.
+	 * @throws IncorrectReportFormatException Если формат отчета неизвестен.
+	 */
+	public ReportJobDTO createReportJob(String msisdn, String startDate, String endDate, String format) {
 		LocalDateTime start = LocalDateTime.parse(startDate + "T00:00:00", FORMATTER);
 		LocalDateTime end = LocalDateTime.parse(endDate + "T00:00:00", FORMATTER);
 		if (msisdn.length() != 11) {
 			throw new IncorrectPhoneNumberException();
 		}
-		List<CallDataRecord> records = callDataRecordRepository.findByMsisdnAndDateRange(msisdn, start, end);
-		if (records.isEmpty()) {
+		ReportFormat reportFormat = ReportFormat.fromParameter(format);
+		return new ReportJobDTO(UUID.randomUUID().toString(), msisdn, start, end, reportFormat);
+	}
+
+	/**
+	 * Записывает файл отчета по заданию в формате задания, обновляя в нем количество строк и размер файла.
+	 * <p>
+	 * Записи читаются через курсор JDBC и отсоединяются от контекста персистентности сразу после записи,
+	 * поэтому потребление памяти не зависит от количества записей в отчете. Если {@link MsisdnActivityFilter}
+	 * гарантирует отсутствие вызовов абонента в месяцах периода, файл не создается и база данных не запрашивается.
+	 * </p>
+	 * <p>
+	 * Отчет записывается во временный файл, который после успешной записи атомарно переименовывается
+	 * в файл отчета, а при ошибке удаляется. Поэтому файл отчета существует только в законченном виде.
+	 * </p>
+	 *
+	 * @param job Задание на генерацию отчета.
+	 * @throws IOException              Если произошла ошибка при записи файла.
+	 * @throws NoDataToReceiveException Если нет данных для генерации отчета.
+	 */
+	@Transactional(readOnly = true)
+	public void writeReport(ReportJobDTO job) throws IOException {
+		if (!msisdnActivityFilter.mightContain(job.getMsisdn(), YearMonth.from(job.getStart()), YearMonth.from(job.getEnd()))) {
 			throw new NoDataToReceiveException();
 		}
-		String uuid = UUID.randomUUID().toString();
-		String fileName = String.format("%s_%s.csv", msisdn, uuid);
-		String directoryPath = "src/main/java/my/project/reports";
-		String filePath = Paths.get(directoryPath, fileName).toString();
-
-		File directory = new File(directoryPath);
-		if (!directory.exists()) {
-			directory.mkdir();
+		ReportFormat format = job.getFormat();
+		Path file = reportStorage.newReportFile(job.getMsisdn(), job.getUuid(), format.getExtension());
+		Path tempFile = ReportStorage.tempFileFor(file);
+
+		try {
+			long rows = writeReportRows(job, format, tempFile);
+			if (rows == 0) {
+				throw new NoDataToReceiveException();
+			}
+			Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
 		}
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-			for (CallDataRecord record : records) {
-				writer.write(String.join(",",
+		job.setBytesWritten(Files.size(file));
+		DistributionSummary.builder("cdr.report.size")
+				.description("Размер записанных файлов CDR отчетов")
+				.baseUnit("bytes")
+				.tag("format", format.getParameter())
+				.register(meterRegistry)
+				.record(job.getBytesWritten());
+	}
+
+	/**
+	 * Записывает строки отчета в файл.
+	 *
+	 * @param job    Задание на генерацию отчета, в котором обновляется количество записанных строк.
+	 * @param format Формат отчета.
+	 * @param file   Файл, в который записывается отчет.
+	 * @return Количество записанных строк.
+	 * @throws IOException Если произошла ошибка при записи файла.
+	 */
+	private long writeReportRows(ReportJobDTO job, ReportFormat format, Path file) throws IOException {
+		long rows = 0;
+		try (Stream<CallDataRecord> records = streamReportRecords(job);
+			 OutputStream out = format.open(file)) {
+			ReportRowWriter rowWriter = format.newRowWriter(out);
+			for (CallDataRecord record : (Iterable<CallDataRecord>) records::iterator) {
+				rowWriter.writeRow(
 						record.getCallType(),
 						record.getPhoneOne(),
 						record.getPhoneTwo(),
-						record.getStartTime().toString(),
-						record.getEndTime().toString()));
-				writer.newLine();
-				writer.newLine();
+						record.getStartTime(),
+						record.getEndTime());
+				callDataRecordRepository.detach(record);
+				job.setRowsWritten(++rows);
 			}
+			rowWriter.finish();
 		}
+		return rows;
+	}
 
-		return uuid;
+	/**
+	 * Возвращает записи отчета из таблицы cdr, а для архивных месяцев периода - также из их архивных таблиц.
+	 *
+	 * @param job Задание на генерацию отчета.
+	 * @return Поток записей, упорядоченный по времени начала.
+	 */
+	private Stream<CallDataRecord> streamReportRecords(ReportJobDTO job) {
+		List<String> archiveTables = archivedMonthRepository.findAllByMonthBetweenOrderByMonth(
+						YearMonth.from(job.getStart()).toString(), YearMonth.from(job.getEnd()).toString())
+				.stream()
+				.map(ArchivedMonth::getTableName)
+				.toList();
+		if (archiveTables.isEmpty()) {
+			return callDataRecordRepository.streamByMsisdnAndDateRange(job.getMsisdn(), job.getStart(), job.getEnd());
+		}
+		return callDataRecordRepository.streamByMsisdnNumberAndStartRangeWithArchives(
+				CallDataRecord.toMsisdnNumber(job.getMsisdn()),
+				CallDataRecord.toEpochSecond(job.getStart()),
+				CallDataRecord.toEpochSecond(job.getEnd()),
+				archiveTables);
 	}
 
 	/**
-	 * Инициализирует список абонентов со случайными номерами телефонов.
+	 * Получает номера первых абонентов, при необходимости добавляя абонентов со случайными номерами.
 	 *
-	 * @return Список сохраненных абонентов.
+	 * @param count Необходимое количество абонентов.
+	 * @return Список номеров абонентов.
 	 */
-	private List<Subscriber> initializeSubscribers() {
-		List<Subscriber> subscribers = new ArrayList<>();
-		for (int i = 0; i < NUMBER_OF_CALLER; i++) {
-			StringBuilder phoneNumber = new StringBuilder("7");
-			for (int j = 0; j < 10; j++) {
-				phoneNumber.append(random.nextInt(10));
+	private List<String> initializeSubscribers(int count) {
+		List<String> msisdns = subscriberRepository.findMsisdns(Limit.of(count));
+		if (msisdns.size() == count) {
+			return msisdns;
+		}
+		Set<String> existing = new HashSet<>(subscriberRepository.findAllMsisdns());
+		List<Subscriber> subscribers = new ArrayList<>(count - msisdns.size());
+		msisdns = new ArrayList<>(msisdns);
+		while (msisdns.size() < count) {
+			String msisdn = "7" + random.nextLong(1_000_000_000L, 10_000_000_000L);
+			if (existing.add(msisdn)) {
+				subscribers.add(new Subscriber(msisdn));
+				msisdns.add(msisdn);
 			}
-			subscribers.add(new Subscriber(phoneNumber.toString()));
 		}
-		return subscriberRepository.saveAll(subscribers);
+		subscriberRepository.saveAllInBatch(subscribers);
+		return msisdns;
+	}
+
+	/**
+	 * Генерирует записи данных о вызовах с параметрами по умолчанию
+	 * (свойства {@code cdr.generator.*}).
+	 */
+	public void generateCallDataRecords() {
+		generateCallDataRecords(null, null, null, null);
 	}
 
 	/**
 	 * Генерирует записи данных о вызовах для абонентов.
 	 * <p>
-	 * Метод создает случайные записи о вызовах на основе существующих абонентов.
-	 * Если абоненты отсутствуют, они инициализируются. Записи о вызовах создаются
-	 * на основе случайных значений для времени начала и окончания вызова в пределах
-	 * заданного периода.
+	 * Метод создает случайные записи о вызовах между первыми {@code subscribers} абонентами;
+	 * недостающие абоненты создаются. Генерация продолжается с даты окончания последней записи
+	 * (или со случайной даты, если записей нет) на {@code months} месяцев, каждый день
+	 * содержит равномерно распределенное количество вызовов от {@code minCallsPerDay} до {@code maxCallsPerDay}.
+	 * Сгенерированные записи накапливаются в буфере и сохраняются
+	 * пакетами по {@value #GENERATION_CHUNK_SIZE} записей.
+	 * Параметры, равные {@code null}, берутся из {@link CallDataRecordGeneratorProperties}.
 	 * </p>
+	 *
+	 * @param subscribers    Количество абонентов (не меньше 2).
+	 * @param minCallsPerDay Минимальное количество вызовов в день (не меньше 1).
+	 * @param maxCallsPerDay Максимальное количество вызовов в день (не меньше минимального).
+	 * @param months         Количество месяцев (не меньше 1).
+	 * @throws IncorrectGenerationParametersException Если параметры вне допустимых пределов.
 	 */
-	public void generateCallDataRecords() {
-		List<Subscriber> subscribers = subscriberRepository.count() == 0 ?
-				initializeSubscribers() : subscriberRepository.findAll();
-		Optional<CallDataRecord> optionalCDR = callDataRecordRepository.findFirstByOrderByEndTimeDesc();
+	public void generateCallDataRecords(Integer subscribers, Integer minCallsPerDay,
+										Integer maxCallsPerDay, Integer months) {
+		int subscriberCount = subscribers != null ? subscribers : generatorProperties.getSubscribers();
+		int minCalls = minCallsPerDay != null ? minCallsPerDay : generatorProperties.getMinCallsPerDay();
+		int maxCalls = maxCallsPerDay != null ? maxCallsPerDay : generatorProperties.getMaxCallsPerDay();
+		int monthCount = months != null ? months : generatorProperties.getMonths();
+		if (subscriberCount < 2 || minCalls < 1 || maxCalls < minCalls || monthCount < 1) {
+			throw new IncorrectGenerationParametersException();
+		}
+
+		List<String> msisdns = initializeSubscribers(subscriberCount);
+		Optional<Long> lastCallEnd = callDataRecordRepository.findLastCallEndEpochSecond();
 		LocalDate startDateTime;
-		if (optionalCDR.isPresent()) {
-			startDateTime = optionalCDR.get().getEndTime().toLocalDate();
+		if (lastCallEnd.isPresent()) {
+			startDateTime = LocalDateTime.ofEpochSecond(lastCallEnd.get(), 0, ZoneOffset.UTC).toLocalDate();
 		} else {
 			startDateTime = generateRandomDate();
 		}
-		int numberOfMonthToGenerate = 12;
-		LocalDate endDateTime = startDateTime.plusMonths(numberOfMonthToGenerate);
+		LocalDate endDateTime = startDateTime.plusMonths(monthCount);
 
+		List<CallDataRecord> buffer = new ArrayList<>(GENERATION_CHUNK_SIZE);
 		for (LocalDate currentDate = startDateTime; currentDate.isBefore(endDateTime); currentDate = currentDate.plusDays(1)) {
-			int callsToday = random.nextInt(1, MAX_CALLS_PER_DAY);
+			int callsToday = random.nextInt(minCalls, maxCalls + 1);
 			for (int i = 0; i < callsToday; i++) {
 
-				String caller = getRandomSubscriber(subscribers);
-				String receiver = getRandomSubscriber(subscribers);
-				while (caller.equals(receiver)) {
-					receiver = getRandomSubscriber(subscribers);
-				}
+				int caller = random.nextInt(subscriberCount);
+				int receiver = getRandomReceiver(caller, subscriberCount);
 
 				LocalTime callStartTime = LocalTime.of(
 						random.nextInt(0, 24),
@@ -192,19 +455,28 @@ public class CallDataRecordService {
 				LocalTime callEndTime = callStartTime.plusSeconds(random.nextInt(30, 600));
 
 				LocalDate endDateOfCall = callEndTime.isBefore(callStartTime)
-						? currentDate = currentDate.plusDays(1)
+						? currentDate.plusDays(1)
 						: currentDate;
 
 				CallDataRecord record = new CallDataRecord(
 						random.nextBoolean() ? "01" : "02",
-						caller,
-						receiver,
+						msisdns.get(caller),
+						msisdns.get(receiver),
 						LocalDateTime.of(currentDate, callStartTime),
 						LocalDateTime.of(endDateOfCall, callEndTime)
 				);
-				callDataRecordRepository.save(record);
+				buffer.add(record);
+				if (buffer.size() == GENERATION_CHUNK_SIZE) {
+					callDataRecordRepository.saveAllInBatch(buffer);
+					generatedRecords.increment(buffer.size());
+					buffer.clear();
+				}
 			}
 		}
+		if (!buffer.isEmpty()) {
+			callDataRecordRepository.saveAllInBatch(buffer);
+			generatedRecords.increment(buffer.size());
+		}
 	}
 
 	/**
@@ -258,13 +530,13 @@ public class CallDataRecordService {
 	}
 
 	/**
-	 * Получает случайный номер телефона абонента из списка абонентов.
+	 * Выбирает случайного получателя вызова, отличного от вызывающего абонента, за O(1).
 	 *
-	 * @param subscribers Список абонентов.
-	 * @return Случайный номер телефона абонента.
+	 * @param caller      Индекс вызывающего абонента.
+	 * @param subscribers Количество абонентов.
+	 * @return Индекс получателя вызова.
 	 */
-	private String getRandomSubscriber(List<Subscriber> subscribers) {
-		return subscribers.get(random.nextInt(subscribers.size())).getMsisdn();
+	private int getRandomReceiver(int caller, int subscribers) {
+		return (caller + 1 + random.nextInt(subscribers - 1)) % subscribers;
 	}
 }
-
@@ -0,0 +1,353 @@
+package my.project.services;
+
+import jakarta.annotation.PreDestroy;
+import my.project.entity.CallDataRecord;
+import my.project.entity.SpoolCheckpoint;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.SpoolCheckpointRepository;
+import my.project.util.CallDataRecordValidator;
+import my.project.util.CsvRowParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис для загрузки CDR файлов из каталога приема (spool).
+ * <p>
+ * Включается свойством {@code cdr.spool.enabled}. После запуска приложения в отдельном потоке загружает
+ * файлы, уже лежащие в каталоге {@code cdr.spool.directory}, и затем отслеживает появление новых
+ * через {@link WatchService}. Файлы в формате CSV отчета ({@code callType,phoneOne,phoneTwo,start,end})
+ * отображаются в память окнами до {@code cdr.spool.map-window-bytes} байт и разбираются прямо из отображенного
+ * буфера; корректные записи сохраняются пакетами по {@value #BATCH_SIZE}. Вместе с каждым пакетом в той же
+ * транзакции сохраняется контрольная точка ({@link SpoolCheckpoint}), поэтому после сбоя загрузка файла
+ * продолжается с первой несохраненной строки без дублирования записей. Загруженные файлы перемещаются
+ * в каталог {@code cdr.spool.archive-directory}; если там уже есть файл с тем же именем, к имени
+ * перемещаемого файла добавляется уникальный суффикс.
+ * </p>
+ * <p>
+ * Файл, загрузка которого завершилась ошибкой, загружается повторно при следующем просмотре каталога.
+ * После {@code cdr.spool.max-attempts} неудачных попыток подряд файл перемещается в каталог
+ * {@code cdr.spool.error-directory} и больше не загружается; контрольная точка файла сохраняется,
+ * поэтому исправленный файл, возвращенный в каталог приема без изменений, загружается с места остановки.
+ * </p>
+ * <p>
+ * Файлы, имя которых начинается с точки или оканчивается на {@code .tmp}, пропускаются:
+ * коммутатор должен дописать файл под временным именем и затем переименовать его.
+ * </p>
+ */
+@Service
+public class CallDataRecordSpoolWatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(CallDataRecordSpoolWatcher.class);
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final CallDataRecordRepository callDataRecordRepository;
+	private final SpoolCheckpointRepository spoolCheckpointRepository;
+	private final SubscriberDirectory subscriberDirectory;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final Path directory;
+	private final Path archiveDirectory;
+	private final Path errorDirectory;
+	private final long mapWindowBytes;
+	private final int maxAttempts;
+	private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+	private volatile WatchService watchService;
+
+	/**
+	 * Конструктор сервиса.
+	 *
+	 * @param callDataRecordRepository  репозиторий для работы с записями вызовов
+	 * @param spoolCheckpointRepository репозиторий контрольных точек загрузки файлов
+	 * @param subscriberDirectory       справочник абонентов для проверки номеров записей
+	 * @param transactionManager        менеджер транзакций для сохранения пакета вместе с контрольной точкой
+	 * @param enabled                   отслеживать ли каталог приема
+	 * @param directory                 каталог приема
+	 * @param archiveDirectory          каталог для загруженных файлов
+	 * @param errorDirectory            каталог для файлов, загрузка которых завершилась ошибкой
+	 * @param mapWindowBytes            максимальный размер окна отображения файла в память
+	 * @param maxAttempts               количество неудачных попыток загрузки файла до его перемещения в каталог ошибок
+	 */
+	public CallDataRecordSpoolWatcher(CallDataRecordRepository callDataRecordRepository,
+									  SpoolCheckpointRepository spoolCheckpointRepository,
+									  SubscriberDirectory subscriberDirectory,
+									  PlatformTransactionManager transactionManager,
+									  @Value("${cdr.spool.enabled:false}") boolean enabled,
+									  @Value("${cdr.spool.directory:spool}") String directory,
+									  @Value("${cdr.spool.archive-directory:spool-archive}") String archiveDirectory,
+									  @Value("${cdr.spool.error-directory:spool-error}") String errorDirectory,
+									  @Value("${cdr.spool.map-window-bytes:67108864}") long mapWindowBytes,
+									  @Value("${cdr.spool.max-attempts:3}") int maxAttempts) {
+		this.callDataRecordRepository = callDataRecordRepository;
+		this.spoolCheckpointRepository = spoolCheckpointRepository;
+		this.subscriberDirectory = subscriberDirectory;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.enabled = enabled;
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+		this.archiveDirectory = Paths.get(archiveDirectory).toAbsolutePath().normalize();
+		this.errorDirectory = Paths.get(errorDirectory).toAbsolutePath().normalize();
+		this.mapWindowBytes = Math.min(mapWindowBytes, Integer.MAX_VALUE);
+		this.maxAttempts = Math.max(maxAttempts, 1);
+	}
+
+	/**
+	 * Запускает отслеживание каталога приема после готовности приложения, если оно включено.
+	 *
+	 * @throws IOException если не удалось создать каталоги или зарегистрировать отслеживание
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		Files.createDirectories(directory);
+		Files.createDirectories(archiveDirectory);
+		Files.createDirectories(errorDirectory);
+		watchService = directory.getFileSystem().newWatchService();
+		directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+		Thread thread = new Thread(this::watch, "cdr-spool");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Останавливает отслеживание каталога приема при завершении приложения.
+	 *
+	 * @throws IOException если не удалось закрыть {@link WatchService}
+	 */
+	@PreDestroy
+	public void stop() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+		}
+	}
+
+	/**
+	 * Загружает все файлы, находящиеся в каталоге приема, в порядке их имен.
+	 * Файлы, которые не удалось загрузить {@code cdr.spool.max-attempts} раз подряд, перемещаются в каталог ошибок.
+	 *
+	 * @return количество загруженных файлов
+	 * @throws IOException если не удалось прочитать каталог приема
+	 */
+	public int processPendingFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, CallDataRecordSpoolWatcher::isSpoolFile)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		files.sort(null);
+		int processed = 0;
+		for (Path file : files) {
+			try {
+				processFile(file);
+				failedAttempts.remove(file.getFileName().toString());
+				processed++;
+			} catch (IOException | RuntimeException e) {
+				handleFailure(file, e);
+			}
+		}
+		return processed;
+	}
+
+	/**
+	 * Учитывает неудачную попытку загрузки файла и перемещает файл в каталог ошибок,
+	 * если количество попыток подряд достигло {@code cdr.spool.max-attempts}.
+	 *
+	 * @param file  файл, загрузка которого завершилась ошибкой
+	 * @param error ошибка загрузки
+	 */
+	private void handleFailure(Path file, Exception error) {
+		String fileName = file.getFileName().toString();
+		int attempts = failedAttempts.merge(fileName, 1, Integer::sum);
+		if (attempts < maxAttempts) {
+			log.warn("Failed to ingest spool file {} (attempt {} of {}): {}", file, attempts, maxAttempts, error.toString());
+			return;
+		}
+		failedAttempts.remove(fileName);
+		try {
+			Files.createDirectories(errorDirectory);
+			Path target = Files.move(file, uniqueTarget(errorDirectory, fileName));
+			log.error("Failed to ingest spool file {} after {} attempts, moved to {}", file, attempts, target, error);
+		} catch (IOException e) {
+			log.error("Failed to ingest spool file {} after {} attempts and to move it to {}",
+					file, attempts, errorDirectory, error);
+		}
+	}
+
+	/**
+	 * Цикл отслеживания: загружает имеющиеся файлы и затем файлы из каждого нового события каталога.
+	 * Каталог перечитывается целиком, поэтому переполнение очереди событий не приводит к потере файлов.
+	 */
+	private void watch() {
+		try {
+			processPendingFiles();
+			while (true) {
+				WatchKey key = watchService.take();
+				key.pollEvents();
+				processPendingFiles();
+				if (!key.reset()) {
+					log.error("Spool directory {} is no longer accessible", directory);
+					return;
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// приложение завершается
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			log.error("Spool directory {} watcher stopped", directory, e);
+		}
+	}
+
+	/**
+	 * Загружает один файл, продолжая с контрольной точки, и перемещает его в архив.
+	 *
+	 * @param file файл с записями вызовов
+	 * @throws IOException если произошла ошибка чтения или перемещения файла
+	 */
+	private void processFile(Path file) throws IOException {
+		String fileName = file.getFileName().toString();
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		long size = attributes.size();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		long offset = spoolCheckpointRepository.findById(fileName)
+				.filter(checkpoint -> checkpoint.getFileSize() == size && checkpoint.getLastModified() == lastModified)
+				.map(SpoolCheckpoint::getOffset)
+				.orElse(0L);
+
+		long accepted = 0;
+		long rejected = 0;
+		List<CallDataRecord> batch = new ArrayList<>(BATCH_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (offset < size) {
+				int window = (int) Math.min(mapWindowBytes, size - offset);
+				boolean lastWindow = offset + window == size;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, window);
+				int lineStart = 0;
+				for (int i = 0; i <= window; i++) {
+					if (i < window && buffer.get(i) != '\n') {
+						continue;
+					}
+					if (i == window && (!lastWindow || lineStart == window)) {
+						break;
+					}
+					if (parseLine(buffer, lineStart, i, batch)) {
+						accepted++;
+					} else if (i > lineStart && !(i - lineStart == 1 && buffer.get(lineStart) == '\r')) {
+						rejected++;
+					}
+					lineStart = Math.min(i + 1, window);
+					if (batch.size() == BATCH_SIZE) {
+						saveBatch(batch, new SpoolCheckpoint(fileName, offset + lineStart, size, lastModified));
+						batch = new ArrayList<>(BATCH_SIZE);
+					}
+				}
+				if (lineStart == 0) {
+					throw new IOException("Line at offset " + offset + " is longer than " + mapWindowBytes + " bytes");
+				}
+				offset += lineStart;
+			}
+		}
+		saveBatch(batch, new SpoolCheckpoint(fileName, size, size, lastModified));
+
+		Files.move(file, uniqueTarget(archiveDirectory, fileName));
+		spoolCheckpointRepository.deleteById(fileName);
+		if (rejected > 0) {
+			log.warn("Ingested spool file {}: {} records, {} rejected lines", fileName, accepted, rejected);
+		} else {
+			log.info("Ingested spool file {}: {} records", fileName, accepted);
+		}
+	}
+
+	/**
+	 * Разбирает строку файла и добавляет корректную запись в пакет.
+	 *
+	 * @param buffer отображенный в память участок файла
+	 * @param start  индекс первого байта строки
+	 * @param end    индекс байта, следующего за последним байтом строки
+	 * @param batch  пакет записей
+	 * @return {@code true}, если запись добавлена в пакет
+	 */
+	private boolean parseLine(MappedByteBuffer buffer, int start, int end, List<CallDataRecord> batch) {
+		try {
+			CallDataRecord record = CsvRowParser.parse(buffer, start, end);
+			if (CallDataRecordValidator.isValid(record) && subscriberDirectory.accepts(record)) {
+				batch.add(record);
+				return true;
+			}
+		} catch (IllegalArgumentException e) {
+			// строка отклоняется
+		}
+		return false;
+	}
+
+	/**
+	 * Сохраняет пакет записей и контрольную точку в одной транзакции.
+	 *
+	 * @param batch      пакет записей
+	 * @param checkpoint контрольная точка после последней записи пакета
+	 */
+	private void saveBatch(List<CallDataRecord> batch, SpoolCheckpoint checkpoint) {
+		transactionTemplate.executeWithoutResult(status -> {
+			if (!batch.isEmpty()) {
+				callDataRecordRepository.saveAllInBatch(batch);
+			}
+			spoolCheckpointRepository.save(checkpoint);
+		});
+	}
+
+	/**
+	 * Возвращает путь для перемещения файла в каталог, не совпадающий с уже существующим файлом.
+	 *
+	 * @param targetDirectory каталог назначения
+	 * @param fileName        имя перемещаемого файла
+	 * @return путь с исходным именем или, если такой файл уже есть, с уникальным суффиксом перед расширением
+	 */
+	private static Path uniqueTarget(Path targetDirectory, String fileName) {
+		Path target = targetDirectory.resolve(fileName);
+		if (!Files.exists(target)) {
+			return target;
+		}
+		int dot = fileName.indexOf('.', 1);
+		String base = dot < 0 ? fileName : fileName.substring(0, dot);
+		String extension = dot < 0 ? "" : fileName.substring(dot);
+		return targetDirectory.resolve(base + "-" + UUID.randomUUID() + extension);
+	}
+
+	/**
+	 * Проверяет, нужно ли загружать файл из каталога приема.
+	 *
+	 * @param path путь к файлу
+	 * @return {@code true} для обычных файлов, кроме скрытых и временных
+	 */
+	private static boolean isSpoolFile(Path path) {
+		String name = path.getFileName().toString();
+		return !name.startsWith(".") && !name.endsWith(".tmp") && Files.isRegularFile(path);
+	}
+}
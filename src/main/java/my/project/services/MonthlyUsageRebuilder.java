@@ -0,0 +1,175 @@
+package my.project.services;
+
+import jakarta.annotation.PreDestroy;
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsage;
+import my.project.repositories.ArchivedMonthRepository;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.MonthlyUsageRepository;
+import my.project.util.MonthlyUsageAccumulator;
+import my.project.util.MsisdnIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Сервис полного пересчета месячных агрегатов (таблица udr_monthly) из таблицы cdr.
+ * <p>
+ * При {@code cdr.udr.rebuild-parallelism} = 1 агрегаты вычисляются одним запросом INSERT ... SELECT
+ * в базе данных. При большем значении диапазон идентификаторов cdr делится на части, которые читаются
+ * независимо в отдельных транзакциях только для чтения в {@link ForkJoinPool} заданного размера;
+ * каждая часть накапливает итоги в своем {@link MonthlyUsageAccumulator}, итоги завершенных частей
+ * сливаются по мере завершения и записываются в таблицу. Итоги абонентов из справочника
+ * {@link SubscriberDirectory} накапливаются в массивах по идентификатору абонента в одном снимке справочника. Итоги являются целочисленными суммами, поэтому результат не зависит
+ * от количества частей и совпадает с результатом запроса. Агрегаты архивных месяцев
+ * ({@link ArchivedMonthRepository}) в обоих случаях не создаются. Каждый поток занимает отдельное
+ * соединение из пула, поэтому степень параллелизма должна быть меньше размера пула соединений.
+ * </p>
+ */
+@Service
+public class MonthlyUsageRebuilder {
+
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+	private final CallDataRecordRepository callDataRecordRepository;
+	private final MonthlyUsageRepository monthlyUsageRepository;
+	private final ArchivedMonthRepository archivedMonthRepository;
+	private final SubscriberDirectory subscriberDirectory;
+	private final TransactionTemplate readOnlyTransaction;
+	private final int parallelism;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Конструктор сервиса.
+	 *
+	 * @param callDataRecordRepository репозиторий для работы с записями вызовов
+	 * @param monthlyUsageRepository   репозиторий месячных агрегатов
+	 * @param archivedMonthRepository  репозиторий архивных месяцев, агрегаты которых не пересчитываются
+	 * @param subscriberDirectory      справочник абонентов, по идентификаторам которого накапливаются итоги
+	 * @param transactionManager       менеджер транзакций для чтения частей таблицы cdr
+	 * @param parallelism              количество потоков пересчета; 1 - пересчет запросом в базе данных
+	 */
+	public MonthlyUsageRebuilder(CallDataRecordRepository callDataRecordRepository,
+								 MonthlyUsageRepository monthlyUsageRepository,
+								 ArchivedMonthRepository archivedMonthRepository,
+								 SubscriberDirectory subscriberDirectory,
+								 PlatformTransactionManager transactionManager,
+								 @Value("${cdr.udr.rebuild-parallelism:1}") int parallelism) {
+		this.callDataRecordRepository = callDataRecordRepository;
+		this.monthlyUsageRepository = monthlyUsageRepository;
+		this.archivedMonthRepository = archivedMonthRepository;
+		this.subscriberDirectory = subscriberDirectory;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.parallelism = Math.max(parallelism, 1);
+		this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+	}
+
+	/**
+	 * Заполняет таблицу агрегатов по всем записям таблицы cdr, кроме записей архивных месяцев.
+	 * Вызывается в транзакции; перед вызовом агрегаты неархивных месяцев должны быть удалены.
+	 *
+	 * @return количество созданных агрегатов
+	 */
+	public int rebuild() {
+		if (pool == null) {
+			return monthlyUsageRepository.rebuildFromCallDataRecords();
+		}
+		Set<String> archivedMonths = new HashSet<>();
+		archivedMonthRepository.findAll().forEach(archived -> archivedMonths.add(archived.getMonth()));
+		int count = 0;
+		for (MonthlyUsage usage : aggregate().toMonthlyUsage()) {
+			if (!archivedMonths.contains(usage.getMonth())) {
+				monthlyUsageRepository.addUsage(usage.getMsisdn(), usage.getMonth(),
+						usage.getIncomingSeconds(), usage.getOutgoingSeconds());
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Останавливает пул пересчета при завершении приложения.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Накапливает итоги всех записей таблицы cdr, читая диапазоны идентификаторов параллельно.
+	 *
+	 * @return накопленные итоги
+	 */
+	private MonthlyUsageAccumulator aggregate() {
+		MsisdnIndex subscribers = subscriberDirectory.snapshot();
+		MonthlyUsageAccumulator totals = new MonthlyUsageAccumulator(subscribers);
+		Long minId = callDataRecordRepository.findMinId();
+		Long maxId = callDataRecordRepository.findMaxId();
+		if (minId == null || maxId == null) {
+			return totals;
+		}
+		long first = minId - 1;
+		int partitions = parallelism * PARTITIONS_PER_THREAD;
+		long step = Math.max(1, (maxId - first + partitions - 1) / partitions);
+		CompletionService<MonthlyUsageAccumulator> completion = new ExecutorCompletionService<>(pool);
+		List<Future<MonthlyUsageAccumulator>> tasks = new ArrayList<>(partitions);
+		for (long afterId = first; afterId < maxId; afterId += step) {
+			long from = afterId;
+			long to = Math.min(afterId + step, maxId);
+			tasks.add(completion.submit(() -> aggregateRange(from, to, subscribers)));
+		}
+
+		try {
+			for (int i = 0; i < tasks.size(); i++) {
+				totals.addAll(completion.take().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			tasks.forEach(task -> task.cancel(true));
+		}
+		return totals;
+	}
+
+	/**
+	 * Накапливает итоги записей с идентификаторами в диапазоне {@code (afterId, toId]}.
+	 *
+	 * @param afterId     идентификатор, после которого начинается диапазон
+	 * @param toId        последний идентификатор диапазона
+	 * @param subscribers снимок справочника абонентов
+	 * @return итоги диапазона
+	 */
+	private MonthlyUsageAccumulator aggregateRange(long afterId, long toId, MsisdnIndex subscribers) {
+		return readOnlyTransaction.execute(status -> {
+			MonthlyUsageAccumulator totals = new MonthlyUsageAccumulator(subscribers);
+			try (Stream<CallDataRecord> records = callDataRecordRepository.streamByIdRange(afterId, toId)) {
+				records.forEach(record -> {
+					totals.add(record);
+					callDataRecordRepository.detach(record);
+				});
+			}
+			return totals;
+		});
+	}
+}
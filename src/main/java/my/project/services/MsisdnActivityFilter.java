@@ -0,0 +1,198 @@
+package my.project.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsageId;
+import my.project.repositories.MonthlyUsageRepository;
+import my.project.util.BloomFilter;
+import my.project.util.CallDataRecordsSavedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр номеров абонентов, встречавшихся в записях вызовов.
+ * <p>
+ * Для каждого месяца и для всего времени хранится {@link BloomFilter} по номерам абонентов, у которых
+ * есть записи вызовов, начавшихся в этом месяце. Отрицательный ответ фильтра означает, что записей
+ * точно нет, и позволяет отклонить запрос отчета без обращения к базе данных. Положительный ответ может
+ * быть ложным, тогда отчет ищется в базе данных как обычно.
+ * </p>
+ * <p>
+ * Фильтры заполняются по таблице месячных агрегатов udr_monthly после запуска приложения и после пересчета
+ * агрегатов, а также при каждом сохранении записей вызовов - до фиксации транзакции, поэтому сохраненные
+ * записи никогда не отклоняются фильтром. До окончания первого заполнения фильтр пропускает все запросы.
+ * Номера из фильтров не удаляются: после удаления или переноса записей в архив фильтр отвечает
+ * положительно, и отчет ищется в базе данных.
+ * </p>
+ * <p>
+ * Размер фильтров задается ожидаемым количеством абонентов в месяце ({@code cdr.msisdn-filter.expected-msisdns})
+ * и допустимой долей ложноположительных ответов ({@code cdr.msisdn-filter.false-positive-rate}).
+ * Метрики: {@value #FPP_METRIC} - оценка доли ложноположительных ответов по заполнению фильтров
+ * (тег scope: all - фильтр за все время, month - наихудший из месячных фильтров), {@value #TARGET_FPP_METRIC} -
+ * заданная доля, {@value #CHECKS_METRIC} - количество проверок (тег result: passed или rejected).
+ * </p>
+ */
+@Component
+public class MsisdnActivityFilter {
+
+	private static final String FPP_METRIC = "cdr.msisdn.filter.fpp";
+	private static final String TARGET_FPP_METRIC = "cdr.msisdn.filter.fpp.target";
+	private static final String CHECKS_METRIC = "cdr.msisdn.filter.checks";
+
+	private final MonthlyUsageRepository monthlyUsageRepository;
+	private final long expectedMsisdns;
+	private final double falsePositiveRate;
+	private final BloomFilter allMonths;
+	private final ConcurrentSkipListMap<YearMonth, BloomFilter> byMonth = new ConcurrentSkipListMap<>();
+	private final Counter passed;
+	private final Counter rejected;
+	private volatile boolean loaded;
+
+	/**
+	 * Конструктор фильтра.
+	 *
+	 * @param monthlyUsageRepository репозиторий месячных агрегатов, по которым заполняются фильтры
+	 * @param meterRegistry          реестр метрик фильтра
+	 * @param expectedMsisdns        ожидаемое количество абонентов с вызовами за месяц
+	 * @param falsePositiveRate      допустимая доля ложноположительных ответов при ожидаемом количестве абонентов
+	 */
+	public MsisdnActivityFilter(MonthlyUsageRepository monthlyUsageRepository,
+								MeterRegistry meterRegistry,
+								@Value("${cdr.msisdn-filter.expected-msisdns:10000}") long expectedMsisdns,
+								@Value("${cdr.msisdn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.monthlyUsageRepository = monthlyUsageRepository;
+		this.expectedMsisdns = expectedMsisdns;
+		this.falsePositiveRate = falsePositiveRate;
+		this.allMonths = new BloomFilter(expectedMsisdns, falsePositiveRate);
+		Gauge.builder(FPP_METRIC, allMonths, BloomFilter::expectedFalsePositiveRate)
+				.description("Оценка доли ложноположительных ответов фильтра номеров")
+				.tag("scope", "all")
+				.register(meterRegistry);
+		Gauge.builder(FPP_METRIC, byMonth, months -> months.values().stream()
+						.mapToDouble(BloomFilter::expectedFalsePositiveRate)
+						.max()
+						.orElse(0))
+				.description("Оценка доли ложноположительных ответов фильтра номеров")
+				.tag("scope", "month")
+				.register(meterRegistry);
+		Gauge.builder(TARGET_FPP_METRIC, () -> falsePositiveRate)
+				.description("Заданная доля ложноположительных ответов фильтра номеров")
+				.register(meterRegistry);
+		this.passed = Counter.builder(CHECKS_METRIC)
+				.description("Проверки номеров фильтром перед поиском отчета в базе данных")
+				.tag("result", "passed")
+				.register(meterRegistry);
+		this.rejected = Counter.builder(CHECKS_METRIC)
+				.description("Проверки номеров фильтром перед поиском отчета в базе данных")
+				.tag("result", "rejected")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Заполняет фильтры номерами из таблицы месячных агрегатов.
+	 * Вызывается после запуска приложения и после пересчета агрегатов; уже добавленные номера сохраняются.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void load() {
+		try (Stream<MonthlyUsageId> ids = monthlyUsageRepository.streamAllIds()) {
+			ids.forEach(id -> add(id.getMsisdn(), id.getMonth()));
+		}
+		loaded = true;
+	}
+
+	/**
+	 * Добавляет в фильтры номера сохраняемых записей вызовов.
+	 * <p>
+	 * Вызывается синхронно при публикации события, то есть до фиксации транзакции сохранения:
+	 * при откате транзакции в фильтре остаются лишние номера, что допустимо.
+	 * </p>
+	 *
+	 * @param event событие сохранения записей о вызовах
+	 */
+	@EventListener
+	public void onCallDataRecordsSaved(CallDataRecordsSavedEvent event) {
+		for (MonthlyUsageId id : event.affected()) {
+			add(id.getMsisdn(), id.getMonth());
+		}
+	}
+
+	/**
+	 * Проверяет, могут ли быть записи вызовов абонента за месяц.
+	 *
+	 * @param msisdn номер абонента
+	 * @param month  месяц или {@code null} для проверки за все время
+	 * @return {@code false}, если записей точно нет; {@code true}, если они могут быть
+	 */
+	public boolean mightContain(String msisdn, YearMonth month) {
+		if (!loaded) {
+			return count(true);
+		}
+		long number = CallDataRecord.toMsisdnNumber(msisdn);
+		if (month == null) {
+			return count(number >= 0 && allMonths.mightContain(number));
+		}
+		BloomFilter filter = byMonth.get(month);
+		return count(number >= 0 && filter != null && filter.mightContain(number));
+	}
+
+	/**
+	 * Проверяет, могут ли быть записи вызовов абонента, начавшихся в указанном диапазоне месяцев.
+	 *
+	 * @param msisdn номер абонента
+	 * @param from   первый месяц диапазона
+	 * @param to     последний месяц диапазона включительно
+	 * @return {@code false}, если записей точно нет; {@code true}, если они могут быть
+	 */
+	public boolean mightContain(String msisdn, YearMonth from, YearMonth to) {
+		if (!loaded) {
+			return count(true);
+		}
+		long number = CallDataRecord.toMsisdnNumber(msisdn);
+		if (number < 0 || from.isAfter(to) || !allMonths.mightContain(number)) {
+			return count(false);
+		}
+		for (BloomFilter filter : byMonth.subMap(from, true, to, true).values()) {
+			if (filter.mightContain(number)) {
+				return count(true);
+			}
+		}
+		return count(false);
+	}
+
+	/**
+	 * Добавляет номер абонента в фильтр месяца и в фильтр за все время.
+	 *
+	 * @param msisdn номер абонента
+	 * @param month  месяц в формате "yyyy-MM"
+	 */
+	private void add(String msisdn, String month) {
+		long number = CallDataRecord.toMsisdnNumber(msisdn);
+		if (number < 0) {
+			return;
+		}
+		byMonth.computeIfAbsent(YearMonth.parse(month), m -> new BloomFilter(expectedMsisdns, falsePositiveRate))
+				.put(number);
+		allMonths.put(number);
+	}
+
+	/**
+	 * Учитывает результат проверки в метрике.
+	 *
+	 * @param result результат проверки
+	 * @return результат проверки
+	 */
+	private boolean count(boolean result) {
+		(result ? passed : rejected).increment();
+		return result;
+	}
+}
@@ -0,0 +1,177 @@
+package my.project.services;
+
+import jakarta.annotation.PreDestroy;
+import my.project.dto.ReportJobDTO;
+import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.IncorrectReportFormatException;
+import my.project.util.NoDataToReceiveException;
+import my.project.util.ReportNotReadyException;
+import my.project.util.ReportQueueFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервис для асинхронной генерации CDR отчетов.
+ * <p>
+ * Задания выполняются в пуле с ограниченным количеством одновременно генерируемых отчетов
+ * и ограниченной очередью ожидания, поэтому всплеск запросов не исчерпывает пул соединений с базой данных.
+ * При запуске на JDK 21 и выше задания выполняются в виртуальных потоках.
+ * Состояние последних {@value #MAX_RETAINED_JOBS} заданий хранится в памяти.
+ * </p>
+ */
+@Service
+public class ReportJobService {
+
+	private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+	private static final int MAX_RETAINED_JOBS = 10_000;
+
+	private final CallDataRecordService callDataRecordService;
+	private final ThreadPoolExecutor executor;
+	private final Map<String, ReportJobDTO> jobs = Collections.synchronizedMap(
+			new LinkedHashMap<>(16, 0.75f, false) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, ReportJobDTO> eldest) {
+					return size() > MAX_RETAINED_JOBS;
+				}
+			});
+
+	/**
+	 * Конструктор сервиса.
+	 *
+	 * @param callDataRecordService сервис для работы с записями вызовов
+	 * @param maxConcurrentJobs     максимальное количество одновременно генерируемых отчетов
+	 * @param queueCapacity         максимальное количество заданий, ожидающих в очереди
+	 */
+	public ReportJobService(CallDataRecordService callDataRecordService,
+							@Value("${cdr.report.max-concurrent-jobs:4}") int maxConcurrentJobs,
+							@Value("${cdr.report.queue-capacity:100}") int queueCapacity) {
+		this.callDataRecordService = callDataRecordService;
+		this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory());
+	}
+
+	/**
+	 * Проверяет параметры отчета и ставит задание на его генерацию в очередь.
+	 *
+	 * @param msisdn    номер телефона абонента (должен содержать 11 цифр)
+	 * @param startDate дата начала периода в формате "yyyy-MM-dd"
+	 * @param endDate   дата окончания периода в формате "yyyy-MM-dd"
+	 * @param format    формат отчета: "csv", "csv.gz" или "cdrc"
+	 * @return задание в статусе {@link ReportJobDTO.Status#QUEUED}
+	 * @throws IncorrectPhoneNumberException  если номер телефона не соответствует формату
+	 * @throws IncorrectReportFormatException если формат отчета неизвестен
+	 * @throws ReportQueueFullException       если очередь заданий заполнена
+	 */
+	public ReportJobDTO submit(String msisdn, String startDate, String endDate, String format) {
+		ReportJobDTO job = callDataRecordService.createReportJob(msisdn, startDate, endDate, format);
+		jobs.put(job.getUuid(), job);
+		try {
+			executor.execute(() -> run(job));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getUuid());
+			throw new ReportQueueFullException();
+		}
+		return job;
+	}
+
+	/**
+	 * Получает задание на генерацию отчета по его UUID.
+	 *
+	 * @param uuid UUID отчета
+	 * @return задание на генерацию отчета
+	 * @throws NoDataToReceiveException если задание не найдено
+	 */
+	public ReportJobDTO getJob(String uuid) {
+		ReportJobDTO job = jobs.get(uuid);
+		if (job == null) {
+			throw new NoDataToReceiveException();
+		}
+		return job;
+	}
+
+	/**
+	 * Проверяет, можно ли отдать файл отчета с указанным UUID.
+	 * <p>
+	 * Файл отчета, задание которого известно, отдается только после успешного завершения задания.
+	 * Задания хранятся в памяти, поэтому отчеты, созданные до перезапуска приложения или вытесненные
+	 * из списка заданий, проверяются только по наличию файла: файл отчета появляется атомарным
+	 * переименованием после успешной записи.
+	 * </p>
+	 *
+	 * @param uuid UUID отчета
+	 * @throws ReportNotReadyException если задание еще выполняется или завершилось ошибкой
+	 */
+	public void checkReportReady(String uuid) {
+		ReportJobDTO job = jobs.get(uuid);
+		if (job != null && job.getStatus() != ReportJobDTO.Status.DONE) {
+			throw new ReportNotReadyException();
+		}
+	}
+
+	/**
+	 * Останавливает пул заданий при завершении приложения.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Выполняет задание, обновляя его статус.
+	 *
+	 * @param job задание на генерацию отчета
+	 */
+	private void run(ReportJobDTO job) {
+		job.setStatus(ReportJobDTO.Status.RUNNING);
+		try {
+			callDataRecordService.writeReport(job);
+			job.setStatus(ReportJobDTO.Status.DONE);
+		} catch (NoDataToReceiveException e) {
+			job.setError("Нет данных для получения");
+			job.setStatus(ReportJobDTO.Status.FAILED);
+		} catch (Exception e) {
+			log.error("Report {} failed", job.getUuid(), e);
+			job.setError("Ошибка при генерации отчета");
+			job.setStatus(ReportJobDTO.Status.FAILED);
+		}
+	}
+
+	/**
+	 * Создает фабрику потоков для заданий: виртуальных на JDK 21 и выше, иначе обычных.
+	 *
+	 * @return фабрика потоков
+	 */
+	private static ThreadFactory threadFactory() {
+		if (Runtime.version().feature() >= 21) {
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "report-", 0L);
+				return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			} catch (ReflectiveOperationException e) {
+				log.warn("Virtual threads are not available, falling back to platform threads", e);
+			}
+		}
+		AtomicLong counter = new AtomicLong();
+		ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+		return runnable -> {
+			Thread thread = defaultFactory.newThread(runnable);
+			thread.setName("report-" + counter.getAndIncrement());
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,87 @@
+package my.project.services;
+
+import my.project.util.NoDataToReceiveException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+/**
+ * Хранилище файлов CDR отчетов.
+ * <p>
+ * Отчеты хранятся в каталоге, заданном свойством {@code cdr.report.directory},
+ * в файлах с именем {@code <msisdn>_<uuid>.<расширение>}. Отчет пишется во временный файл
+ * с суффиксом {@value #TEMP_SUFFIX}, который не отдается при поиске отчета.
+ * </p>
+ */
+@Component
+public class ReportStorage {
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path directory;
+
+	/**
+	 * Конструктор хранилища.
+	 *
+	 * @param directory каталог для файлов отчетов
+	 */
+	public ReportStorage(@Value("${cdr.report.directory:reports}") String directory) {
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Возвращает путь к новому файлу отчета, создавая каталог отчетов при необходимости.
+	 *
+	 * @param msisdn    номер абонента
+	 * @param uuid      UUID отчета
+	 * @param extension расширение файла без точки
+	 * @return путь к файлу отчета
+	 * @throws IOException если не удалось создать каталог отчетов
+	 */
+	public Path newReportFile(String msisdn, String uuid, String extension) throws IOException {
+		Files.createDirectories(directory);
+		return directory.resolve(String.format("%s_%s.%s", msisdn, uuid, extension));
+	}
+
+	/**
+	 * Возвращает путь к временному файлу, в который записывается отчет до переименования в файл отчета.
+	 *
+	 * @param reportFile путь к файлу отчета
+	 * @return путь к временному файлу в том же каталоге
+	 */
+	public static Path tempFileFor(Path reportFile) {
+		return reportFile.resolveSibling(reportFile.getFileName() + TEMP_SUFFIX);
+	}
+
+	/**
+	 * Находит законченный файл отчета по его UUID.
+	 *
+	 * @param uuid UUID отчета
+	 * @return путь к файлу отчета
+	 * @throws NoDataToReceiveException если UUID некорректен или отчет не найден
+	 * @throws IOException              если не удалось прочитать каталог отчетов
+	 */
+	public Path findReport(String uuid) throws IOException {
+		try {
+			uuid = UUID.fromString(uuid).toString();
+		} catch (IllegalArgumentException e) {
+			throw new NoDataToReceiveException();
+		}
+		if (Files.isDirectory(directory)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*_" + uuid + ".*")) {
+				for (Path file : files) {
+					if (!file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+						return file;
+					}
+				}
+			}
+		}
+		throw new NoDataToReceiveException();
+	}
+}
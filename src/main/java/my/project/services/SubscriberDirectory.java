@@ -0,0 +1,167 @@
+package my.project.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.SubscriberRepository;
+import my.project.util.MsisdnIndex;
+import my.project.util.SubscribersSavedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Справочник абонентов в памяти: отображение номера абонента в плотный идентификатор.
+ * <p>
+ * Номера читаются из таблицы subscriber в порядке добавления абонентов, идентификатор абонента -
+ * его порядковый номер, поэтому при добавлении абонентов идентификаторы существующих не меняются.
+ * Справочник хранится в неизменяемом снимке {@link MsisdnIndex}: чтение выполняется без блокировок,
+ * а обновление строит новый снимок и подменяет ссылку. Снимок загружается при первом обращении,
+ * обновляется после фиксации транзакции, в которой сохранялись абоненты, и по запросу {@link #refresh()}.
+ * </p>
+ * <p>
+ * При {@code cdr.subscribers.reject-unknown=true} загрузка записей вызовов ({@link #accepts(CallDataRecord)})
+ * отклоняет записи с номерами, отсутствующими в справочнике. Пересчет месячных агрегатов
+ * ({@link MonthlyUsageRebuilder}) накапливает итоги абонентов справочника в массивах по идентификатору.
+ * Метрики: {@value #SIZE_METRIC} - количество абонентов в справочнике, {@value #LOOKUP_METRIC} - время
+ * проверки записи по справочнику, {@value #REFRESH_METRIC} - время обновления справочника.
+ * </p>
+ */
+@Service
+public class SubscriberDirectory {
+
+	private static final String SIZE_METRIC = "cdr.subscribers.directory.size";
+	private static final String LOOKUP_METRIC = "cdr.subscribers.directory.lookup";
+	private static final String REFRESH_METRIC = "cdr.subscribers.directory.refresh";
+
+	private final SubscriberRepository subscriberRepository;
+	private final boolean rejectUnknown;
+	private final Timer lookupTimer;
+	private final Timer refreshTimer;
+	private volatile MsisdnIndex index;
+
+	/**
+	 * Конструктор справочника.
+	 *
+	 * @param subscriberRepository репозиторий абонентов
+	 * @param meterRegistry        реестр метрик справочника
+	 * @param rejectUnknown        отклонять ли при загрузке записи с номерами, отсутствующими в справочнике
+	 */
+	public SubscriberDirectory(SubscriberRepository subscriberRepository,
+							   MeterRegistry meterRegistry,
+							   @Value("${cdr.subscribers.reject-unknown:false}") boolean rejectUnknown) {
+		this.subscriberRepository = subscriberRepository;
+		this.rejectUnknown = rejectUnknown;
+		Gauge.builder(SIZE_METRIC, this, directory -> directory.index == null ? 0 : directory.index.size())
+				.description("Количество абонентов в справочнике")
+				.register(meterRegistry);
+		this.lookupTimer = Timer.builder(LOOKUP_METRIC)
+				.description("Время проверки номеров записи вызова по справочнику абонентов")
+				.register(meterRegistry);
+		this.refreshTimer = Timer.builder(REFRESH_METRIC)
+				.description("Время обновления справочника абонентов")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Перечитывает номера абонентов и подменяет снимок справочника.
+	 *
+	 * @return количество абонентов в справочнике
+	 */
+	public synchronized int refresh() {
+		return refreshTimer.record(() -> {
+			List<String> msisdns = subscriberRepository.findMsisdns(Limit.unlimited());
+			long[] numbers = msisdns.stream()
+					.mapToLong(CallDataRecord::toMsisdnNumber)
+					.filter(number -> number >= 0)
+					.toArray();
+			MsisdnIndex refreshed = new MsisdnIndex(numbers);
+			index = refreshed;
+			return refreshed.size();
+		});
+	}
+
+	/**
+	 * Обновляет справочник после сохранения абонентов, если он уже загружен.
+	 *
+	 * @param event событие сохранения абонентов
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSubscribersSaved(SubscribersSavedEvent event) {
+		if (index != null) {
+			refresh();
+		}
+	}
+
+	/**
+	 * Находит идентификатор абонента по номеру.
+	 *
+	 * @param msisdn номер абонента
+	 * @return идентификатор или -1, если абонента нет в справочнике
+	 */
+	public int idOf(String msisdn) {
+		return snapshot().idOf(CallDataRecord.toMsisdnNumber(msisdn));
+	}
+
+	/**
+	 * Находит номер абонента по идентификатору.
+	 *
+	 * @param id идентификатор абонента
+	 * @return номер абонента
+	 * @throws ArrayIndexOutOfBoundsException если идентификатор вне диапазона {@code 0..size()-1}
+	 */
+	public String msisdnOf(int id) {
+		return CallDataRecord.toMsisdn(snapshot().msisdnOf(id));
+	}
+
+	/**
+	 * Возвращает количество абонентов в справочнике.
+	 *
+	 * @return количество абонентов
+	 */
+	public int size() {
+		return snapshot().size();
+	}
+
+	/**
+	 * Проверяет, можно ли загрузить запись вызова: при {@code cdr.subscribers.reject-unknown=true}
+	 * оба номера записи должны быть в справочнике.
+	 *
+	 * @param record запись данных вызова
+	 * @return {@code true}, если запись можно сохранить
+	 */
+	public boolean accepts(CallDataRecord record) {
+		if (!rejectUnknown) {
+			return true;
+		}
+		long start = System.nanoTime();
+		MsisdnIndex current = snapshot();
+		boolean known = current.idOf(record.getPhoneOneNumber()) >= 0 && current.idOf(record.getPhoneTwoNumber()) >= 0;
+		lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return known;
+	}
+
+	/**
+	 * Возвращает текущий снимок справочника, загружая его при первом обращении.
+	 * Снимок не изменяется при последующих обновлениях справочника.
+	 *
+	 * @return снимок справочника
+	 */
+	public MsisdnIndex snapshot() {
+		MsisdnIndex current = index;
+		if (current == null) {
+			synchronized (this) {
+				if (index == null) {
+					refresh();
+				}
+				current = index;
+			}
+		}
+		return current;
+	}
+}
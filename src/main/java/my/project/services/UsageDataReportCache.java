@@ -0,0 +1,116 @@
+package my.project.services;
+
+import my.project.dto.CacheStatsDTO;
+import my.project.dto.UsageDataReportDTO;
+import my.project.entity.MonthlyUsageId;
+import my.project.util.BoundedCache;
+import my.project.util.CallDataRecordsSavedEvent;
+import my.project.util.MonthlyUsageRebuiltEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Кэш отчетов об использовании данных (UDR).
+ * <p>
+ * Хранит отчеты по абоненту, ключ - пара (абонент, месяц), где месяц {@code null} означает
+ * отчет за все время, и отчеты по всем абонентам за месяц. Размер и срок жизни записей ограничены.
+ * После сохранения записей о вызовах сбрасываются только отчеты затронутых абонентов и месяцев,
+ * после пересчета месячных агрегатов - все отчеты. Оба сброса выполняются после фиксации транзакции.
+ * </p>
+ */
+@Component
+public class UsageDataReportCache {
+
+	private final BoundedCache<MonthlyUsageId, UsageDataReportDTO> reportsByMsisdn;
+	private final BoundedCache<String, List<UsageDataReportDTO>> reportsByMonth;
+
+	/**
+	 * Конструктор кэша.
+	 *
+	 * @param maxSize максимальное количество отчетов в каждом из кэшей
+	 * @param ttl     срок жизни отчета в кэше
+	 */
+	public UsageDataReportCache(@Value("${udr.cache.max-size:10000}") int maxSize,
+								@Value("${udr.cache.ttl:PT10M}") Duration ttl) {
+		this.reportsByMsisdn = new BoundedCache<>(maxSize, ttl);
+		this.reportsByMonth = new BoundedCache<>(maxSize, ttl);
+	}
+
+	/**
+	 * Возвращает отчет абонента за месяц из кэша или строит его при отсутствии.
+	 *
+	 * @param msisdn номер абонента
+	 * @param month  месяц в формате "yyyy-MM" или {@code null} для отчета за все время
+	 * @param loader функция построения отчета
+	 * @return отчет об использовании данных
+	 */
+	public UsageDataReportDTO getReport(String msisdn, String month, Supplier<UsageDataReportDTO> loader) {
+		return reportsByMsisdn.get(new MonthlyUsageId(msisdn, month), loader);
+	}
+
+	/**
+	 * Возвращает отчеты всех абонентов за месяц из кэша или строит их при отсутствии.
+	 *
+	 * @param month  месяц в формате "yyyy-MM"
+	 * @param loader функция построения отчетов
+	 * @return список отчетов об использовании данных
+	 */
+	public List<UsageDataReportDTO> getReports(String month, Supplier<List<UsageDataReportDTO>> loader) {
+		return reportsByMonth.get(month, loader);
+	}
+
+	/**
+	 * Сбрасывает отчеты, затронутые сохраненными записями о вызовах.
+	 * <p>
+	 * Для каждой пары (абонент, месяц) удаляются отчет абонента за этот месяц,
+	 * отчет абонента за все время и отчет всех абонентов за этот месяц.
+	 * </p>
+	 *
+	 * @param event событие сохранения записей о вызовах
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCallDataRecordsSaved(CallDataRecordsSavedEvent event) {
+		for (MonthlyUsageId id : event.affected()) {
+			reportsByMsisdn.invalidate(id);
+			reportsByMsisdn.invalidate(new MonthlyUsageId(id.getMsisdn(), null));
+			reportsByMonth.invalidate(id.getMonth());
+		}
+	}
+
+	/**
+	 * Сбрасывает все отчеты после пересчета месячных агрегатов.
+	 *
+	 * @param event событие пересчета месячных агрегатов
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onMonthlyUsageRebuilt(MonthlyUsageRebuiltEvent event) {
+		invalidateAll();
+	}
+
+	/**
+	 * Сбрасывает все отчеты, например, после удаления всех записей о вызовах.
+	 */
+	public void invalidateAll() {
+		reportsByMsisdn.invalidateAll();
+		reportsByMonth.invalidateAll();
+	}
+
+	/**
+	 * Возвращает статистику кэшей отчетов.
+	 *
+	 * @return статистика кэша отчетов по абоненту ("byMsisdn") и по месяцу ("byMonth")
+	 */
+	public Map<String, CacheStatsDTO> stats() {
+		Map<String, CacheStatsDTO> stats = new LinkedHashMap<>();
+		stats.put("byMsisdn", reportsByMsisdn.stats());
+		stats.put("byMonth", reportsByMonth.stats());
+		return stats;
+	}
+}
@@ -1,19 +1,27 @@
 package my.project.services;
 
-import my.project.entity.CallDataRecord;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import my.project.dto.CacheStatsDTO;
 import my.project.dto.IncomingCallDTO;
 import my.project.dto.OutcomingCallDTO;
 import my.project.dto.UsageDataReportDTO;
-import my.project.repositories.CallDataRecordRepository;
+import my.project.entity.MonthlyUsage;
+import my.project.entity.MonthlyUsageId;
+import my.project.repositories.MonthlyUsageRepository;
 import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.MonthlyUsageRebuiltEvent;
 import my.project.util.NoDataToReceiveException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
 import java.util.*;
 
 /**
@@ -21,23 +29,47 @@ import java.util.*;
  * <p>
  * Этот сервис предоставляет методы для получения отчетов о входящих и исходящих вызовах
  * для заданного номера телефона (MSISDN) за указанный месяц или за все время.
+ * Отчеты строятся по месячным агрегатам (таблица udr_monthly), которые обновляются
+ * при сохранении записей о вызовах и могут быть пересчитаны из таблицы cdr.
+ * Готовые отчеты хранятся в {@link UsageDataReportCache}. Запросы по номерам, для которых
+ * {@link MsisdnActivityFilter} гарантирует отсутствие вызовов, отклоняются без обращения к базе данных.
  * </p>
  */
 @Service
 @Transactional(readOnly = true)
 public class UsageDataReportService {
 
-	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+	private static final int BATCH_CHUNK_SIZE = 1000;
 
-	private final CallDataRecordRepository callDataRecordRepository;
+	private final MonthlyUsageRepository monthlyUsageRepository;
+	private final UsageDataReportCache usageDataReportCache;
+	private final MonthlyUsageRebuilder monthlyUsageRebuilder;
+	private final MsisdnActivityFilter msisdnActivityFilter;
+	private final ObjectMapper objectMapper;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * Конструктор сервиса.
 	 *
-	 * @param callDataRecordRepository Репозиторий для работы с записями данных о вызовах.
+	 * @param monthlyUsageRepository Репозиторий для работы с месячными агрегатами использования связи.
+	 * @param usageDataReportCache   Кэш готовых отчетов об использовании данных.
+	 * @param monthlyUsageRebuilder  Сервис полного пересчета месячных агрегатов.
+	 * @param msisdnActivityFilter   Фильтр номеров абонентов, встречавшихся в записях вызовов.
+	 * @param objectMapper           Сериализатор JSON для потоковой выдачи отчетов.
+	 * @param eventPublisher         Публикатор события пересчета агрегатов.
 	 */
-	public UsageDataReportService(CallDataRecordRepository callDataRecordRepository) {
-		this.callDataRecordRepository = callDataRecordRepository;
+	public UsageDataReportService(MonthlyUsageRepository monthlyUsageRepository,
+								  UsageDataReportCache usageDataReportCache,
+								  MonthlyUsageRebuilder monthlyUsageRebuilder,
+								  MsisdnActivityFilter msisdnActivityFilter,
+								  ObjectMapper objectMapper,
+								  ApplicationEventPublisher eventPublisher) {
+		this.monthlyUsageRepository = monthlyUsageRepository;
+		this.usageDataReportCache = usageDataReportCache;
+		this.monthlyUsageRebuilder = monthlyUsageRebuilder;
+		this.msisdnActivityFilter = msisdnActivityFilter;
+		this.objectMapper = objectMapper;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -45,7 +77,7 @@ public class UsageDataReportService {
 	 *
 	 * @param msisdn Номер телефона абонента (должен содержать 11 цифр).
 	 * @param month  Месяц в формате "yyyy-MM" для отчета. Если null или пустой,
-	 *               возвращает все записи для указанного номера.
+	 *               возвращает итоги за все месяцы для указанного номера.
 	 * @return Отчет об использовании данных (входящие и исходящие вызовы).
 	 * @throws IncorrectPhoneNumberException Если номер телефона имеет неверную длину.
 	 * @throws NoDataToReceiveException Если нет данных для предоставления.
@@ -54,96 +86,188 @@ public class UsageDataReportService {
 		if (msisdn.length() != 11) {
 			throw new IncorrectPhoneNumberException();
 		}
-		LocalDateTime start;
-		LocalDateTime end;
-		List<CallDataRecord> records;
-		if (month == null || month.isEmpty()) {
-			records = callDataRecordRepository.findByMsisdn(msisdn);
-		} else {
-			start = LocalDateTime.parse(month + "-01T00:00:00", FORMATTER);
-			end = start.plusMonths(1).minusSeconds(1);
-			records = callDataRecordRepository.findByMsisdnAndDateRange(msisdn, start, end);
-		}
-		if (records.isEmpty()) {
+		YearMonth yearMonth = month == null || month.isEmpty() ? null : YearMonth.parse(month);
+		if (!msisdnActivityFilter.mightContain(msisdn, yearMonth)) {
 			throw new NoDataToReceiveException();
 		}
-		LocalTime incomingTime = LocalTime.of(0, 0, 0);
-		LocalTime outcomingTime = LocalTime.of(0, 0, 0);
-		for (CallDataRecord record : records) {
-			Duration duration = Duration.between(record.getStartTime(), record.getEndTime());
-			if (record.getCallType().equals("01")) {
-				if (record.getPhoneOne().equals(msisdn)) {
-					outcomingTime = outcomingTime.plus(duration);
-				}
-				if (record.getPhoneTwo().equals(msisdn)) {
-					incomingTime = incomingTime.plus(duration);
-				}
+		String billingMonth = yearMonth == null ? null : yearMonth.toString();
+		return usageDataReportCache.getReport(msisdn, billingMonth, () -> loadReport(msisdn, billingMonth));
+	}
+
+	/**
+	 * Получает отчет об использовании данных по всем нашим абонентам за запрошенный месяц.
+	 *
+	 * @param month Месяц в формате "yyyy-MM" для отчета.
+	 * @return Список отчетов об использовании данных для всех абонентов за указанный месяц.
+	 * @throws NoDataToReceiveException Если нет данных для предоставления.
+	 */
+	public List<UsageDataReportDTO> getUsageDataReportByMsisdn(String month) {
+		String billingMonth = YearMonth.parse(month).toString();
+		return usageDataReportCache.getReports(billingMonth, () -> loadReports(billingMonth));
+	}
+
+	/**
+	 * Проверяет номера пакетного запроса отчетов и отбирает те, по которым могут быть данные.
+	 * <p>
+	 * Повторяющиеся номера учитываются один раз, номера, для которых {@link MsisdnActivityFilter}
+	 * гарантирует отсутствие вызовов, отбрасываются без обращения к базе данных.
+	 * </p>
+	 *
+	 * @param msisdns Номера телефонов абонентов (должны содержать 11 цифр).
+	 * @param month   Месяц в формате "yyyy-MM". Если null или пустой, отчеты строятся за все месяцы.
+	 * @return Номера абонентов для {@link #writeUsageDataReports(List, String, OutputStream)},
+	 * упорядоченные по возрастанию.
+	 * @throws IncorrectPhoneNumberException Если какой-либо номер телефона имеет неверную длину.
+	 */
+	public List<String> prepareBatch(List<String> msisdns, String month) {
+		YearMonth yearMonth = month == null || month.isEmpty() ? null : YearMonth.parse(month);
+		for (String msisdn : msisdns) {
+			if (msisdn == null || msisdn.length() != 11) {
+				throw new IncorrectPhoneNumberException();
 			}
-			if (record.getCallType().equals("02")) {
-				if (record.getPhoneOne().equals(msisdn)) {
-					incomingTime = incomingTime.plus(duration);
+		}
+		List<String> batch = new ArrayList<>(new TreeSet<>(msisdns));
+		batch.removeIf(msisdn -> !msisdnActivityFilter.mightContain(msisdn, yearMonth));
+		return batch;
+	}
+
+	/**
+	 * Записывает отчеты об использовании данных по абонентам в поток вывода в формате NDJSON
+	 * (один отчет на строку) в порядке номеров.
+	 * <p>
+	 * Номера обрабатываются частями по {@value #BATCH_CHUNK_SIZE}: агрегаты каждой части читаются одним запросом
+	 * со списком номеров и суммируются за один проход, так как упорядочены по номеру. Каждая часть читается
+	 * в отдельной короткой транзакции, поэтому медленный клиент не удерживает соединение с базой данных.
+	 * Абоненты без данных пропускаются. Кэш отчетов не используется и не заполняется.
+	 * </p>
+	 *
+	 * @param msisdns      Номера абонентов, подготовленные {@link #prepareBatch(List, String)}.
+	 * @param month        Месяц в формате "yyyy-MM". Если null или пустой, отчеты строятся за все месяцы.
+	 * @param outputStream Поток вывода, в который записываются отчеты.
+	 * @throws IOException Если произошла ошибка записи.
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void writeUsageDataReports(List<String> msisdns, String month, OutputStream outputStream) throws IOException {
+		String billingMonth = month == null || month.isEmpty() ? null : YearMonth.parse(month).toString();
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.setRootValueSeparator(null)) {
+			for (int from = 0; from < msisdns.size(); from += BATCH_CHUNK_SIZE) {
+				List<String> chunk = msisdns.subList(from, Math.min(from + BATCH_CHUNK_SIZE, msisdns.size()));
+				List<MonthlyUsage> usages = billingMonth == null
+						? monthlyUsageRepository.findUsagesByMsisdnIn(chunk)
+						: monthlyUsageRepository.findUsagesByMonthAndMsisdnIn(billingMonth, chunk);
+				UsageDataReportDTO report = null;
+				for (MonthlyUsage usage : usages) {
+					if (report == null || !report.getMsisdn().equals(usage.getMsisdn())) {
+						if (report != null) {
+							writer.writeValue(generator, report);
+							generator.writeRaw('\n');
+						}
+						report = new UsageDataReportDTO(usage.getMsisdn());
+					}
+					report.plusIncomingSeconds(usage.getIncomingSeconds());
+					report.plusOutcomingSeconds(usage.getOutgoingSeconds());
 				}
-				if (record.getPhoneTwo().equals(msisdn)) {
-					outcomingTime = outcomingTime.plus(duration);
+				if (report != null) {
+					writer.writeValue(generator, report);
+					generator.writeRaw('\n');
 				}
 			}
 		}
-		return new UsageDataReportDTO(
-				msisdn,
-				new IncomingCallDTO(incomingTime),
-				new OutcomingCallDTO(outcomingTime)
-		);
 	}
 
 	/**
-	 * Получает отчет об использовании данных по всем нашим абонентам за запрошенный месяц
+	 * Пересчитывает месячные агрегаты из всех записей таблицы cdr и сбрасывает кэш отчетов.
+	 * Агрегаты архивных месяцев сохраняются без изменений.
+	 * Пересчет выполняется параллельно, если задано свойство {@code cdr.udr.rebuild-parallelism}
+	 * (см. {@link MonthlyUsageRebuilder}). Номера пересчитанных агрегатов добавляются в {@link MsisdnActivityFilter}.
+	 * Кэш отчетов сбрасывается по событию {@link MonthlyUsageRebuiltEvent} после фиксации транзакции,
+	 * чтобы отчеты, прочитанные до фиксации, не вернулись в кэш.
 	 *
-	 * @param month Месяц в формате "yyyy-MM" для отчета.
-	 * @return Список отчетов об использовании данных для всех абонентов за указанный месяц.
+	 * @return количество пересчитанных агрегатов
+	 */
+	@Transactional
+	public int rebuildMonthlyUsage() {
+		monthlyUsageRepository.deleteAllExceptArchivedMonths();
+		int count = monthlyUsageRebuilder.rebuild();
+		msisdnActivityFilter.load();
+		eventPublisher.publishEvent(new MonthlyUsageRebuiltEvent(count));
+		return count;
+	}
+
+	/**
+	 * Возвращает статистику кэша отчетов.
+	 *
+	 * @return статистика кэша отчетов по абоненту ("byMsisdn") и по месяцу ("byMonth")
+	 */
+	public Map<String, CacheStatsDTO> getCacheStats() {
+		return usageDataReportCache.stats();
+	}
+
+	/**
+	 * Строит отчет абонента по месячным агрегатам.
+	 *
+	 * @param msisdn       Номер телефона абонента.
+	 * @param billingMonth Месяц в формате "yyyy-MM" или {@code null} для отчета за все время.
+	 * @return Отчет об использовании данных.
 	 * @throws NoDataToReceiveException Если нет данных для предоставления.
 	 */
-	public List<UsageDataReportDTO> getUsageDataReportByMsisdn(String month) {
-		LocalDateTime start = LocalDateTime.parse(month + "-01T00:00:00", FORMATTER);
-		LocalDateTime end = start.plusMonths(1).minusSeconds(1);
-		List<CallDataRecord> records = callDataRecordRepository.findAllByDateRange(start, end);
-		Map<String, UsageDataReportDTO> map = new HashMap<>();
-		for (var record : records) {
-			String phoneOne = record.getPhoneOne();
-			String phoneTwo = record.getPhoneTwo();
-			Duration duration = Duration.between(record.getStartTime(), record.getEndTime());
-			String type = record.getCallType();
-			calculateTime(map, type, phoneOne, duration);
-			type = type.equals("01") ? "02" : "01";
-			calculateTime(map, type, phoneTwo, duration);
+	private UsageDataReportDTO loadReport(String msisdn, String billingMonth) {
+		List<MonthlyUsage> usages;
+		if (billingMonth == null) {
+			usages = monthlyUsageRepository.findAllByMsisdn(msisdn);
+		} else {
+			usages = monthlyUsageRepository.findById(new MonthlyUsageId(msisdn, billingMonth))
+					.map(List::of)
+					.orElse(Collections.emptyList());
 		}
-		if (map.isEmpty()) {
+		if (usages.isEmpty()) {
 			throw new NoDataToReceiveException();
 		}
-		return map.values().stream().toList();
+		long incomingSeconds = 0;
+		long outgoingSeconds = 0;
+		for (MonthlyUsage usage : usages) {
+			incomingSeconds += usage.getIncomingSeconds();
+			outgoingSeconds += usage.getOutgoingSeconds();
+		}
+		return toReport(msisdn, incomingSeconds, outgoingSeconds);
 	}
 
 	/**
-	 * Вычисляет время входящих и исходящих вызовов и обновляет отчет.
+	 * Строит отчеты всех абонентов за месяц по месячным агрегатам.
 	 *
-	 * @param map    Ассоциативный массив, содержащий отчеты об использовании данных по номерам телефонов.
-	 * @param type   Тип вызова ("01" для исходящего, "02" для входящего).
-	 * @param msisdn Номер телефона абонента.
-	 * @param duration Продолжительность вызова.
+	 * @param billingMonth Месяц в формате "yyyy-MM".
+	 * @return Список отчетов об использовании данных.
+	 * @throws NoDataToReceiveException Если нет данных для предоставления.
 	 */
-	private void calculateTime(Map<String, UsageDataReportDTO> map, String type,String msisdn, Duration duration) {
-		UsageDataReportDTO report;
-		if (map.containsKey(msisdn)) {
-			report = map.get(msisdn);
-		} else {
-			report = new UsageDataReportDTO(msisdn, new IncomingCallDTO(), new OutcomingCallDTO());
-		}
-		if (type.equals("01")) {
-			report.plusOutcomingTime(duration);
+	private List<UsageDataReportDTO> loadReports(String billingMonth) {
+		List<MonthlyUsage> usages = monthlyUsageRepository.findAllByMonthOrderByMsisdn(billingMonth);
+		if (usages.isEmpty()) {
+			throw new NoDataToReceiveException();
 		}
-		if (type.equals("02")) {
-			report.plusIncomingTime(duration);
+		List<UsageDataReportDTO> reports = new ArrayList<>(usages.size());
+		for (MonthlyUsage usage : usages) {
+			reports.add(toReport(usage.getMsisdn(), usage.getIncomingSeconds(), usage.getOutgoingSeconds()));
 		}
-		map.put(msisdn, report);
+		return reports;
+	}
+
+	/**
+	 * Создает отчет об использовании данных по итогам абонента.
+	 *
+	 * @param msisdn          Номер телефона абонента.
+	 * @param incomingSeconds Длительность входящих вызовов в секундах.
+	 * @param outgoingSeconds Длительность исходящих вызовов в секундах.
+	 * @return Отчет об использовании данных.
+	 */
+	private UsageDataReportDTO toReport(String msisdn, long incomingSeconds, long outgoingSeconds) {
+		return new UsageDataReportDTO(
+				msisdn,
+				new IncomingCallDTO(incomingSeconds),
+				new OutcomingCallDTO(outgoingSeconds)
+		);
 	}
 
 }
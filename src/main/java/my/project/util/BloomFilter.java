@@ -0,0 +1,122 @@
+package my.project.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по ключам типа {@code long}.
+ * <p>
+ * Отвечает, может ли ключ быть среди добавленных: ответ {@code false} точен, ответ {@code true}
+ * может быть ложноположительным. Размер битового массива и количество хеш-функций вычисляются
+ * по ожидаемому количеству ключей и допустимой доле ложноположительных ответов; при добавлении
+ * большего количества ключей доля ложноположительных ответов растет, ее текущую оценку
+ * возвращает {@link #expectedFalsePositiveRate()}. Позиции битов вычисляются двойным хешированием.
+ * Добавление и проверка не создают объектов и потокобезопасны.
+ * </p>
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitSize;
+	private final int hashCount;
+	private final AtomicLong bitsSet = new AtomicLong();
+
+	/**
+	 * Создает пустой фильтр.
+	 *
+	 * @param expectedInsertions ожидаемое количество ключей
+	 * @param falsePositiveRate  допустимая доля ложноположительных ответов при ожидаемом количестве ключей
+	 * @throws IllegalArgumentException если количество ключей не положительно, доля не в интервале (0, 1)
+	 *                                  или фильтр слишком велик
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+		}
+		double ln2 = Math.log(2);
+		long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+		long wordCount = (bits + 63) / 64;
+		if (wordCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bloom filter is too large: " + bits + " bits");
+		}
+		this.words = new AtomicLongArray((int) wordCount);
+		this.bitSize = wordCount * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+	}
+
+	/**
+	 * Добавляет ключ в фильтр.
+	 *
+	 * @param key ключ
+	 */
+	public void put(long key) {
+		long h1 = mix(key);
+		long h2 = mix(h1) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+			long mask = 1L << bit;
+			long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+			if ((previous & mask) == 0) {
+				bitsSet.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Проверяет, мог ли ключ быть добавлен в фильтр.
+	 *
+	 * @param key ключ
+	 * @return {@code false}, если ключ точно не добавлялся; {@code true}, если ключ мог быть добавлен
+	 */
+	public boolean mightContain(long key) {
+		long h1 = mix(key);
+		long h2 = mix(h1) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Оценивает долю ложноположительных ответов по текущему заполнению битового массива.
+	 *
+	 * @return оценка доли ложноположительных ответов от 0 до 1
+	 */
+	public double expectedFalsePositiveRate() {
+		return Math.pow((double) bitsSet.get() / bitSize, hashCount);
+	}
+
+	/**
+	 * Возвращает размер битового массива.
+	 *
+	 * @return количество бит
+	 */
+	public long bitSize() {
+		return bitSize;
+	}
+
+	/**
+	 * Возвращает количество хеш-функций.
+	 *
+	 * @return количество бит, устанавливаемых для одного ключа
+	 */
+	public int hashCount() {
+		return hashCount;
+	}
+
+	private static long mix(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,132 @@
+package my.project.util;
+
+import my.project.dto.CacheStatsDTO;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный кэш с ограничением по размеру и сроку жизни записей.
+ * <p>
+ * При превышении максимального размера вытесняется запись, к которой дольше всего не обращались (LRU).
+ * Записи старше заданного срока жизни считаются отсутствующими и удаляются при обращении.
+ * Кэш ведет счетчики попаданий, промахов и вытеснений.
+ * </p>
+ * <p>
+ * Каждый сброс записей увеличивает поколение кэша. Значение, загрузка которого началась до сброса,
+ * не сохраняется, поэтому загрузка, прочитавшая данные до их изменения, не возвращает в кэш устаревшее значение.
+ * </p>
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class BoundedCache<K, V> {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long generation;
+
+	/**
+	 * Конструктор кэша.
+	 *
+	 * @param maxSize максимальное количество записей
+	 * @param ttl     срок жизни записи
+	 */
+	public BoundedCache(int maxSize, Duration ttl) {
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Возвращает значение из кэша или вычисляет и сохраняет его при отсутствии.
+	 * <p>
+	 * Значение вычисляется вне блокировки кэша, поэтому медленная загрузка не блокирует других читателей.
+	 * Если во время вычисления записи кэша были сброшены, вычисленное значение возвращается, но не сохраняется.
+	 * Исключения, выброшенные при вычислении, не кэшируются.
+	 * </p>
+	 *
+	 * @param key    ключ
+	 * @param loader функция вычисления значения
+	 * @return значение из кэша или вычисленное значение
+	 */
+	public V get(K key, Supplier<V> loader) {
+		long loadGeneration = generation();
+		V value = getIfPresent(key);
+		if (value == null) {
+			value = loader.get();
+			put(key, value, loadGeneration);
+		}
+		return value;
+	}
+
+	/**
+	 * Удаляет запись с указанным ключом.
+	 *
+	 * @param key ключ
+	 */
+	public synchronized void invalidate(K key) {
+		entries.remove(key);
+		generation++;
+	}
+
+	/**
+	 * Удаляет все записи.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		generation++;
+	}
+
+	/**
+	 * Возвращает статистику кэша.
+	 *
+	 * @return статистика попаданий, промахов, вытеснений и текущий размер
+	 */
+	public synchronized CacheStatsDTO stats() {
+		return new CacheStatsDTO(hits, misses, evictions, entries.size());
+	}
+
+	private synchronized V getIfPresent(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && System.nanoTime() - entry.createdAt > ttlNanos) {
+			entries.remove(key);
+			evictions++;
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	private synchronized long generation() {
+		return generation;
+	}
+
+	private synchronized void put(K key, V value, long loadGeneration) {
+		if (generation != loadGeneration) {
+			return;
+		}
+		entries.put(key, new Entry<>(value, System.nanoTime()));
+		Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+		while (entries.size() > maxSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	private record Entry<V>(V value, long createdAt) {
+	}
+}
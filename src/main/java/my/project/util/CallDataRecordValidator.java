@@ -0,0 +1,47 @@
+package my.project.util;
+
+import my.project.entity.CallDataRecord;
+
+/**
+ * Проверяет корректность загружаемых записей данных вызовов.
+ */
+public final class CallDataRecordValidator {
+
+	private CallDataRecordValidator() {
+	}
+
+	/**
+	 * Проверяет корректность записи данных вызова: тип вызова "01" или "02",
+	 * номера телефонов из 11 цифр, время окончания не раньше времени начала.
+	 *
+	 * @param record запись данных вызова
+	 * @return {@code true}, если запись можно сохранить
+	 */
+	public static boolean isValid(CallDataRecord record) {
+		return ("01".equals(record.getCallType()) || "02".equals(record.getCallType()))
+				&& isMsisdn(record.getPhoneOne())
+				&& isMsisdn(record.getPhoneTwo())
+				&& record.getStartTime() != null
+				&& record.getEndTime() != null
+				&& !record.getEndTime().isBefore(record.getStartTime());
+	}
+
+	/**
+	 * Проверяет, что номер телефона состоит из 11 цифр.
+	 *
+	 * @param msisdn номер телефона
+	 * @return {@code true}, если номер корректен
+	 */
+	public static boolean isMsisdn(String msisdn) {
+		if (msisdn == null || msisdn.length() != 11) {
+			return false;
+		}
+		for (int i = 0; i < msisdn.length(); i++) {
+			char c = msisdn.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+}
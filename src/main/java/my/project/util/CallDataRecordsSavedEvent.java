@@ -0,0 +1,17 @@
+package my.project.util;
+
+import my.project.entity.MonthlyUsageId;
+
+import java.util.Set;
+
+/**
+ * Событие, публикуемое после сохранения пакета записей данных вызовов.
+ * <p>
+ * Содержит пары (абонент, месяц), итоги которых изменились, чтобы зависимые
+ * компоненты (например, кэш отчетов UDR) могли точечно сбросить устаревшие данные.
+ * </p>
+ *
+ * @param affected пары (абонент, месяц), затронутые сохраненными записями
+ */
+public record CallDataRecordsSavedEvent(Set<MonthlyUsageId> affected) {
+}
@@ -0,0 +1,66 @@
+package my.project.util;
+
+/**
+ * Форматирование суммарной длительности вызовов.
+ * <p>
+ * Длительность выводится в виде {@code HH:mm:ss}, где количество часов не ограничено 24
+ * и содержит не меньше двух цифр, например {@code 00:05:30} или {@code 137:02:09}.
+ * </p>
+ */
+public final class CallDurationFormat {
+
+	private CallDurationFormat() {
+	}
+
+	/**
+	 * Форматирует длительность в секундах.
+	 *
+	 * @param seconds неотрицательная длительность в секундах
+	 * @return длительность в формате {@code HH:mm:ss}
+	 * @throws IllegalArgumentException если длительность отрицательная
+	 */
+	public static String format(long seconds) {
+		if (seconds < 0) {
+			throw new IllegalArgumentException("Negative duration: " + seconds);
+		}
+		long hours = seconds / 3600;
+		int minutes = (int) (seconds / 60 % 60);
+		int rest = (int) (seconds % 60);
+		StringBuilder builder = new StringBuilder(12);
+		if (hours < 10) {
+			builder.append('0');
+		}
+		builder.append(hours).append(':');
+		appendTwoDigits(builder, minutes).append(':');
+		return appendTwoDigits(builder, rest).toString();
+	}
+
+	/**
+	 * Разбирает длительность в формате {@code HH:mm:ss}.
+	 *
+	 * @param value длительность в формате {@code HH:mm:ss}, часов может быть больше 24
+	 * @return длительность в секундах
+	 * @throws IllegalArgumentException если строка не соответствует формату
+	 */
+	public static long parse(String value) {
+		String[] parts = value.split(":");
+		if (parts.length != 3 || parts[1].length() != 2 || parts[2].length() != 2) {
+			throw new IllegalArgumentException("Incorrect duration: " + value);
+		}
+		try {
+			long hours = Long.parseLong(parts[0]);
+			int minutes = Integer.parseInt(parts[1]);
+			int seconds = Integer.parseInt(parts[2]);
+			if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+				throw new IllegalArgumentException("Incorrect duration: " + value);
+			}
+			return hours * 3600 + minutes * 60L + seconds;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Incorrect duration: " + value, e);
+		}
+	}
+
+	private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+		return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+}
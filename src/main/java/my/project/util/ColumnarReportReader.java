@@ -0,0 +1,138 @@
+package my.project.util;
+
+import my.project.entity.CallDataRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Читает CDR отчет, записанный {@link ColumnarReportWriter}.
+ * <p>
+ * Записи читаются по одной, в памяти хранится только текущий блок и словарь строк.
+ * Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class ColumnarReportReader implements Closeable {
+
+	private final InputStream in;
+	private final List<String> dictionary = new ArrayList<>();
+	private final int[] callTypes = new int[ColumnarReportWriter.BLOCK_SIZE];
+	private final int[] phoneOnes = new int[ColumnarReportWriter.BLOCK_SIZE];
+	private final int[] phoneTwos = new int[ColumnarReportWriter.BLOCK_SIZE];
+	private final long[] starts = new long[ColumnarReportWriter.BLOCK_SIZE];
+	private final long[] durations = new long[ColumnarReportWriter.BLOCK_SIZE];
+	private int rows;
+	private int position;
+	private long previousStart;
+	private boolean finished;
+
+	/**
+	 * Конструктор. Сразу читает и проверяет заголовок формата.
+	 *
+	 * @param in поток с отчетом (желательно буферизованный)
+	 * @throws IOException если поток не содержит отчет в поколоночном формате
+	 */
+	public ColumnarReportReader(InputStream in) throws IOException {
+		this.in = in;
+		byte[] magic = in.readNBytes(ColumnarReportWriter.MAGIC.length);
+		if (!Arrays.equals(magic, ColumnarReportWriter.MAGIC) || in.read() != ColumnarReportWriter.VERSION) {
+			throw new IOException("Not a columnar CDR report");
+		}
+	}
+
+	/**
+	 * Читает следующую запись отчета.
+	 *
+	 * @return запись данных вызова или {@code null}, если записи закончились
+	 * @throws IOException если произошла ошибка чтения или файл поврежден
+	 */
+	public CallDataRecord read() throws IOException {
+		if (position == rows) {
+			if (finished || !readBlock()) {
+				return null;
+			}
+		}
+		int i = position++;
+		LocalDateTime start = LocalDateTime.ofEpochSecond(starts[i], 0, ZoneOffset.UTC);
+		return new CallDataRecord(
+				dictionary.get(callTypes[i]),
+				dictionary.get(phoneOnes[i]),
+				dictionary.get(phoneTwos[i]),
+				start,
+				start.plusSeconds(durations[i]));
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private boolean readBlock() throws IOException {
+		rows = (int) readVarint();
+		position = 0;
+		if (rows == 0) {
+			finished = true;
+			return false;
+		}
+		if (rows > ColumnarReportWriter.BLOCK_SIZE) {
+			throw new IOException("Corrupted columnar CDR report: block of " + rows + " rows");
+		}
+		int newEntries = (int) readVarint();
+		for (int i = 0; i < newEntries; i++) {
+			int length = (int) readVarint();
+			byte[] bytes = in.readNBytes(length);
+			if (bytes.length != length) {
+				throw new EOFException();
+			}
+			dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+		readIndexes(callTypes);
+		readIndexes(phoneOnes);
+		readIndexes(phoneTwos);
+		for (int i = 0; i < rows; i++) {
+			previousStart += unzigzag(readVarint());
+			starts[i] = previousStart;
+		}
+		for (int i = 0; i < rows; i++) {
+			durations[i] = unzigzag(readVarint());
+		}
+		return true;
+	}
+
+	private void readIndexes(int[] column) throws IOException {
+		for (int i = 0; i < rows; i++) {
+			long index = readVarint();
+			if (index >= dictionary.size()) {
+				throw new IOException("Corrupted columnar CDR report: dictionary index " + index);
+			}
+			column[i] = (int) index;
+		}
+	}
+
+	private long readVarint() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Corrupted columnar CDR report: varint is too long");
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
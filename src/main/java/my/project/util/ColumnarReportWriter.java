@@ -0,0 +1,126 @@
+package my.project.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Записывает CDR отчет в двоичном поколоночном формате.
+ * <p>
+ * Файл начинается с сигнатуры {@code CDRC} и байта версии, за которыми следуют блоки
+ * до {@value #BLOCK_SIZE} строк. Блок состоит из количества строк, новых записей словаря
+ * и пяти колонок подряд: тип вызова, первый и второй номер (индексы в словаре строк),
+ * время начала (разность с началом предыдущей строки в секундах UTC) и длительность в секундах.
+ * Все числа записываются как varint, знаковые - с zigzag-кодированием.
+ * Файл завершается блоком из нуля строк. Время хранится с точностью до секунды.
+ * Прочитать файл можно с помощью {@link ColumnarReportReader}. Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class ColumnarReportWriter implements ReportRowWriter {
+
+	static final byte[] MAGIC = {'C', 'D', 'R', 'C'};
+	static final int VERSION = 1;
+	static final int BLOCK_SIZE = 4096;
+
+	private final OutputStream out;
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final List<String> newEntries = new ArrayList<>();
+	private final int[] callTypes = new int[BLOCK_SIZE];
+	private final int[] phoneOnes = new int[BLOCK_SIZE];
+	private final int[] phoneTwos = new int[BLOCK_SIZE];
+	private final long[] starts = new long[BLOCK_SIZE];
+	private final long[] durations = new long[BLOCK_SIZE];
+	private int rows;
+	private long previousStart;
+
+	/**
+	 * Конструктор. Сразу записывает в поток заголовок формата.
+	 *
+	 * @param out поток, в который записывается отчет
+	 * @throws IOException если произошла ошибка записи
+	 */
+	public ColumnarReportWriter(OutputStream out) throws IOException {
+		this.out = out;
+		out.write(MAGIC);
+		out.write(VERSION);
+	}
+
+	@Override
+	public void writeRow(String callType, String phoneOne, String phoneTwo,
+						 LocalDateTime startTime, LocalDateTime endTime) throws IOException {
+		long start = startTime.toEpochSecond(ZoneOffset.UTC);
+		callTypes[rows] = index(callType);
+		phoneOnes[rows] = index(phoneOne);
+		phoneTwos[rows] = index(phoneTwo);
+		starts[rows] = start;
+		durations[rows] = endTime.toEpochSecond(ZoneOffset.UTC) - start;
+		if (++rows == BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (rows > 0) {
+			writeBlock();
+		}
+		writeVarint(0);
+		out.flush();
+	}
+
+	private int index(String value) {
+		Integer index = dictionary.get(value);
+		if (index == null) {
+			index = dictionary.size();
+			dictionary.put(value, index);
+			newEntries.add(value);
+		}
+		return index;
+	}
+
+	private void writeBlock() throws IOException {
+		writeVarint(rows);
+		writeVarint(newEntries.size());
+		for (String entry : newEntries) {
+			byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length);
+			out.write(bytes);
+		}
+		newEntries.clear();
+		for (int i = 0; i < rows; i++) {
+			writeVarint(callTypes[i]);
+		}
+		for (int i = 0; i < rows; i++) {
+			writeVarint(phoneOnes[i]);
+		}
+		for (int i = 0; i < rows; i++) {
+			writeVarint(phoneTwos[i]);
+		}
+		for (int i = 0; i < rows; i++) {
+			writeVarint(zigzag(starts[i] - previousStart));
+			previousStart = starts[i];
+		}
+		for (int i = 0; i < rows; i++) {
+			writeVarint(zigzag(durations[i]));
+		}
+		rows = 0;
+	}
+
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+}
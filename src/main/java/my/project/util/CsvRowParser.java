@@ -0,0 +1,174 @@
+package my.project.util;
+
+import my.project.entity.CallDataRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Разбирает строки CDR в формате {@code callType,phoneOne,phoneTwo,start,end},
+ * в котором их записывает {@link CsvRowWriter}.
+ * <p>
+ * Время в формате {@code yyyy-MM-ddTHH:mm:ss} разбирается напрямую по символам,
+ * остальные варианты ISO формата - через {@link LocalDateTime#parse(CharSequence)}.
+ * Строки могут разбираться как из {@link String}, так и напрямую из {@link ByteBuffer}
+ * (например, отображенного в память файла) без предварительного декодирования строки целиком.
+ * </p>
+ */
+public final class CsvRowParser {
+
+	private static final int FIELDS = 5;
+
+	private CsvRowParser() {
+	}
+
+	/**
+	 * Разбирает одну строку CDR.
+	 *
+	 * @param line строка без разделителя строк
+	 * @return запись данных вызова без идентификатора
+	 * @throws IllegalArgumentException если строка не соответствует формату
+	 */
+	public static CallDataRecord parse(String line) {
+		String[] fields = new String[FIELDS];
+		int from = 0;
+		for (int i = 0; i < FIELDS - 1; i++) {
+			int comma = line.indexOf(',', from);
+			if (comma < 0) {
+				throw new IllegalArgumentException("expected " + FIELDS + " fields");
+			}
+			fields[i] = line.substring(from, comma).trim();
+			from = comma + 1;
+		}
+		if (line.indexOf(',', from) >= 0) {
+			throw new IllegalArgumentException("expected " + FIELDS + " fields");
+		}
+		fields[FIELDS - 1] = line.substring(from).trim();
+		return new CallDataRecord(fields[0], fields[1], fields[2], parseDateTime(fields[3]), parseDateTime(fields[4]));
+	}
+
+	/**
+	 * Разбирает одну строку CDR из буфера байт в кодировке ASCII/UTF-8.
+	 * Завершающий символ {@code '\r'} игнорируется. Позиция буфера не изменяется.
+	 *
+	 * @param buffer буфер с данными
+	 * @param start  индекс первого байта строки
+	 * @param end    индекс байта, следующего за последним байтом строки
+	 * @return запись данных вызова без идентификатора
+	 * @throws IllegalArgumentException если строка не соответствует формату
+	 */
+	public static CallDataRecord parse(ByteBuffer buffer, int start, int end) {
+		if (end > start && buffer.get(end - 1) == '\r') {
+			end--;
+		}
+		int[] bounds = new int[FIELDS + 1];
+		bounds[0] = start;
+		int field = 1;
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == ',') {
+				if (field == FIELDS) {
+					throw new IllegalArgumentException("expected " + FIELDS + " fields");
+				}
+				bounds[field++] = i + 1;
+			}
+		}
+		if (field != FIELDS) {
+			throw new IllegalArgumentException("expected " + FIELDS + " fields");
+		}
+		bounds[FIELDS] = end + 1;
+		return new CallDataRecord(
+				callType(buffer, bounds[0], bounds[1] - 1),
+				string(buffer, bounds[1], bounds[2] - 1),
+				string(buffer, bounds[2], bounds[3] - 1),
+				parseDateTime(buffer, bounds[3], bounds[4] - 1),
+				parseDateTime(buffer, bounds[4], bounds[5] - 1));
+	}
+
+	private static String callType(ByteBuffer buffer, int start, int end) {
+		if (end - start == 2 && buffer.get(start) == '0') {
+			if (buffer.get(start + 1) == '1') {
+				return "01";
+			}
+			if (buffer.get(start + 1) == '2') {
+				return "02";
+			}
+		}
+		return string(buffer, start, end);
+	}
+
+	private static String string(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8).trim();
+	}
+
+	private static LocalDateTime parseDateTime(ByteBuffer buffer, int start, int end) {
+		if (end - start == 19 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-'
+				&& buffer.get(start + 10) == 'T' && buffer.get(start + 13) == ':' && buffer.get(start + 16) == ':') {
+			int year = digits(buffer, start, 4);
+			int month = digits(buffer, start + 5, 2);
+			int day = digits(buffer, start + 8, 2);
+			int hour = digits(buffer, start + 11, 2);
+			int minute = digits(buffer, start + 14, 2);
+			int second = digits(buffer, start + 17, 2);
+			if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+				try {
+					return LocalDateTime.of(year, month, day, hour, minute, second);
+				} catch (RuntimeException e) {
+					throw new IllegalArgumentException("invalid date");
+				}
+			}
+		}
+		return parseDateTime(string(buffer, start, end));
+	}
+
+	private static int digits(ByteBuffer buffer, int offset, int length) {
+		int result = 0;
+		for (int i = offset; i < offset + length; i++) {
+			byte b = buffer.get(i);
+			if (b < '0' || b > '9') {
+				return -1;
+			}
+			result = result * 10 + (b - '0');
+		}
+		return result;
+	}
+
+	private static LocalDateTime parseDateTime(String value) {
+		if (value.length() == 19 && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+				&& value.charAt(13) == ':' && value.charAt(16) == ':') {
+			int year = digits(value, 0, 4);
+			int month = digits(value, 5, 2);
+			int day = digits(value, 8, 2);
+			int hour = digits(value, 11, 2);
+			int minute = digits(value, 14, 2);
+			int second = digits(value, 17, 2);
+			if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+				try {
+					return LocalDateTime.of(year, month, day, hour, minute, second);
+				} catch (RuntimeException e) {
+					throw new IllegalArgumentException("invalid date " + value);
+				}
+			}
+		}
+		try {
+			return LocalDateTime.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("invalid date " + value);
+		}
+	}
+
+	private static int digits(String value, int offset, int length) {
+		int result = 0;
+		for (int i = offset; i < offset + length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+}
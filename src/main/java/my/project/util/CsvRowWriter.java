@@ -0,0 +1,108 @@
+package my.project.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Записывает строки CDR отчета в формате {@code callType,phoneOne,phoneTwo,start,end}.
+ * <p>
+ * Строка собирается в переиспользуемом буфере символов, а время записывается
+ * в формате {@code yyyy-MM-ddTHH:mm:ss} напрямую в буфер, без создания промежуточных строк.
+ * Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class CsvRowWriter implements ReportRowWriter {
+
+	private final Writer writer;
+	private final String lineSeparator;
+	private char[] buffer = new char[128];
+	private int position;
+
+	/**
+	 * Конструктор.
+	 *
+	 * @param writer        поток, в который записываются строки
+	 * @param lineSeparator разделитель, записываемый после каждой строки
+	 */
+	public CsvRowWriter(Writer writer, String lineSeparator) {
+		this.writer = writer;
+		this.lineSeparator = lineSeparator;
+	}
+
+	/**
+	 * Записывает одну строку отчета.
+	 *
+	 * @param callType  тип вызова
+	 * @param phoneOne  номер телефона, инициирующий вызов
+	 * @param phoneTwo  номер телефона, принимающий вызов
+	 * @param startTime время начала вызова
+	 * @param endTime   время окончания вызова
+	 * @throws IOException если произошла ошибка записи
+	 */
+	@Override
+	public void writeRow(String callType, String phoneOne, String phoneTwo,
+						 LocalDateTime startTime, LocalDateTime endTime) throws IOException {
+		position = 0;
+		ensureCapacity(callType.length() + phoneOne.length() + phoneTwo.length() + lineSeparator.length() + 64);
+		appendString(callType);
+		buffer[position++] = ',';
+		appendString(phoneOne);
+		buffer[position++] = ',';
+		appendString(phoneTwo);
+		buffer[position++] = ',';
+		appendDateTime(startTime);
+		buffer[position++] = ',';
+		appendDateTime(endTime);
+		appendString(lineSeparator);
+		writer.write(buffer, 0, position);
+	}
+
+	/**
+	 * Сбрасывает буфер {@link Writer} в нижележащий поток.
+	 *
+	 * @throws IOException если произошла ошибка записи
+	 */
+	@Override
+	public void finish() throws IOException {
+		writer.flush();
+	}
+
+	private void appendString(String value) {
+		value.getChars(0, value.length(), buffer, position);
+		position += value.length();
+	}
+
+	private void appendDateTime(LocalDateTime dateTime) {
+		int year = dateTime.getYear();
+		if (year < 0 || year > 9999) {
+			appendString(dateTime.withNano(0).toString());
+			return;
+		}
+		appendDigits(year, 4);
+		buffer[position++] = '-';
+		appendDigits(dateTime.getMonthValue(), 2);
+		buffer[position++] = '-';
+		appendDigits(dateTime.getDayOfMonth(), 2);
+		buffer[position++] = 'T';
+		appendDigits(dateTime.getHour(), 2);
+		buffer[position++] = ':';
+		appendDigits(dateTime.getMinute(), 2);
+		buffer[position++] = ':';
+		appendDigits(dateTime.getSecond(), 2);
+	}
+
+	private void appendDigits(int value, int width) {
+		for (int i = position + width - 1; i >= position; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		position += width;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (buffer.length < capacity) {
+			buffer = new char[capacity];
+		}
+	}
+}
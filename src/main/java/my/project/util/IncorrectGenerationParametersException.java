@@ -0,0 +1,11 @@
+package my.project.util;
+
+/**
+ * Исключение, которое выбрасывается, когда параметры генерации записей вызовов некорректны.
+ * <p>
+ * Это исключение является подклассом {@link RuntimeException} и используется для
+ * сигнализации о том, что количество абонентов, месяцев или вызовов в день выходит за допустимые пределы.
+ * </p>
+ */
+public class IncorrectGenerationParametersException extends RuntimeException {
+}
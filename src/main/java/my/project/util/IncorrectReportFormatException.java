@@ -0,0 +1,11 @@
+package my.project.util;
+
+/**
+ * Исключение, которое выбрасывается, когда запрошен неизвестный формат отчета.
+ * <p>
+ * Это исключение является подклассом {@link RuntimeException} и используется для
+ * сигнализации о том, что значение параметра format не соответствует ни одному из {@link ReportFormat}.
+ * </p>
+ */
+public class IncorrectReportFormatException extends RuntimeException {
+}
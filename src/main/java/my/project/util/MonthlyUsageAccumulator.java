@@ -0,0 +1,190 @@
+package my.project.util;
+
+import my.project.entity.CallDataRecord;
+import my.project.entity.CallType;
+import my.project.entity.MonthlyUsage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Накапливает длительность вызовов по абонентам и месяцам.
+ * <p>
+ * Используется для вычисления приращений месячных агрегатов {@link MonthlyUsage}
+ * по пакету сохраняемых записей. Для типа "01" phone_one - исходящая сторона,
+ * phone_two - входящая; для типа "02" - наоборот. Вызов относится к месяцу времени начала,
+ * даже если заканчивается в следующем месяце.
+ * </p>
+ * <p>
+ * Номер из 11 цифр и месяц кодируются в одно число {@code long}, итоги накапливаются
+ * в {@link UsageTotalsTable}. Номер, тип, время начала и длительность берутся из записи
+ * в хранимом числовом виде, поэтому добавление записи не создает объектов.
+ * Агрегаты и строки номеров и месяцев создаются только в {@link #toMonthlyUsage()}.
+ * </p>
+ * <p>
+ * Накопитель, созданный со снимком справочника абонентов {@link MsisdnIndex}, хранит итоги абонентов
+ * справочника в массивах месяца по их плотному идентификатору, без хеширования; итоги номеров,
+ * отсутствующих в справочнике, накапливаются в {@link UsageTotalsTable}. Массив месяца занимает
+ * 16 байт на абонента справочника, поэтому такой накопитель используется для полного пересчета
+ * агрегатов, а не для пакета сохраняемых записей.
+ * </p>
+ */
+public class MonthlyUsageAccumulator {
+
+	private static final long MSISDN_RANGE = 100_000_000_000L;
+	private static final long SECONDS_PER_DAY = 86_400;
+
+	private final UsageTotalsTable totals = new UsageTotalsTable();
+	private final MsisdnIndex subscribers;
+	private final Map<Integer, SubscriberTotals> subscriberTotals = new HashMap<>();
+	private int lastMonth;
+	private SubscriberTotals lastSubscriberTotals;
+
+	/**
+	 * Создает накопитель, хранящий итоги всех номеров в хеш-таблице.
+	 */
+	public MonthlyUsageAccumulator() {
+		this(null);
+	}
+
+	/**
+	 * Создает накопитель, хранящий итоги абонентов справочника в массивах по идентификатору.
+	 *
+	 * @param subscribers снимок справочника абонентов или {@code null}
+	 */
+	public MonthlyUsageAccumulator(MsisdnIndex subscribers) {
+		this.subscribers = subscribers;
+	}
+
+	/**
+	 * Добавляет длительность вызова к итогам обеих сторон вызова.
+	 *
+	 * @param record запись данных вызова
+	 * @throws IllegalArgumentException если номер телефона записи не из 11 цифр
+	 */
+	public void add(CallDataRecord record) {
+		LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(record.getStartEpochSecond(), SECONDS_PER_DAY));
+		int month = day.getYear() * 12 + day.getMonthValue() - 1;
+		long seconds = record.getDuration();
+		if (record.getType() == CallType.OUTGOING) {
+			add(record.getPhoneOneNumber(), month, 0, seconds);
+			add(record.getPhoneTwoNumber(), month, seconds, 0);
+		}
+		if (record.getType() == CallType.INCOMING) {
+			add(record.getPhoneOneNumber(), month, seconds, 0);
+			add(record.getPhoneTwoNumber(), month, 0, seconds);
+		}
+	}
+
+	/**
+	 * Прибавляет к итогам этого накопителя все итоги другого накопителя.
+	 * Используется для слияния итогов, накопленных параллельно по частям записей.
+	 *
+	 * @param other накопитель, итоги которого добавляются
+	 */
+	public void addAll(MonthlyUsageAccumulator other) {
+		totals.addAll(other.totals);
+		other.subscriberTotals.forEach((month, monthTotals) -> {
+			if (other.subscribers == subscribers) {
+				subscriberTotals(month).addAll(monthTotals);
+			} else {
+				monthTotals.forEach((id, incomingSeconds, outgoingSeconds) ->
+						add(other.subscribers.msisdnOf((int) id), month, incomingSeconds, outgoingSeconds));
+			}
+		});
+	}
+
+	/**
+	 * Возвращает накопленные итоги в виде месячных агрегатов.
+	 *
+	 * @return список агрегатов, по одному на каждую пару (абонент, месяц)
+	 */
+	public List<MonthlyUsage> toMonthlyUsage() {
+		List<MonthlyUsage> result = new ArrayList<>(totals.size());
+		totals.forEach((key, incomingSeconds, outgoingSeconds) -> result.add(new MonthlyUsage(
+				CallDataRecord.toMsisdn(key % MSISDN_RANGE), month((int) (key / MSISDN_RANGE)),
+				incomingSeconds, outgoingSeconds)));
+		subscriberTotals.forEach((month, monthTotals) -> {
+			String monthName = month(month);
+			monthTotals.forEach((id, incomingSeconds, outgoingSeconds) -> result.add(new MonthlyUsage(
+					CallDataRecord.toMsisdn(subscribers.msisdnOf((int) id)), monthName,
+					incomingSeconds, outgoingSeconds)));
+		});
+		return result;
+	}
+
+	private void add(long number, int month, long incomingSeconds, long outgoingSeconds) {
+		if (number < 0 || number >= MSISDN_RANGE) {
+			throw new IllegalArgumentException("Invalid msisdn: " + number);
+		}
+		int id = subscribers == null ? -1 : subscribers.idOf(number);
+		if (id >= 0) {
+			subscriberTotals(month).add(id, incomingSeconds, outgoingSeconds);
+		} else {
+			totals.add(month * MSISDN_RANGE + number, incomingSeconds, outgoingSeconds);
+		}
+	}
+
+	/**
+	 * Возвращает массивы итогов абонентов справочника за месяц, создавая их при первом обращении.
+	 * Записи обычно упорядочены по времени, поэтому массивы последнего месяца запоминаются.
+	 *
+	 * @param month месяц в виде {@code год * 12 + номер месяца - 1}
+	 * @return итоги абонентов за месяц
+	 */
+	private SubscriberTotals subscriberTotals(int month) {
+		if (lastSubscriberTotals == null || lastMonth != month) {
+			lastSubscriberTotals = subscriberTotals.computeIfAbsent(month, m -> new SubscriberTotals(subscribers.size()));
+			lastMonth = month;
+		}
+		return lastSubscriberTotals;
+	}
+
+	private static String month(int month) {
+		return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1).toString();
+	}
+
+	/**
+	 * Итоги абонентов справочника за один месяц: длительность входящих и исходящих вызовов абонента
+	 * хранится в элементах {@code 2 * id} и {@code 2 * id + 1}, наличие вызовов абонента - в битовой маске,
+	 * поэтому абонент с вызовами нулевой длительности тоже получает агрегат.
+	 */
+	private static final class SubscriberTotals {
+
+		private final long[] seconds;
+		private final long[] used;
+
+		SubscriberTotals(int size) {
+			this.seconds = new long[size * 2];
+			this.used = new long[(size + 63) >>> 6];
+		}
+
+		void add(int id, long incomingSeconds, long outgoingSeconds) {
+			seconds[id * 2] += incomingSeconds;
+			seconds[id * 2 + 1] += outgoingSeconds;
+			used[id >>> 6] |= 1L << id;
+		}
+
+		void addAll(SubscriberTotals other) {
+			for (int i = 0; i < seconds.length; i++) {
+				seconds[i] += other.seconds[i];
+			}
+			for (int i = 0; i < used.length; i++) {
+				used[i] |= other.used[i];
+			}
+		}
+
+		void forEach(UsageTotalsTable.EntryConsumer consumer) {
+			for (int word = 0; word < used.length; word++) {
+				for (long bits = used[word]; bits != 0; bits &= bits - 1) {
+					int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+					consumer.accept(id, seconds[id * 2], seconds[id * 2 + 1]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package my.project.util;
+
+/**
+ * Событие, публикуемое после пересчета месячных агрегатов.
+ * <p>
+ * Позволяет кэшу отчетов UDR сбросить все отчеты после фиксации транзакции пересчета.
+ * </p>
+ *
+ * @param count количество пересчитанных агрегатов
+ */
+public record MonthlyUsageRebuiltEvent(int count) {
+}
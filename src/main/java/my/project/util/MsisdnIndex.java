@@ -0,0 +1,92 @@
+package my.project.util;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемое отображение номеров абонентов в плотные идентификаторы {@code 0..size()-1}.
+ * <p>
+ * Номера хранятся числами в хеш-таблице с открытой адресацией и линейным пробированием,
+ * идентификатор номера - его позиция в исходном массиве, поэтому обратное отображение - обращение к массиву.
+ * Поиск не создает объектов. Экземпляр не изменяется после создания и может использоваться
+ * из нескольких потоков.
+ * </p>
+ */
+public final class MsisdnIndex {
+
+	private static final long EMPTY = -1;
+
+	private final long[] msisdns;
+	private final long[] keys;
+	private final int[] ids;
+	private final int mask;
+
+	/**
+	 * Создает индекс номеров. Для повторяющегося номера {@link #idOf(long)} возвращает
+	 * идентификатор его первого вхождения.
+	 *
+	 * @param msisdns неотрицательные номера в виде чисел в порядке идентификаторов
+	 * @throws IllegalArgumentException если номер отрицательный
+	 */
+	public MsisdnIndex(long[] msisdns) {
+		this.msisdns = msisdns.clone();
+		int capacity = Integer.highestOneBit(Math.max(msisdns.length, 4) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		this.ids = new int[capacity];
+		this.mask = capacity - 1;
+		for (int id = 0; id < msisdns.length; id++) {
+			long msisdn = msisdns[id];
+			if (msisdn < 0) {
+				throw new IllegalArgumentException("Negative msisdn: " + msisdn);
+			}
+			int slot = slot(msisdn);
+			if (keys[slot] == EMPTY) {
+				keys[slot] = msisdn;
+				ids[slot] = id;
+			}
+		}
+	}
+
+	/**
+	 * Находит идентификатор номера.
+	 *
+	 * @param msisdn номер в виде числа
+	 * @return идентификатор или -1, если номера нет в индексе
+	 */
+	public int idOf(long msisdn) {
+		if (msisdn < 0) {
+			return -1;
+		}
+		int slot = slot(msisdn);
+		return keys[slot] == EMPTY ? -1 : ids[slot];
+	}
+
+	/**
+	 * Возвращает номер по идентификатору.
+	 *
+	 * @param id идентификатор
+	 * @return номер в виде числа
+	 * @throws ArrayIndexOutOfBoundsException если идентификатор вне диапазона {@code 0..size()-1}
+	 */
+	public long msisdnOf(int id) {
+		return msisdns[id];
+	}
+
+	/**
+	 * Возвращает количество идентификаторов.
+	 *
+	 * @return количество номеров, переданных при создании
+	 */
+	public int size() {
+		return msisdns.length;
+	}
+
+	private int slot(long msisdn) {
+		long h = msisdn * 0x9E3779B97F4A7C15L;
+		int slot = (int) (h ^ (h >>> 32)) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != msisdn) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
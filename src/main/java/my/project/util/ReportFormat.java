@@ -0,0 +1,121 @@
+package my.project.util;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Формат файла CDR отчета.
+ */
+public enum ReportFormat {
+
+	/** Текстовый CSV, одна строка на вызов. */
+	CSV("csv", "csv") {
+		@Override
+		public OutputStream open(Path file) throws IOException {
+			return new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+		}
+
+		@Override
+		public ReportRowWriter newRowWriter(OutputStream out) {
+			return new CsvRowWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), System.lineSeparator());
+		}
+	},
+
+	/** CSV, сжатый gzip. */
+	CSV_GZIP("csv.gz", "csv.gz") {
+		@Override
+		public OutputStream open(Path file) throws IOException {
+			return new BufferedOutputStream(
+					new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+		}
+
+		@Override
+		public ReportRowWriter newRowWriter(OutputStream out) throws IOException {
+			return CSV.newRowWriter(out);
+		}
+	},
+
+	/** Двоичный поколоночный формат, см. {@link ColumnarReportWriter}. */
+	COLUMNAR("cdrc", "cdrc") {
+		@Override
+		public OutputStream open(Path file) throws IOException {
+			return new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+		}
+
+		@Override
+		public ReportRowWriter newRowWriter(OutputStream out) throws IOException {
+			return new ColumnarReportWriter(out);
+		}
+	};
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String parameter;
+	private final String extension;
+
+	ReportFormat(String parameter, String extension) {
+		this.parameter = parameter;
+		this.extension = extension;
+	}
+
+	/**
+	 * Находит формат по значению параметра запроса.
+	 *
+	 * @param parameter значение параметра format ("csv", "csv.gz" или "cdrc")
+	 * @return формат отчета
+	 * @throws IncorrectReportFormatException если формат неизвестен
+	 */
+	public static ReportFormat fromParameter(String parameter) {
+		for (ReportFormat format : values()) {
+			if (format.parameter.equalsIgnoreCase(parameter)) {
+				return format;
+			}
+		}
+		throw new IncorrectReportFormatException();
+	}
+
+	/**
+	 * Получает значение параметра запроса, соответствующее формату.
+	 *
+	 * @return значение параметра format
+	 */
+	@JsonValue
+	public String getParameter() {
+		return parameter;
+	}
+
+	/**
+	 * Получает расширение файла отчета без точки.
+	 *
+	 * @return расширение файла
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Открывает буферизованный поток для записи файла отчета в этом формате.
+	 *
+	 * @param file файл отчета
+	 * @return поток для записи
+	 * @throws IOException если не удалось открыть файл
+	 */
+	public abstract OutputStream open(Path file) throws IOException;
+
+	/**
+	 * Создает объект для записи строк отчета в поток, открытый {@link #open(Path)}.
+	 *
+	 * @param out поток для записи
+	 * @return объект для записи строк
+	 * @throws IOException если не удалось записать заголовок формата
+	 */
+	public abstract ReportRowWriter newRowWriter(OutputStream out) throws IOException;
+}
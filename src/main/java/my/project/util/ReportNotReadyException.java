@@ -0,0 +1,11 @@
+package my.project.util;
+
+/**
+ * Исключение, которое выбрасывается при запросе файла отчета, генерация которого не завершилась успешно.
+ * <p>
+ * Это исключение является подклассом {@link RuntimeException} и используется для
+ * сигнализации о том, что отчет еще генерируется или его генерация завершилась ошибкой.
+ * </p>
+ */
+public class ReportNotReadyException extends RuntimeException {
+}
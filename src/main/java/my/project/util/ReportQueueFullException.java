@@ -0,0 +1,11 @@
+package my.project.util;
+
+/**
+ * Исключение, которое выбрасывается, когда очередь заданий на генерацию отчетов заполнена.
+ * <p>
+ * Это исключение является подклассом {@link RuntimeException} и используется для
+ * сигнализации о том, что новое задание не может быть принято, пока не завершатся уже поставленные.
+ * </p>
+ */
+public class ReportQueueFullException extends RuntimeException {
+}
@@ -0,0 +1,31 @@
+package my.project.util;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Записывает строки CDR отчета в выходной поток в формате, зависящем от реализации.
+ */
+public interface ReportRowWriter {
+
+	/**
+	 * Записывает одну строку отчета.
+	 *
+	 * @param callType  тип вызова
+	 * @param phoneOne  номер телефона, инициирующий вызов
+	 * @param phoneTwo  номер телефона, принимающий вызов
+	 * @param startTime время начала вызова
+	 * @param endTime   время окончания вызова
+	 * @throws IOException если произошла ошибка записи
+	 */
+	void writeRow(String callType, String phoneOne, String phoneTwo,
+				  LocalDateTime startTime, LocalDateTime endTime) throws IOException;
+
+	/**
+	 * Дописывает буферизованные данные в поток. Вызывается один раз после последней строки;
+	 * сам поток при этом не закрывается.
+	 *
+	 * @throws IOException если произошла ошибка записи
+	 */
+	void finish() throws IOException;
+}
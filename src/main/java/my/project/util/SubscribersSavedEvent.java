@@ -0,0 +1,12 @@
+package my.project.util;
+
+/**
+ * Событие, публикуемое после сохранения пакета абонентов.
+ * <p>
+ * Позволяет справочнику абонентов перечитать номера после фиксации транзакции.
+ * </p>
+ *
+ * @param count количество сохраненных абонентов
+ */
+public record SubscribersSavedEvent(int count) {
+}
@@ -0,0 +1,151 @@
+package my.project.util;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с открытой адресацией, накапливающая длительность входящих и исходящих вызовов
+ * по неотрицательному ключу типа {@code long}.
+ * <p>
+ * Ключи и обе суммы хранятся в параллельных массивах примитивов, коллизии разрешаются линейным
+ * пробированием, при заполнении больше чем наполовину емкость удваивается. Добавление к существующему
+ * ключу не создает объектов. Экземпляр не потокобезопасен.
+ * </p>
+ */
+public class UsageTotalsTable {
+
+	/**
+	 * Получатель накопленных итогов при обходе таблицы.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+
+		/**
+		 * Принимает итоги одного ключа.
+		 *
+		 * @param key             ключ
+		 * @param incomingSeconds длительность входящих вызовов в секундах
+		 * @param outgoingSeconds длительность исходящих вызовов в секундах
+		 */
+		void accept(long key, long incomingSeconds, long outgoingSeconds);
+	}
+
+	private static final long EMPTY = -1;
+
+	private long[] keys;
+	private long[] incoming;
+	private long[] outgoing;
+	private int mask;
+	private int size;
+
+	/**
+	 * Создает таблицу емкостью по умолчанию.
+	 */
+	public UsageTotalsTable() {
+		this(64);
+	}
+
+	/**
+	 * Создает таблицу, вмещающую заданное количество ключей без увеличения емкости.
+	 *
+	 * @param expectedSize ожидаемое количество ключей
+	 */
+	public UsageTotalsTable(int expectedSize) {
+		allocate(Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1);
+	}
+
+	/**
+	 * Прибавляет длительности к итогам ключа.
+	 *
+	 * @param key             неотрицательный ключ
+	 * @param incomingSeconds длительность входящих вызовов в секундах
+	 * @param outgoingSeconds длительность исходящих вызовов в секундах
+	 * @throws IllegalArgumentException если ключ отрицательный
+	 */
+	public void add(long key, long incomingSeconds, long outgoingSeconds) {
+		if (key < 0) {
+			throw new IllegalArgumentException("Negative key: " + key);
+		}
+		int slot = slot(key);
+		incoming[slot] += incomingSeconds;
+		outgoing[slot] += outgoingSeconds;
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+		}
+	}
+
+	/**
+	 * Прибавляет к итогам этой таблицы все итоги другой таблицы.
+	 *
+	 * @param other таблица, итоги которой добавляются
+	 */
+	public void addAll(UsageTotalsTable other) {
+		other.forEach(this::add);
+	}
+
+	/**
+	 * Возвращает количество ключей в таблице.
+	 *
+	 * @return количество ключей
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Передает итоги каждого ключа получателю в порядке слотов таблицы.
+	 *
+	 * @param consumer получатель итогов
+	 */
+	public void forEach(EntryConsumer consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				consumer.accept(keys[i], incoming[i], outgoing[i]);
+			}
+		}
+	}
+
+	/**
+	 * Находит слот ключа или пустой слот, в который ключ должен быть помещен.
+	 *
+	 * @param key ключ
+	 * @return индекс слота
+	 */
+	private int slot(long key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldIncoming = incoming;
+		long[] oldOutgoing = outgoing;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				incoming[slot] = oldIncoming[i];
+				outgoing[slot] = oldOutgoing[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		incoming = new long[capacity];
+		outgoing = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,68 @@
+package my.project;
+
+import my.project.dto.CacheStatsDTO;
+import my.project.util.BoundedCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTest {
+
+	@Test
+	public void testGet_EvictsLeastRecentlyUsed() {
+		BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+		cache.get("a", () -> "A");
+		cache.get("b", () -> "B");
+		cache.get("a", () -> "A2");
+		cache.get("c", () -> "C");
+
+		assertEquals("A", cache.get("a", () -> "A3"));
+		assertEquals("B2", cache.get("b", () -> "B2"));
+
+		CacheStatsDTO stats = cache.stats();
+		assertEquals(2, stats.getHits());
+		assertEquals(4, stats.getMisses());
+		assertEquals(2, stats.getEvictions());
+		assertEquals(2, stats.getSize());
+	}
+
+	@Test
+	public void testGet_ExpiresAfterTtl() throws InterruptedException {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMillis(1));
+		cache.get("a", () -> "A");
+		Thread.sleep(5);
+
+		assertEquals("A2", cache.get("a", () -> "A2"));
+		assertEquals(1, cache.stats().getEvictions());
+	}
+
+	@Test
+	public void testGet_LoaderExceptionIsNotCached() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+		assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+			throw new IllegalStateException();
+		}));
+		assertEquals("A", cache.get("a", () -> "A"));
+	}
+
+	@Test
+	public void testGet_ValueLoadedBeforeInvalidationIsNotCached() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+		assertEquals("stale", cache.get("a", () -> {
+			cache.invalidate("a");
+			return "stale";
+		}));
+		assertEquals("fresh", cache.get("a", () -> "fresh"));
+		assertEquals("fresh", cache.get("a", () -> "other"));
+
+		assertEquals("stale", cache.get("b", () -> {
+			cache.invalidateAll();
+			return "stale";
+		}));
+		assertEquals(0, cache.stats().getSize());
+	}
+}
@@ -1,44 +1,191 @@
 package my.project;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import my.project.controllers.CallDataRecordController;
+import my.project.controllers.ExceptionController;
+import my.project.controllers.ReportFileSender;
+import my.project.dto.IngestReportDTO;
+import my.project.dto.ReportJobDTO;
+import my.project.entity.CallDataRecord;
+import my.project.services.CallDataRecordIngestService;
+import my.project.services.CallDataRecordLoadGenerator;
 import my.project.services.CallDataRecordService;
+import my.project.services.ReportJobService;
+import my.project.services.ReportStorage;
+import my.project.services.SubscriberDirectory;
+import my.project.util.ReportNotReadyException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
 public class CallDataRecordControllerTest {
 
 
 	private MockMvc mockMvc;
 
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@Mock
 	private CallDataRecordService callDataRecordService;
 
+	@Mock
+	private ReportJobService reportJobService;
+
+	@Mock
+	private CallDataRecordLoadGenerator callDataRecordLoadGenerator;
+
+	@Mock
+	private CallDataRecordIngestService callDataRecordIngestService;
+
+	@Mock
+	private SubscriberDirectory subscriberDirectory;
+
+	@Spy
+	private ReportStorage reportStorage = new ReportStorage("target/test-reports");
+
+	@Spy
+	private ReportFileSender reportFileSender = new ReportFileSender();
+
 	@InjectMocks
 	private CallDataRecordController callDataRecordController;
 
 	@BeforeEach
 	public void setUp() {
 		MockitoAnnotations.openMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(callDataRecordController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(callDataRecordController)
+				.setControllerAdvice(new ExceptionController(meterRegistry))
+				.build();
+	}
+
+	private Path reportFile;
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		if (reportFile != null) {
+			Files.deleteIfExists(reportFile);
+		}
+	}
+
+	private String createReport(String content) throws IOException {
+		String uuid = UUID.randomUUID().toString();
+		reportFile = reportStorage.newReportFile("71234567890", uuid, "csv");
+		Files.writeString(reportFile, content);
+		return uuid;
 	}
 
 	@Test
-	public void testGenerateCallDataRecord() throws Exception {
-		doNothing().when(callDataRecordService).generateCallDataRecords();
+	public void testGetAll_Page() throws Exception {
+		when(callDataRecordService.getCallDataRecordsAfter(10, 2)).thenReturn(List.of(new CallDataRecord(), new CallDataRecord()));
 
+		mockMvc.perform(get("/cdr/all")
+						.param("afterId", "10")
+						.param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$").isArray())
+				.andExpect(jsonPath("$.length()").value(2));
+	}
+
+	@Test
+	public void testGenerateCallDataRecord() throws Exception {
 		mockMvc.perform(post("/cdr/generateRecord"))
 				.andExpect(status().isOk());
 
-		verify(callDataRecordService, times(1)).generateCallDataRecords();
+		verify(callDataRecordService, times(1)).generateCallDataRecords(null, null, null, null);
+	}
+
+	@Test
+	public void testGenerateCallDataRecord_Parameters() throws Exception {
+		mockMvc.perform(post("/cdr/generateRecord")
+						.param("subscribers", "100000")
+						.param("minCallsPerDay", "1000")
+						.param("maxCallsPerDay", "5000")
+						.param("months", "3"))
+				.andExpect(status().isOk());
+
+		verify(callDataRecordService, times(1)).generateCallDataRecords(100000, 1000, 5000, 3);
+	}
+
+	@Test
+	public void testIngest_GzipNdjson() throws Exception {
+		String line = "{\"callType\":\"01\",\"phoneOne\":\"71234567890\"}\n";
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(line.getBytes(StandardCharsets.UTF_8));
+		}
+		when(callDataRecordIngestService.ingest(any(InputStream.class), eq(MediaType.APPLICATION_NDJSON))).thenAnswer(invocation -> {
+			InputStream in = invocation.getArgument(0);
+			assertEquals(line, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			return new IngestReportDTO(0, 1, 5, 200.0, List.of(1L));
+		});
+
+		mockMvc.perform(post("/cdr/ingest")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.header("Content-Encoding", "gzip")
+						.content(compressed.toByteArray()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.rejected").value(1))
+				.andExpect(jsonPath("$.failedLines[0]").value(1));
+	}
+
+	@Test
+	public void testArchiveMonth() throws Exception {
+		when(callDataRecordService.archiveMonth("2023-01")).thenReturn(42);
+
+		mockMvc.perform(post("/cdr/archive")
+						.param("month", "2023-01"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("42")));
+	}
+
+	@Test
+	public void testRefreshSubscribers() throws Exception {
+		when(subscriberDirectory.refresh()).thenReturn(21);
+
+		mockMvc.perform(post("/cdr/subscribers/refresh"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("21")));
+	}
+
+	@Test
+	public void testGenerateLoad() throws Exception {
+		when(callDataRecordLoadGenerator.generate(42, LocalDate.parse("2023-01-01"), 24, 5000, 1000)).thenReturn(123L);
+
+		mockMvc.perform(post("/cdr/generateLoad")
+						.param("seed", "42")
+						.param("start", "2023-01-01")
+						.param("months", "24")
+						.param("subscribers", "5000"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("123")));
 	}
 
 	@Test
@@ -46,17 +193,101 @@ public class CallDataRecordControllerTest {
 		String msisdn = "1234567890";
 		String startTime = "2023-01-01T00:00:00";
 		String endTime = "2023-01-02T00:00:00";
-		String expectedUuid = "some-uuid";
+		ReportJobDTO job = new ReportJobDTO("some-uuid", msisdn, null, null);
 
-		when(callDataRecordService.generateReport(msisdn, startTime, endTime)).thenReturn(expectedUuid);
+		when(reportJobService.submit(msisdn, startTime, endTime, "csv")).thenReturn(job);
 
 		mockMvc.perform(post("/cdr/generateReport")
 						.param("msisdn", msisdn)
 						.param("start", startTime)
 						.param("end", endTime))
-				.andExpect(status().isOk());
+				.andExpect(status().isAccepted())
+				.andExpect(content().string(containsString("some-uuid")));
 
-		verify(callDataRecordService, times(1)).generateReport(msisdn, startTime, endTime);
+		verify(reportJobService, times(1)).submit(msisdn, startTime, endTime, "csv");
 	}
-}
 
+	@Test
+	public void testGetReportStatus() throws Exception {
+		ReportJobDTO job = new ReportJobDTO("some-uuid", "71234567890",
+				LocalDateTime.parse("2023-01-01T00:00:00"), LocalDateTime.parse("2023-01-02T00:00:00"));
+		job.setStatus(ReportJobDTO.Status.DONE);
+		job.setRowsWritten(10);
+
+		when(reportJobService.getJob("some-uuid")).thenReturn(job);
+
+		mockMvc.perform(get("/cdr/report/some-uuid"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("DONE"))
+				.andExpect(jsonPath("$.rowsWritten").value(10));
+	}
+
+	@Test
+	public void testDownloadReport_Full() throws Exception {
+		String uuid = createReport("01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00\n");
+
+		mockMvc.perform(get("/cdr/report/" + uuid + "/file"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Accept-Ranges", "bytes"))
+				.andExpect(header().longValue("Content-Length", Files.size(reportFile)))
+				.andExpect(content().string(Files.readString(reportFile)));
+	}
+
+	@Test
+	public void testDownloadReport_Range() throws Exception {
+		String uuid = createReport("0123456789");
+
+		mockMvc.perform(get("/cdr/report/" + uuid + "/file").header("Range", "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string("Content-Range", "bytes 2-5/10"))
+				.andExpect(content().string("2345"));
+
+		mockMvc.perform(get("/cdr/report/" + uuid + "/file").header("Range", "bytes=20-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string("Content-Range", "bytes */10"));
+
+		for (String range : new String[]{"bytes=abc", "bytes=5-2", "items=0-1", "bytes=0-1,4-5"}) {
+			mockMvc.perform(get("/cdr/report/" + uuid + "/file").header("Range", range))
+					.andExpect(status().isOk())
+					.andExpect(header().doesNotExist("Content-Range"))
+					.andExpect(content().string("0123456789"));
+		}
+	}
+
+	@Test
+	public void testDownloadReport_Gzip() throws Exception {
+		String content = "01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00\n".repeat(100);
+		String uuid = createReport(content);
+
+		byte[] body = mockMvc.perform(get("/cdr/report/" + uuid + "/file").header("Accept-Encoding", "gzip, deflate"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Encoding", "gzip"))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testDownloadReport_NotReady() throws Exception {
+		String uuid = createReport("0123456789");
+		doThrow(new ReportNotReadyException()).when(reportJobService).checkReportReady(uuid);
+
+		mockMvc.perform(get("/cdr/report/" + uuid + "/file"))
+				.andExpect(status().isConflict());
+		verify(reportFileSender, never()).send(any(), any(), any());
+	}
+
+	@Test
+	public void testDownloadReport_NotFound() throws Exception {
+		mockMvc.perform(get("/cdr/report/" + UUID.randomUUID() + "/file"))
+				.andExpect(status().isNotFound());
+
+		mockMvc.perform(get("/cdr/report/..%2F..%2Fpom.xml/file"))
+				.andExpect(status().isNotFound());
+
+		assertEquals(2, meterRegistry.get("cdr.exceptions")
+				.tag("exception", "NoDataToReceiveException").tag("status", "404").counter().count());
+	}
+}
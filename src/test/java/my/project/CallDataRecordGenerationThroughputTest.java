@@ -0,0 +1,84 @@
+package my.project;
+
+import jakarta.persistence.EntityManagerFactory;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.services.CallDataRecordLoadGenerator;
+import my.project.services.CallDataRecordService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CallDataRecordGenerationThroughputTest {
+
+	private static final Logger log = LoggerFactory.getLogger(CallDataRecordGenerationThroughputTest.class);
+
+	private static final int SUBSCRIBERS = 10;
+	private static final int CALLS_PER_DAY = 100;
+	private static final int MONTHS = 2;
+
+	@Autowired
+	private CallDataRecordService callDataRecordService;
+
+	@Autowired
+	private CallDataRecordLoadGenerator callDataRecordLoadGenerator;
+
+	@Autowired
+	private CallDataRecordRepository callDataRecordRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	public void testGenerateCallDataRecords_Throughput() {
+		callDataRecordService.deleteAllCallDataRecords();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		statistics.setStatisticsEnabled(true);
+
+		long startNanos = System.nanoTime();
+		try {
+			callDataRecordService.generateCallDataRecords(SUBSCRIBERS, CALLS_PER_DAY, CALLS_PER_DAY, MONTHS);
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+		long elapsedNanos = System.nanoTime() - startNanos;
+
+		long generated = callDataRecordRepository.count();
+		double recordsPerSecond = generated / (elapsedNanos / 1_000_000_000.0);
+		log.info("Generated {} CDRs in {} ms: {} records/sec, {} JDBC statements",
+				generated, elapsedNanos / 1_000_000, Math.round(recordsPerSecond), statistics.getPrepareStatementCount());
+
+		LocalDate firstDay = callDataRecordRepository.findAllAfterId(0, Limit.of(1)).get(0).getStartTime().toLocalDate();
+		assertEquals(CALLS_PER_DAY * ChronoUnit.DAYS.between(firstDay, firstDay.plusMonths(MONTHS)), generated);
+		assertEquals(generated, statistics.getEntityInsertCount());
+		assertTrue(statistics.getPrepareStatementCount() < generated / 10,
+				"statements: " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testGenerateLoad_Throughput() {
+		long before = callDataRecordRepository.count();
+
+		long startNanos = System.nanoTime();
+		long generated = callDataRecordLoadGenerator.generate(42, LocalDate.parse("2030-01-01"), 12, 1000, 200);
+		long elapsedNanos = System.nanoTime() - startNanos;
+
+		double recordsPerSecond = generated / (elapsedNanos / 1_000_000_000.0);
+		log.info("Generated {} CDRs in parallel in {} ms: {} records/sec",
+				generated, elapsedNanos / 1_000_000, Math.round(recordsPerSecond));
+
+		assertEquals(before + generated, callDataRecordRepository.count());
+		assertTrue(generated > 0);
+	}
+}
@@ -0,0 +1,163 @@
+package my.project;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.dto.IngestReportDTO;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.SubscriberRepository;
+import my.project.services.CallDataRecordIngestService;
+import my.project.services.SubscriberDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CallDataRecordIngestServiceTest {
+
+	@Mock
+	private CallDataRecordRepository callDataRecordRepository;
+
+	@Mock
+	private SubscriberRepository subscriberRepository;
+
+	private CallDataRecordIngestService callDataRecordIngestService;
+
+	private final List<CallDataRecord> saved = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		objectMapper = new ObjectMapper()
+				.findAndRegisterModules()
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		callDataRecordIngestService = new CallDataRecordIngestService(callDataRecordRepository,
+				new SubscriberDirectory(subscriberRepository, new SimpleMeterRegistry(), false), objectMapper);
+		doAnswer(invocation -> saved.addAll(invocation.getArgument(0)))
+				.when(callDataRecordRepository).saveAllInBatch(anyList());
+	}
+
+	private ObjectMapper objectMapper;
+
+	private IngestReportDTO ingest(String body, MediaType contentType) throws IOException {
+		return callDataRecordIngestService.ingest(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType);
+	}
+
+	@Test
+	public void testIngest_Csv() throws IOException {
+		String body = """
+				callType,phoneOne,phoneTwo,start,end
+				01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00
+
+				02,71234567891,71234567890,2023-01-15T11:00:00,2023-01-15T11:10:00
+				03,71234567891,71234567890,2023-01-15T11:00:00,2023-01-15T11:10:00
+				01,7123456789,71234567890,2023-01-15T11:00:00,2023-01-15T11:10:00
+				01,7123456789a,71234567890,2023-01-15T11:00:00,2023-01-15T11:10:00
+				01,71234567891,71234567890,2023-01-15T11:00:00,2023-01-15T10:10:00
+				not a cdr
+				""";
+
+		IngestReportDTO report = ingest(body, MediaType.parseMediaType("text/csv"));
+
+		assertEquals(2, report.getAccepted());
+		assertEquals(5, report.getRejected());
+		assertEquals(List.of(5L, 6L, 7L, 8L, 9L), report.getFailedLines());
+		assertEquals(2, saved.size());
+		assertEquals(LocalDateTime.parse("2023-01-15T11:10:00"), saved.get(1).getEndTime());
+	}
+
+	@Test
+	public void testIngest_Ndjson() throws IOException {
+		String body = """
+				{"id":7,"callType":"01","phoneOne":"71234567890","phoneTwo":"71234567891","startTime":"2023-01-10T10:00:00","endTime":"2023-01-10T10:05:00"}
+				{"callType":"01","phoneOne":"71234567890"}
+				{broken
+				{"callType":"01","phoneOne":"7123456789x","phoneTwo":"71234567891","startTime":"2023-01-10T10:00:00","endTime":"2023-01-10T10:05:00"}
+				""";
+
+		IngestReportDTO report = ingest(body, MediaType.APPLICATION_NDJSON);
+
+		assertEquals(1, report.getAccepted());
+		assertEquals(List.of(2L, 3L, 4L), report.getFailedLines());
+		assertNull(saved.get(0).getId());
+		assertEquals("71234567891", saved.get(0).getPhoneTwo());
+	}
+
+	@Test
+	public void testIngest_NdjsonNonObjectLines() throws IOException {
+		String body = """
+				null
+				"text"
+				[1, 2]
+				{"callType":"01","phoneOne":"71234567890","phoneTwo":"71234567891","startTime":"2023-13-10T10:00:00","endTime":"2023-01-10T10:05:00"}
+				{"callType":"01","phoneOne":"71234567890","phoneTwo":"71234567891","startTime":"2023-01-10T10:00:00","endTime":"2023-01-10T10:05:00"}
+				""";
+
+		IngestReportDTO report = ingest(body, MediaType.APPLICATION_NDJSON);
+
+		assertEquals(1, report.getAccepted());
+		assertEquals(4, report.getRejected());
+		assertEquals(List.of(1L, 2L, 3L, 4L), report.getFailedLines());
+	}
+
+	@Test
+	public void testIngest_Batches() throws IOException {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 2500; i++) {
+			body.append("01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00\n");
+		}
+
+		IngestReportDTO report = ingest(body.toString(), MediaType.TEXT_PLAIN);
+
+		assertEquals(2500, report.getAccepted());
+		assertEquals(0, report.getRejected());
+		verify(callDataRecordRepository, times(3)).saveAllInBatch(anyList());
+	}
+
+	@Test
+	public void testIngest_NdjsonRoundTrip() throws IOException {
+		CallDataRecord record = new CallDataRecord("02", "03552160524", "72568505479",
+				LocalDateTime.parse("1986-05-24T17:41:14"), LocalDateTime.parse("1986-05-24T17:48:21"));
+		record.setId(1L);
+		String json = objectMapper.writeValueAsString(record);
+
+		IngestReportDTO report = ingest(json, MediaType.APPLICATION_NDJSON);
+
+		assertEquals("{\"id\":1,\"callType\":\"02\",\"phoneOne\":\"03552160524\",\"phoneTwo\":\"72568505479\","
+				+ "\"startTime\":\"1986-05-24T17:41:14\",\"endTime\":\"1986-05-24T17:48:21\"}", json);
+		assertEquals(1, report.getAccepted());
+		assertNull(saved.get(0).getId());
+		assertEquals("03552160524", saved.get(0).getPhoneOne());
+		assertEquals(record.getEndTime(), saved.get(0).getEndTime());
+	}
+
+	@Test
+	public void testIngest_RejectsUnknownSubscribers() throws IOException {
+		when(subscriberRepository.findMsisdns(any())).thenReturn(List.of("71234567890", "71234567891"));
+		callDataRecordIngestService = new CallDataRecordIngestService(callDataRecordRepository,
+				new SubscriberDirectory(subscriberRepository, new SimpleMeterRegistry(), true), objectMapper);
+		String body = """
+				01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00
+				01,71234567890,79999999999,2023-01-10T11:00:00,2023-01-10T11:05:00
+				""";
+
+		IngestReportDTO report = ingest(body, MediaType.parseMediaType("text/csv"));
+
+		assertEquals(1, report.getAccepted());
+		assertEquals(List.of(2L), report.getFailedLines());
+	}
+}
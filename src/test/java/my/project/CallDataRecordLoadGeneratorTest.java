@@ -0,0 +1,88 @@
+package my.project;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.SubscriberRepository;
+import my.project.services.CallDataRecordLoadGenerator;
+import my.project.util.IncorrectGenerationParametersException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CallDataRecordLoadGeneratorTest {
+
+	@Mock
+	private SubscriberRepository subscriberRepository;
+
+	@Mock
+	private CallDataRecordRepository callDataRecordRepository;
+
+	private final List<String> saved = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		doAnswer(invocation -> {
+			List<CallDataRecord> records = invocation.getArgument(0);
+			for (CallDataRecord record : records) {
+				assertNotEquals(record.getPhoneOne(), record.getPhoneTwo());
+				saved.add(String.join(",", record.getCallType(), record.getPhoneOne(), record.getPhoneTwo(),
+						record.getStartTime().toString(), record.getEndTime().toString()));
+			}
+			return null;
+		}).when(callDataRecordRepository).saveAllInBatch(anyList());
+	}
+
+	private List<String> generate(long seed, int parallelism) {
+		saved.clear();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		CallDataRecordLoadGenerator generator =
+				new CallDataRecordLoadGenerator(subscriberRepository, callDataRecordRepository, meterRegistry, parallelism);
+		try {
+			long generated = generator.generate(seed, LocalDate.parse("2023-01-15"), 6, 50, 100);
+			assertEquals(generated, saved.size());
+			assertEquals(generated, meterRegistry.get("cdr.records.generated").tag("generator", "load")
+					.counter().count());
+		} finally {
+			generator.shutdown();
+		}
+		List<String> records = new ArrayList<>(saved);
+		Collections.sort(records);
+		return records;
+	}
+
+	@Test
+	public void testGenerate_SameSeedSameDataset() {
+		List<String> sequential = generate(42, 1);
+		List<String> parallel = generate(42, 4);
+
+		assertFalse(sequential.isEmpty());
+		assertEquals(sequential, parallel);
+		List<String> startTimes = sequential.stream().map(record -> record.split(",")[3]).sorted().toList();
+		assertTrue(startTimes.get(0).startsWith("2023-01-01T"));
+		assertTrue(startTimes.get(startTimes.size() - 1).startsWith("2023-06-30T"));
+		assertNotEquals(sequential, generate(43, 4));
+	}
+
+	@Test
+	public void testGenerate_IncorrectParameters() {
+		CallDataRecordLoadGenerator generator =
+				new CallDataRecordLoadGenerator(subscriberRepository, callDataRecordRepository, new SimpleMeterRegistry(), 1);
+
+		assertThrows(IncorrectGenerationParametersException.class,
+				() -> generator.generate(42, LocalDate.parse("2023-01-01"), 12, 1, 10));
+		verify(callDataRecordRepository, never()).saveAllInBatch(anyList());
+		generator.shutdown();
+	}
+}
@@ -0,0 +1,73 @@
+package my.project;
+
+import my.project.repositories.CallDataRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CallDataRecordQueryPlanTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void testFindByMsisdnNumberAndStartRange_UsesIndexes() throws NoSuchMethodException {
+		String plan = explain("findByMsisdnNumberAndStartRange", long.class, long.class, long.class);
+
+		assertTrue(plan.contains("IDX_CDR_PHONE_ONE_START_TIME"), plan);
+		assertTrue(plan.contains("IDX_CDR_PHONE_TWO_START_TIME"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	@Test
+	public void testStreamByMsisdnNumberAndStartRange_UsesIndexes() throws NoSuchMethodException {
+		String plan = explain("streamByMsisdnNumberAndStartRange", long.class, long.class, long.class);
+
+		assertTrue(plan.contains("IDX_CDR_PHONE_ONE_START_TIME"), plan);
+		assertTrue(plan.contains("IDX_CDR_PHONE_TWO_START_TIME"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	@Test
+	public void testFindByMsisdnNumber_UsesIndexes() throws NoSuchMethodException {
+		String plan = explain("findByMsisdnNumber", long.class);
+
+		assertTrue(plan.contains("IDX_CDR_PHONE_ONE_START_TIME"), plan);
+		assertTrue(plan.contains("IDX_CDR_PHONE_TWO_START_TIME"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	@Test
+	public void testFindLastCallEndEpochSecond_UsesStartTimeIndex() throws NoSuchMethodException {
+		String plan = explain("findLastCallEndEpochSecond");
+
+		assertTrue(plan.contains("IDX_CDR_START_TIME"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	@Test
+	public void testMonthRange_UsesStartTimeIndex() {
+		String plan = String.join("\n", jdbcTemplate.queryForList(
+				"EXPLAIN SELECT * FROM cdr WHERE start_time >= 1672531200 AND start_time < 1675209600", String.class));
+
+		assertTrue(plan.contains("IDX_CDR_START_TIME"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	private String explain(String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+		String sql = CallDataRecordRepository.class.getMethod(methodName, parameterTypes)
+				.getAnnotation(Query.class)
+				.value()
+				.replace(":msisdn", "71234567890")
+				.replace(":start", "1672531200")
+				.replace(":end", "1675209599");
+		return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+	}
+}
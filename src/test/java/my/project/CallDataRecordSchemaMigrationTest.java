@@ -0,0 +1,139 @@
+package my.project;
+
+import my.project.repositories.CallDataRecordSchemaMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallDataRecordSchemaMigrationTest {
+
+	private final JdbcTemplate jdbcTemplate =
+			new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1"));
+
+	private final CallDataRecordSchemaMigration migration = new CallDataRecordSchemaMigration(jdbcTemplate);
+
+	@AfterEach
+	public void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	public void testMigrate_NoTable() {
+		migration.migrate();
+
+		assertEquals(0, sequenceCount());
+	}
+
+	@Test
+	public void testMigrate_StartsSequenceAfterIdentityIds() {
+		jdbcTemplate.execute("CREATE TABLE cdr (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY)");
+		jdbcTemplate.execute("INSERT INTO cdr (id) VALUES (1), (2), (120)");
+
+		migration.migrate();
+		migration.migrate();
+
+		assertEquals(1, sequenceCount());
+		assertEquals(170, nextSequenceValue());
+	}
+
+	@Test
+	public void testMigrate_RestartsSequenceBehindIds() {
+		jdbcTemplate.execute("CREATE TABLE cdr (id BIGINT PRIMARY KEY)");
+		jdbcTemplate.execute("INSERT INTO cdr (id) VALUES (500)");
+		jdbcTemplate.execute("CREATE SEQUENCE cdr_seq START WITH 1 INCREMENT BY 50");
+
+		migration.migrate();
+		assertEquals(550, nextSequenceValue());
+
+		jdbcTemplate.execute("ALTER SEQUENCE cdr_seq RESTART WITH 1000");
+		migration.migrate();
+		assertEquals(1000, nextSequenceValue());
+	}
+
+	@Test
+	public void testMigrate_DropsComputedEndTime() {
+		jdbcTemplate.execute("CREATE TABLE cdr (id BIGINT PRIMARY KEY, start_time BIGINT, duration INTEGER, "
+				+ "end_time BIGINT GENERATED ALWAYS AS (start_time + duration))");
+		jdbcTemplate.execute("CREATE INDEX idx_cdr_end_time ON cdr (end_time)");
+		jdbcTemplate.execute("INSERT INTO cdr (id, start_time, duration) VALUES (1, 1000, 60)");
+
+		migration.migrate();
+		migration.migrate();
+
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_NAME = 'CDR' AND COLUMN_NAME = 'END_TIME'", Integer.class));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE INDEX_NAME = 'IDX_CDR_END_TIME'", Integer.class));
+		assertEquals(1060, jdbcTemplate.queryForObject("SELECT start_time + duration FROM cdr", Long.class));
+	}
+
+	@Test
+	public void testMigrate_ConvertsTextLayout() {
+		createTextLayoutTable();
+		jdbcTemplate.execute("""
+				INSERT INTO cdr (call_type, phone_one, phone_two, start_time, end_time) VALUES
+				('01', '71234567890', '71234567891', TIMESTAMP '2023-01-10 10:00:00', TIMESTAMP '2023-01-10 10:05:00'),
+				('02', '01234567891', '71234567890', TIMESTAMP '2023-01-10 11:00:00.5', TIMESTAMP '2023-01-10 11:00:30')""");
+
+		migration.migrate();
+		migration.migrate();
+
+		assertEquals("BIGINT", jdbcTemplate.queryForObject("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_NAME = 'CDR' AND COLUMN_NAME = 'PHONE_ONE'", String.class));
+		assertEquals(List.of("1,1,71234567890,71234567891,1673344800,300", "2,2,1234567891,71234567890,1673348400,30"),
+				jdbcTemplate.queryForList("SELECT CONCAT_WS(',', id, call_type, phone_one, phone_two, start_time, duration) "
+						+ "FROM cdr ORDER BY id", String.class));
+		assertEquals(0, tableCount("CDR_LEGACY"));
+		assertEquals(0, tableCount("CDR_MIGRATED"));
+		assertEquals(52, nextSequenceValue());
+	}
+
+	@Test
+	public void testMigrate_KeepsInvalidTextRecords() {
+		createTextLayoutTable();
+		jdbcTemplate.execute("CREATE INDEX idx_cdr_phone_one_start_time ON cdr (phone_one, start_time)");
+		jdbcTemplate.execute("""
+				INSERT INTO cdr (call_type, phone_one, phone_two, start_time, end_time) VALUES
+				('01', '71234567890', '71234567891', TIMESTAMP '2023-01-10 10:00:00', TIMESTAMP '2023-01-10 10:05:00'),
+				('01', '7123456789', '71234567891', TIMESTAMP '2023-01-10 10:00:00', TIMESTAMP '2023-01-10 10:05:00'),
+				('03', '71234567890', '71234567891', TIMESTAMP '2023-01-10 10:00:00', TIMESTAMP '2023-01-10 10:05:00'),
+				('02', '71234567890', '71234567891', TIMESTAMP '2023-01-10 10:00:00', TIMESTAMP '2023-01-10 09:05:00')""");
+
+		migration.migrate();
+
+		assertEquals(List.of(1L), jdbcTemplate.queryForList("SELECT id FROM cdr", Long.class));
+		assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cdr_legacy", Integer.class));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE INDEX_NAME = 'IDX_CDR_PHONE_ONE_START_TIME'", Integer.class));
+	}
+
+	private void createTextLayoutTable() {
+		jdbcTemplate.execute("""
+				CREATE TABLE cdr (
+					id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+					call_type VARCHAR(255),
+					phone_one VARCHAR(255),
+					phone_two VARCHAR(255),
+					start_time TIMESTAMP(6),
+					end_time TIMESTAMP(6))""");
+	}
+
+	private int tableCount(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+				+ "WHERE TABLE_NAME = ?", Integer.class, table);
+	}
+
+	private int sequenceCount() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES "
+				+ "WHERE SEQUENCE_NAME = 'CDR_SEQ'", Integer.class);
+	}
+
+	private long nextSequenceValue() {
+		return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR cdr_seq", Long.class);
+	}
+}
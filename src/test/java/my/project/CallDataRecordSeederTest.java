@@ -0,0 +1,77 @@
+package my.project;
+
+import my.project.services.CallDataRecordSeeder;
+import my.project.services.CallDataRecordService;
+import my.project.services.UsageDataReportCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CallDataRecordSeederTest {
+
+	@Mock
+	private CallDataRecordService callDataRecordService;
+
+	@Mock
+	private UsageDataReportCache usageDataReportCache;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void testSeed_Disabled() {
+		CallDataRecordSeeder seeder = new CallDataRecordSeeder(callDataRecordService, usageDataReportCache, false);
+
+		seeder.onApplicationReady();
+
+		assertEquals(Status.UP, seeder.health().getStatus());
+		verifyNoInteractions(callDataRecordService);
+	}
+
+	@Test
+	public void testSeed_OutOfServiceUntilDone() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(callDataRecordService).generateCallDataRecords();
+		CallDataRecordSeeder seeder = new CallDataRecordSeeder(callDataRecordService, usageDataReportCache, true);
+
+		seeder.onApplicationReady();
+		assertEquals(Status.OUT_OF_SERVICE, seeder.health().getStatus());
+
+		release.countDown();
+		for (int i = 0; i < 100 && seeder.health().getStatus() != Status.UP; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(Status.UP, seeder.health().getStatus());
+		InOrder order = inOrder(callDataRecordService, usageDataReportCache);
+		order.verify(callDataRecordService).deleteAllCallDataRecords();
+		order.verify(usageDataReportCache).invalidateAll();
+		order.verify(callDataRecordService).generateCallDataRecords();
+	}
+
+	@Test
+	public void testSeed_Failed() throws InterruptedException {
+		doThrow(new IllegalStateException()).when(callDataRecordService).generateCallDataRecords();
+		CallDataRecordSeeder seeder = new CallDataRecordSeeder(callDataRecordService, usageDataReportCache, true);
+
+		seeder.onApplicationReady();
+		for (int i = 0; i < 100 && seeder.health().getStatus() == Status.OUT_OF_SERVICE; i++) {
+			Thread.sleep(50);
+		}
+
+		assertEquals(Status.DOWN, seeder.health().getStatus());
+	}
+}
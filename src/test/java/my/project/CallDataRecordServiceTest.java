@@ -1,26 +1,54 @@
 package my.project;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.entity.ArchivedMonth;
 import my.project.entity.CallDataRecord;
+import my.project.entity.Subscriber;
+import my.project.repositories.ArchivedMonthRepository;
 import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.MonthlyUsageRepository;
 import my.project.repositories.SubscriberRepository;
+import my.project.services.CallDataRecordGeneratorProperties;
 import my.project.services.CallDataRecordService;
+import my.project.services.MsisdnActivityFilter;
+import my.project.services.ReportStorage;
+import my.project.util.ColumnarReportReader;
+import my.project.util.IncorrectGenerationParametersException;
 import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.IncorrectReportFormatException;
 import my.project.util.NoDataToReceiveException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 public class CallDataRecordServiceTest {
@@ -31,12 +59,36 @@ public class CallDataRecordServiceTest {
 	@Mock
 	private CallDataRecordRepository callDataRecordRepository;
 
+	@Mock
+	private ArchivedMonthRepository archivedMonthRepository;
+
+	@Mock
+	private MonthlyUsageRepository monthlyUsageRepository;
+
+	@Mock
+	private MsisdnActivityFilter msisdnActivityFilter;
+
+	@Spy
+	private ReportStorage reportStorage = new ReportStorage("target/test-reports");
+
+	@Spy
+	private CallDataRecordGeneratorProperties generatorProperties = new CallDataRecordGeneratorProperties();
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper()
+			.findAndRegisterModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@InjectMocks
 	private CallDataRecordService callDataRecordService;
 
 	@BeforeEach
 	public void setUp() {
 		MockitoAnnotations.openMocks(this);
+		when(msisdnActivityFilter.mightContain(any(), any(), any())).thenReturn(true);
 	}
 
 	@Test
@@ -46,28 +98,71 @@ public class CallDataRecordServiceTest {
 		String endDate = "2023-12-31";
 
 		CallDataRecord record = new CallDataRecord();
-		record.setCallType("incoming");
+		record.setCallType("02");
 		record.setPhoneOne(msisdn);
 		record.setPhoneTwo("71234567891");
 		record.setStartTime(LocalDateTime.now());
 		record.setEndTime(LocalDateTime.now().plusMinutes(5));
 
-		when(callDataRecordRepository.findByMsisdnAndDateRange(msisdn,
+		when(callDataRecordRepository.streamByMsisdnAndDateRange(msisdn,
 				LocalDateTime.parse(startDate + "T00:00:00"),
-				LocalDateTime.parse(endDate + "T00:00:00"))).thenReturn(List.of(record));
+				LocalDateTime.parse(endDate + "T00:00:00"))).thenReturn(Stream.of(record));
 
 		String uuid = callDataRecordService.generateReport(msisdn, startDate, endDate);
 
 		assertNotNull(uuid);
 
 		String expectedFileName = String.format("%s_%s.csv", msisdn, uuid);
-		String filePath = "src/main/java/my/project/reports/" + expectedFileName;
-		Path path = Paths.get(filePath);
+		Path path = Paths.get("target/test-reports").resolve(expectedFileName);
 		assertTrue(Files.exists(path));
 
 		Files.delete(path);
 	}
 
+	@Test
+	public void testGenerateReport_Formats() throws IOException {
+		String msisdn = "71234567890";
+		LocalDateTime start = LocalDateTime.parse("2023-01-01T00:00:00");
+		LocalDateTime end = LocalDateTime.parse("2023-12-31T00:00:00");
+		CallDataRecord record = new CallDataRecord("01", msisdn, "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+		String expectedRow = "01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00" + System.lineSeparator();
+
+		when(callDataRecordRepository.streamByMsisdnAndDateRange(msisdn, start, end))
+				.thenAnswer(invocation -> Stream.of(record));
+
+		Path csv = Paths.get("target/test-reports", msisdn + "_"
+				+ callDataRecordService.generateReport(msisdn, "2023-01-01", "2023-12-31", "csv") + ".csv");
+		assertEquals(expectedRow, Files.readString(csv));
+		Files.delete(csv);
+
+		Path gzip = Paths.get("target/test-reports", msisdn + "_"
+				+ callDataRecordService.generateReport(msisdn, "2023-01-01", "2023-12-31", "csv.gz") + ".csv.gz");
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+			assertEquals(expectedRow, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		Files.delete(gzip);
+
+		Path columnar = Paths.get("target/test-reports", msisdn + "_"
+				+ callDataRecordService.generateReport(msisdn, "2023-01-01", "2023-12-31", "cdrc") + ".cdrc");
+		try (ColumnarReportReader reader = new ColumnarReportReader(Files.newInputStream(columnar))) {
+			CallDataRecord read = reader.read();
+			assertEquals(record.getPhoneTwo(), read.getPhoneTwo());
+			assertEquals(record.getEndTime(), read.getEndTime());
+			assertNull(reader.read());
+		}
+		assertEquals(Files.size(columnar), (long) meterRegistry.get("cdr.report.size").tag("format", "cdrc")
+				.summary().totalAmount());
+		assertEquals(3, meterRegistry.get("cdr.report.size").summaries().size());
+		Files.delete(columnar);
+	}
+
+	@Test
+	public void testGenerateReport_IncorrectFormat() {
+		assertThrows(IncorrectReportFormatException.class,
+				() -> callDataRecordService.generateReport("71234567890", "2023-01-01", "2023-12-31", "zip"));
+	}
+
 	@Test
 	public void testGenerateReport_IncorrectPhoneNumber() {
 		String msisdn = "12345";
@@ -83,11 +178,137 @@ public class CallDataRecordServiceTest {
 		String startDate = "2023-01-01";
 		String endDate = "2023-12-31";
 
-		when(callDataRecordRepository.findByMsisdnAndDateRange(msisdn,
+		when(callDataRecordRepository.streamByMsisdnAndDateRange(msisdn,
 				LocalDateTime.parse(startDate + "T00:00:00"),
-				LocalDateTime.parse(endDate + "T00:00:00"))).thenReturn(Collections.emptyList());
+				LocalDateTime.parse(endDate + "T00:00:00"))).thenReturn(Stream.empty());
 
 		assertThrows(NoDataToReceiveException.class, () -> callDataRecordService.generateReport(msisdn, startDate, endDate));
 	}
-}
 
+	@Test
+	public void testGenerateReport_FailedWriteLeavesNoFile() throws IOException {
+		String msisdn = "71234567899";
+		CallDataRecord record = new CallDataRecord("01", msisdn, "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+		when(callDataRecordRepository.streamByMsisdnAndDateRange(msisdn,
+				LocalDateTime.parse("2023-01-01T00:00:00"), LocalDateTime.parse("2023-12-31T00:00:00")))
+				.thenReturn(Stream.of(record, null).map(r -> {
+					if (r == null) {
+						throw new IllegalStateException("connection lost");
+					}
+					return r;
+				}));
+
+		assertThrows(IllegalStateException.class, () -> callDataRecordService.generateReport(msisdn, "2023-01-01", "2023-12-31"));
+		try (Stream<Path> files = Files.list(Paths.get("target/test-reports"))) {
+			assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(msisdn)));
+		}
+	}
+
+	@Test
+	public void testGenerateReport_RejectedByFilter() {
+		String msisdn = "71234567890";
+		when(msisdnActivityFilter.mightContain(msisdn, YearMonth.of(2023, 1), YearMonth.of(2023, 12))).thenReturn(false);
+
+		assertThrows(NoDataToReceiveException.class, () -> callDataRecordService.generateReport(msisdn, "2023-01-01", "2023-12-31"));
+		verifyNoInteractions(callDataRecordRepository);
+	}
+
+	@Test
+	public void testDeleteAllCallDataRecords_ForgetsArchivedMonthsBeforeDroppingTables() {
+		when(archivedMonthRepository.findAll()).thenReturn(List.of(
+				new ArchivedMonth("2023-01", "cdr_archive_2023_01", 3, LocalDateTime.now())));
+
+		callDataRecordService.deleteAllCallDataRecords();
+
+		var order = inOrder(archivedMonthRepository, callDataRecordRepository);
+		order.verify(archivedMonthRepository).deleteAllInNewTransaction();
+		order.verify(callDataRecordRepository).dropArchiveTable("cdr_archive_2023_01");
+		order.verify(callDataRecordRepository).deleteAllInBatch();
+		verify(monthlyUsageRepository).deleteAllInBatch();
+	}
+
+	@Test
+	public void testArchiveMonth_CreatesTableBeforeMovingRecords() {
+		when(callDataRecordRepository.moveMonthToArchive(YearMonth.of(2023, 1), "cdr_archive_2023_01")).thenReturn(3);
+		when(archivedMonthRepository.findById("2023-01")).thenReturn(Optional.empty());
+
+		assertEquals(3, callDataRecordService.archiveMonth("2023-01"));
+
+		var order = inOrder(callDataRecordRepository, archivedMonthRepository);
+		order.verify(callDataRecordRepository).createArchiveTable("cdr_archive_2023_01");
+		order.verify(callDataRecordRepository).moveMonthToArchive(YearMonth.of(2023, 1), "cdr_archive_2023_01");
+		order.verify(archivedMonthRepository).save(argThat(month -> month.getRowCount() == 3));
+	}
+
+	@Test
+	public void testGetCallDataRecordsAfter_NoDataToReceive() {
+		when(callDataRecordRepository.findAllAfterId(0, Limit.of(100))).thenReturn(Collections.emptyList());
+
+		assertThrows(NoDataToReceiveException.class, () -> callDataRecordService.getCallDataRecordsAfter(0, 100));
+	}
+
+	@Test
+	public void testGetCallDataRecordsAfter_LastPage() {
+		when(callDataRecordRepository.findAllAfterId(500, Limit.of(100))).thenReturn(Collections.emptyList());
+
+		assertTrue(callDataRecordService.getCallDataRecordsAfter(500, 100).isEmpty());
+	}
+
+	@Test
+	public void testWriteAllCallDataRecords_Ndjson() throws IOException {
+		CallDataRecord record1 = new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+		CallDataRecord record2 = new CallDataRecord("02", "71234567891", "71234567890",
+				LocalDateTime.parse("2023-01-15T11:00:00"), LocalDateTime.parse("2023-01-15T11:10:00"));
+		when(callDataRecordRepository.streamAll()).thenReturn(Stream.of(record1, record2));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		callDataRecordService.writeAllCallDataRecords(outputStream);
+
+		String[] lines = outputStream.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("{") && lines[0].contains("\"phoneOne\":\"71234567890\""));
+		assertTrue(lines[1].contains("\"startTime\":\"2023-01-15T11:00:00\""));
+		verify(callDataRecordRepository).detach(record1);
+		verify(callDataRecordRepository).detach(record2);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testGenerateCallDataRecords_Parameters() {
+		List<String> existing = List.of("71234567890", "71234567891");
+		when(subscriberRepository.findMsisdns(Limit.of(1000))).thenReturn(existing);
+		when(subscriberRepository.findAllMsisdns()).thenReturn(existing);
+		List<CallDataRecord> saved = new ArrayList<>();
+		doAnswer(invocation -> saved.addAll(invocation.getArgument(0)))
+				.when(callDataRecordRepository).saveAllInBatch(anyList());
+
+		callDataRecordService.generateCallDataRecords(1000, 5, 10, 1);
+
+		ArgumentCaptor<List<Subscriber>> created = ArgumentCaptor.forClass(List.class);
+		verify(subscriberRepository).saveAllInBatch(created.capture());
+		assertEquals(998, created.getValue().size());
+		Set<String> msisdns = new HashSet<>(existing);
+		for (Subscriber subscriber : created.getValue()) {
+			assertEquals(11, subscriber.getMsisdn().length());
+			assertTrue(msisdns.add(subscriber.getMsisdn()));
+		}
+
+		assertTrue(saved.size() >= 28 * 5 && saved.size() <= 31 * 10);
+		assertEquals(saved.size(), meterRegistry.get("cdr.records.generated").counter().count());
+		for (CallDataRecord record : saved) {
+			assertNotEquals(record.getPhoneOne(), record.getPhoneTwo());
+			assertTrue(msisdns.contains(record.getPhoneOne()));
+			assertTrue(msisdns.contains(record.getPhoneTwo()));
+		}
+	}
+
+	@Test
+	public void testGenerateCallDataRecords_IncorrectParameters() {
+		assertThrows(IncorrectGenerationParametersException.class,
+				() -> callDataRecordService.generateCallDataRecords(1, null, null, null));
+		assertThrows(IncorrectGenerationParametersException.class,
+				() -> callDataRecordService.generateCallDataRecords(null, 10, 5, null));
+	}
+}
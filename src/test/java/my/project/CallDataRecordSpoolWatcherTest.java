@@ -0,0 +1,186 @@
+package my.project;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.entity.CallDataRecord;
+import my.project.entity.SpoolCheckpoint;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.SpoolCheckpointRepository;
+import my.project.repositories.SubscriberRepository;
+import my.project.services.CallDataRecordSpoolWatcher;
+import my.project.services.SubscriberDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CallDataRecordSpoolWatcherTest {
+
+	private static final String LINE = "01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00\n";
+
+	@Mock
+	private CallDataRecordRepository callDataRecordRepository;
+
+	@Mock
+	private SpoolCheckpointRepository spoolCheckpointRepository;
+
+	@Mock
+	private SubscriberRepository subscriberRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@TempDir
+	private Path directory;
+
+	private final List<CallDataRecord> saved = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		doAnswer(invocation -> saved.addAll(invocation.getArgument(0)))
+				.when(callDataRecordRepository).saveAllInBatch(anyList());
+		when(spoolCheckpointRepository.findById(any())).thenReturn(Optional.empty());
+	}
+
+	private CallDataRecordSpoolWatcher watcher(long mapWindowBytes) {
+		return new CallDataRecordSpoolWatcher(callDataRecordRepository, spoolCheckpointRepository,
+				new SubscriberDirectory(subscriberRepository, new SimpleMeterRegistry(), false), transactionManager,
+				true, directory.resolve("in").toString(), directory.resolve("archive").toString(),
+				directory.resolve("error").toString(), mapWindowBytes, 2);
+	}
+
+	private Path spoolFile(String name, String content) throws IOException {
+		Files.createDirectories(directory.resolve("in"));
+		Files.createDirectories(directory.resolve("archive"));
+		return Files.writeString(directory.resolve("in").resolve(name), content);
+	}
+
+	@Test
+	public void testProcessPendingFiles_SmallWindows() throws IOException {
+		spoolFile("b.csv", LINE + "\n" + "02,71234567891,71234567890,2023-01-11T10:00:00,2023-01-11T10:05:00\r\n"
+				+ "broken line\n" + LINE.replace("\n", ""));
+		spoolFile("a.csv", LINE);
+		spoolFile("c.csv.tmp", LINE);
+
+		assertEquals(2, watcher(100).processPendingFiles());
+
+		assertEquals(4, saved.size());
+		assertEquals("02", saved.get(2).getCallType());
+		assertEquals("71234567890", saved.get(2).getPhoneTwo());
+		assertTrue(Files.exists(directory.resolve("archive").resolve("a.csv")));
+		assertTrue(Files.exists(directory.resolve("archive").resolve("b.csv")));
+		assertTrue(Files.exists(directory.resolve("in").resolve("c.csv.tmp")));
+		verify(spoolCheckpointRepository).deleteById("a.csv");
+		verify(spoolCheckpointRepository).deleteById("b.csv");
+	}
+
+	@Test
+	public void testProcessPendingFiles_CheckpointPerBatch() throws IOException {
+		Path file = spoolFile("big.csv", LINE.repeat(2500));
+		long size = Files.size(file);
+
+		watcher(64 * 1024).processPendingFiles();
+
+		assertEquals(2500, saved.size());
+		ArgumentCaptor<SpoolCheckpoint> checkpoints = ArgumentCaptor.forClass(SpoolCheckpoint.class);
+		verify(spoolCheckpointRepository, times(3)).save(checkpoints.capture());
+		assertEquals(List.of(1000L * LINE.length(), 2000L * LINE.length(), size),
+				checkpoints.getAllValues().stream().map(SpoolCheckpoint::getOffset).toList());
+	}
+
+	@Test
+	public void testProcessPendingFiles_ResumeFromCheckpoint() throws IOException {
+		Path file = spoolFile("resume.csv", LINE.repeat(3) + LINE.replace("01,", "02,").repeat(2));
+		when(spoolCheckpointRepository.findById("resume.csv")).thenReturn(Optional.of(new SpoolCheckpoint(
+				"resume.csv", 3L * LINE.length(), Files.size(file), Files.getLastModifiedTime(file).toMillis())));
+
+		watcher(100).processPendingFiles();
+
+		assertEquals(2, saved.size());
+		assertEquals("02", saved.get(0).getCallType());
+	}
+
+	@Test
+	public void testProcessPendingFiles_StaleCheckpointIgnored() throws IOException {
+		spoolFile("reused.csv", LINE.repeat(3));
+		when(spoolCheckpointRepository.findById("reused.csv"))
+				.thenReturn(Optional.of(new SpoolCheckpoint("reused.csv", LINE.length(), 1, 1)));
+
+		watcher(100).processPendingFiles();
+
+		assertEquals(3, saved.size());
+	}
+
+	@Test
+	public void testProcessPendingFiles_LineLongerThanWindow() throws IOException {
+		spoolFile("long.csv", LINE + LINE);
+
+		CallDataRecordSpoolWatcher watcher = watcher(32);
+		assertEquals(0, watcher.processPendingFiles());
+
+		assertTrue(Files.exists(directory.resolve("in").resolve("long.csv")));
+		verify(spoolCheckpointRepository, never()).deleteById(any());
+
+		assertEquals(0, watcher.processPendingFiles());
+
+		assertFalse(Files.exists(directory.resolve("in").resolve("long.csv")));
+		assertTrue(Files.exists(directory.resolve("error").resolve("long.csv")));
+		assertEquals(0, watcher.processPendingFiles());
+		verify(spoolCheckpointRepository, never()).deleteById(any());
+	}
+
+	@Test
+	public void testProcessPendingFiles_FailureCountResetAfterSuccess() throws IOException {
+		spoolFile("flaky.csv", LINE);
+		doThrow(new IllegalStateException("database unavailable"))
+				.doAnswer(invocation -> saved.addAll(invocation.getArgument(0)))
+				.when(callDataRecordRepository).saveAllInBatch(anyList());
+		CallDataRecordSpoolWatcher watcher = watcher(100);
+
+		assertEquals(0, watcher.processPendingFiles());
+		assertEquals(1, watcher.processPendingFiles());
+
+		assertEquals(1, saved.size());
+		assertTrue(Files.exists(directory.resolve("archive").resolve("flaky.csv")));
+		assertFalse(Files.exists(directory.resolve("error")));
+	}
+
+	@Test
+	public void testProcessPendingFiles_ArchiveKeepsFileWithSameName() throws IOException {
+		CallDataRecordSpoolWatcher watcher = watcher(100);
+		spoolFile("cdr_20261017.csv", LINE);
+		watcher.processPendingFiles();
+		spoolFile("cdr_20261017.csv", LINE.replace("01,", "02,"));
+		watcher.processPendingFiles();
+
+		assertEquals(2, saved.size());
+		try (Stream<Path> archived = Files.list(directory.resolve("archive"))) {
+			List<String> contents = archived.map(file -> {
+				try {
+					return Files.readString(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).sorted().toList();
+			assertEquals(List.of(LINE, LINE.replace("01,", "02,")), contents);
+		}
+		assertEquals(LINE, Files.readString(directory.resolve("archive").resolve("cdr_20261017.csv")));
+	}
+}
@@ -0,0 +1,43 @@
+package my.project;
+
+import my.project.entity.CallDataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallDataRecordTest {
+
+	@Test
+	public void testSetPhone_RejectsMalformedMsisdn() {
+		CallDataRecord record = new CallDataRecord();
+		record.setPhoneOne("01234567890");
+		record.setPhoneTwo("71234567891");
+
+		assertThrows(IllegalArgumentException.class, () -> record.setPhoneOne("7123456789"));
+		assertThrows(IllegalArgumentException.class, () -> record.setPhoneTwo("7123456789a"));
+		assertThrows(IllegalArgumentException.class, () -> record.setPhoneTwo(null));
+		assertEquals("01234567890", record.getPhoneOne());
+		assertEquals(1234567890L, record.getPhoneOneNumber());
+		assertEquals("71234567891", record.getPhoneTwo());
+	}
+
+	@Test
+	public void testConstructor_RejectsMalformedMsisdn() {
+		LocalDateTime start = LocalDateTime.parse("2023-01-10T10:00:00");
+
+		assertThrows(IllegalArgumentException.class,
+				() -> new CallDataRecord("01", "+7123456789", "71234567891", start, start.plusMinutes(1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> new CallDataRecord("01", "71234567890", "", start, start.plusMinutes(1)));
+	}
+
+	@Test
+	public void testNewRecord_HasNoMsisdn() {
+		CallDataRecord record = new CallDataRecord();
+
+		assertNull(record.getPhoneOne());
+		assertEquals(-1, record.getPhoneTwoNumber());
+	}
+}
@@ -0,0 +1,28 @@
+package my.project;
+
+import my.project.util.CallDurationFormat;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallDurationFormatTest {
+
+	@Test
+	public void testFormat() {
+		assertEquals("00:00:00", CallDurationFormat.format(0));
+		assertEquals("00:05:30", CallDurationFormat.format(330));
+		assertEquals("23:59:59", CallDurationFormat.format(86_399));
+		assertEquals("24:00:00", CallDurationFormat.format(86_400));
+		assertEquals("1234:05:06", CallDurationFormat.format(1234 * 3600 + 306));
+		assertThrows(IllegalArgumentException.class, () -> CallDurationFormat.format(-1));
+	}
+
+	@Test
+	public void testParse() {
+		assertEquals(330, CallDurationFormat.parse("00:05:30"));
+		assertEquals(1234 * 3600 + 306, CallDurationFormat.parse("1234:05:06"));
+		assertThrows(IllegalArgumentException.class, () -> CallDurationFormat.parse("00:60:00"));
+		assertThrows(IllegalArgumentException.class, () -> CallDurationFormat.parse("5:30"));
+		assertThrows(IllegalArgumentException.class, () -> CallDurationFormat.parse("aa:bb:cc"));
+	}
+}
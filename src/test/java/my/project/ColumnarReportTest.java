@@ -0,0 +1,85 @@
+package my.project;
+
+import my.project.entity.CallDataRecord;
+import my.project.util.ColumnarReportReader;
+import my.project.util.ColumnarReportWriter;
+import my.project.util.CsvRowWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarReportTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		List<CallDataRecord> records = new ArrayList<>();
+		Random random = new Random(42);
+		LocalDateTime time = LocalDateTime.parse("2023-01-01T00:00:00");
+		for (int i = 0; i < 10_000; i++) {
+			time = time.plusSeconds(random.nextInt(3600));
+			String other = "7" + (9_000_000_000L + random.nextInt(20));
+			String type = random.nextBoolean() ? "01" : "02";
+			records.add(new CallDataRecord(type, "71234567890", other, time, time.plusSeconds(random.nextInt(3600))));
+		}
+		// Записи не обязаны идти по возрастанию времени
+		records.add(new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("1999-12-31T23:59:59"), LocalDateTime.parse("2000-01-01T00:00:10")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ColumnarReportWriter writer = new ColumnarReportWriter(out);
+		for (CallDataRecord record : records) {
+			writer.writeRow(record.getCallType(), record.getPhoneOne(), record.getPhoneTwo(),
+					record.getStartTime(), record.getEndTime());
+		}
+		writer.finish();
+
+		try (ColumnarReportReader reader = new ColumnarReportReader(new ByteArrayInputStream(out.toByteArray()))) {
+			for (CallDataRecord expected : records) {
+				CallDataRecord actual = reader.read();
+				assertNotNull(actual);
+				assertEquals(expected.getCallType(), actual.getCallType());
+				assertEquals(expected.getPhoneOne(), actual.getPhoneOne());
+				assertEquals(expected.getPhoneTwo(), actual.getPhoneTwo());
+				assertEquals(expected.getStartTime(), actual.getStartTime());
+				assertEquals(expected.getEndTime(), actual.getEndTime());
+			}
+			assertNull(reader.read());
+			assertNull(reader.read());
+		}
+
+		StringWriter csv = new StringWriter();
+		CsvRowWriter csvWriter = new CsvRowWriter(csv, "\n");
+		for (CallDataRecord record : records) {
+			csvWriter.writeRow(record.getCallType(), record.getPhoneOne(), record.getPhoneTwo(),
+					record.getStartTime(), record.getEndTime());
+		}
+		assertTrue(out.size() * 5 < csv.toString().length(),
+				"columnar " + out.size() + " bytes, csv " + csv.toString().length() + " bytes");
+	}
+
+	@Test
+	public void testEmptyReport() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ColumnarReportWriter(out).finish();
+
+		try (ColumnarReportReader reader = new ColumnarReportReader(new ByteArrayInputStream(out.toByteArray()))) {
+			assertNull(reader.read());
+		}
+	}
+
+	@Test
+	public void testNotColumnarReport() {
+		byte[] csv = "01,71234567890,71234567891\n".getBytes();
+
+		assertThrows(IOException.class, () -> new ColumnarReportReader(new ByteArrayInputStream(csv)));
+	}
+}
@@ -0,0 +1,69 @@
+package my.project;
+
+import my.project.entity.CallDataRecord;
+import my.project.util.CsvRowParser;
+import my.project.util.CsvRowWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvRowParserTest {
+
+	@Test
+	public void testParse_WriterOutput() throws IOException {
+		StringWriter writer = new StringWriter();
+		new CsvRowWriter(writer, "").writeRow("02", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-10T23:59:59"), LocalDateTime.parse("2023-01-11T00:05:07"));
+
+		CallDataRecord record = CsvRowParser.parse(writer.toString());
+
+		assertNull(record.getId());
+		assertEquals("02", record.getCallType());
+		assertEquals("71234567890", record.getPhoneOne());
+		assertEquals("71234567891", record.getPhoneTwo());
+		assertEquals(LocalDateTime.parse("2023-01-10T23:59:59"), record.getStartTime());
+		assertEquals(LocalDateTime.parse("2023-01-11T00:05:07"), record.getEndTime());
+	}
+
+	@Test
+	public void testParse_IsoWithoutSeconds() {
+		CallDataRecord record = CsvRowParser.parse("01,71234567890,71234567891,2023-01-10T10:00,2023-01-10T10:05:00.5");
+
+		assertEquals(LocalDateTime.parse("2023-01-10T10:00:00"), record.getStartTime());
+		assertEquals(LocalDateTime.parse("2023-01-10T10:05:00"), record.getEndTime());
+	}
+
+	@Test
+	public void testParse_Invalid() {
+		assertThrows(IllegalArgumentException.class, () -> CsvRowParser.parse("01,71234567890,71234567891"));
+		assertThrows(IllegalArgumentException.class,
+				() -> CsvRowParser.parse("01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:00,extra"));
+		assertThrows(IllegalArgumentException.class,
+				() -> CsvRowParser.parse("01,71234567890,71234567891,2023-02-30T10:00:00,2023-01-10T10:05:00"));
+		assertThrows(IllegalArgumentException.class,
+				() -> CsvRowParser.parse("01,71234567890,71234567891,yesterday,2023-01-10T10:05:00"));
+	}
+
+	@Test
+	public void testParse_ByteBuffer() {
+		byte[] bytes = "xx02,71234567890,71234567891,2023-01-10T23:59:59,2023-01-11T00:05\r\nyy"
+				.getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		CallDataRecord record = CsvRowParser.parse(buffer, 2, bytes.length - 3);
+
+		assertEquals("02", record.getCallType());
+		assertEquals("71234567890", record.getPhoneOne());
+		assertEquals("71234567891", record.getPhoneTwo());
+		assertEquals(LocalDateTime.parse("2023-01-10T23:59:59"), record.getStartTime());
+		assertEquals(LocalDateTime.parse("2023-01-11T00:05:00"), record.getEndTime());
+		assertEquals(0, buffer.position());
+		assertThrows(IllegalArgumentException.class, () -> CsvRowParser.parse(buffer, 0, 10));
+	}
+}
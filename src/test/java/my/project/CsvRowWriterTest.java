@@ -0,0 +1,41 @@
+package my.project;
+
+import my.project.util.CsvRowWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvRowWriterTest {
+
+	@Test
+	public void testWriteRow() throws IOException {
+		StringWriter writer = new StringWriter();
+		CsvRowWriter rowWriter = new CsvRowWriter(writer, "\n");
+
+		rowWriter.writeRow("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:07"));
+		rowWriter.writeRow("02", "71234567891", "71234567890",
+				LocalDateTime.parse("0987-12-31T23:59:59"), LocalDateTime.parse("0988-01-01T00:00:01"));
+
+		assertEquals("""
+				01,71234567890,71234567891,2023-01-10T10:00:00,2023-01-10T10:05:07
+				02,71234567891,71234567890,0987-12-31T23:59:59,0988-01-01T00:00:01
+				""", writer.toString());
+	}
+
+	@Test
+	public void testWriteRow_LongValues() throws IOException {
+		StringWriter writer = new StringWriter();
+		CsvRowWriter rowWriter = new CsvRowWriter(writer, "\n");
+		String longValue = "7".repeat(200);
+
+		rowWriter.writeRow("01", longValue, longValue,
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+
+		assertEquals("01," + longValue + "," + longValue + ",2023-01-10T10:00:00,2023-01-10T10:05:00\n", writer.toString());
+	}
+}
@@ -0,0 +1,135 @@
+package my.project;
+
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsage;
+import my.project.util.MonthlyUsageAccumulator;
+import my.project.util.MsisdnIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonthlyUsageAccumulatorTest {
+
+	@Test
+	public void testAdd_SplitsByDirectionAndMonth() {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		accumulator.add(new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00")));
+		accumulator.add(new CallDataRecord("02", "71234567891", "71234567890",
+				LocalDateTime.parse("2023-01-15T11:00:00"), LocalDateTime.parse("2023-01-15T11:10:00")));
+		accumulator.add(new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-02-01T00:00:00"), LocalDateTime.parse("2023-02-01T00:01:00")));
+
+		List<MonthlyUsage> usages = accumulator.toMonthlyUsage().stream()
+				.sorted(Comparator.comparing(MonthlyUsage::getMonth).thenComparing(MonthlyUsage::getMsisdn))
+				.toList();
+
+		assertEquals(4, usages.size());
+		assertUsage(usages.get(0), "71234567890", "2023-01", 0, 900);
+		assertUsage(usages.get(1), "71234567891", "2023-01", 900, 0);
+		assertUsage(usages.get(2), "71234567890", "2023-02", 0, 60);
+		assertUsage(usages.get(3), "71234567891", "2023-02", 60, 0);
+	}
+
+	@Test
+	public void testAdd_CallCrossingMonthBoundaryBelongsToStartMonth() {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		accumulator.add(new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-31T23:58:00"), LocalDateTime.parse("2023-02-01T00:03:00")));
+
+		List<MonthlyUsage> usages = accumulator.toMonthlyUsage();
+
+		assertEquals(2, usages.size());
+		assertTrue(usages.stream().allMatch(usage -> usage.getMonth().equals("2023-01")));
+		assertTrue(usages.stream().allMatch(usage -> usage.getIncomingSeconds() + usage.getOutgoingSeconds() == 300));
+	}
+
+	@Test
+	public void testAdd_LeadingZeroMsisdn() {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		accumulator.add(new CallDataRecord("01", "01234567890", "71234567891",
+				LocalDateTime.parse("2023-03-10T10:00:00"), LocalDateTime.parse("2023-03-10T10:00:30")));
+		accumulator.add(new CallDataRecord("02", "71234567891", "01234567890",
+				LocalDateTime.parse("2023-03-11T10:00:00"), LocalDateTime.parse("2023-03-11T10:00:10")));
+
+		List<MonthlyUsage> usages = accumulator.toMonthlyUsage().stream()
+				.sorted(Comparator.comparing(MonthlyUsage::getMsisdn))
+				.toList();
+
+		assertEquals(2, usages.size());
+		assertUsage(usages.get(0), "01234567890", "2023-03", 0, 40);
+		assertUsage(usages.get(1), "71234567891", "2023-03", 40, 0);
+	}
+
+	@Test
+	public void testAdd_MissingMsisdn() {
+		MonthlyUsageAccumulator accumulator = new MonthlyUsageAccumulator();
+		CallDataRecord record = new CallDataRecord();
+		record.setCallType("01");
+		record.setPhoneTwo("71234567891");
+		record.setStartTime(LocalDateTime.parse("2023-03-10T10:00:00"));
+		record.setEndTime(LocalDateTime.parse("2023-03-10T10:00:30"));
+
+		assertThrows(IllegalArgumentException.class, () -> accumulator.add(record));
+	}
+
+	@Test
+	public void testAdd_SubscribersAndUnknownNumbersMatchHashTotals() {
+		MsisdnIndex subscribers = new MsisdnIndex(new long[]{71234567890L, 1234567891L});
+		MonthlyUsageAccumulator dense = new MonthlyUsageAccumulator(subscribers);
+		MonthlyUsageAccumulator other = new MonthlyUsageAccumulator(subscribers);
+		MonthlyUsageAccumulator hashed = new MonthlyUsageAccumulator();
+		List<CallDataRecord> records = List.of(
+				new CallDataRecord("01", "71234567890", "01234567891",
+						LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00")),
+				new CallDataRecord("02", "71234567890", "79999999999",
+						LocalDateTime.parse("2023-01-15T11:00:00"), LocalDateTime.parse("2023-01-15T11:10:00")),
+				new CallDataRecord("01", "01234567891", "71234567890",
+						LocalDateTime.parse("2023-02-01T00:00:00"), LocalDateTime.parse("2023-02-01T00:00:00")));
+		dense.add(records.get(0));
+		dense.add(records.get(1));
+		other.add(records.get(2));
+		records.forEach(hashed::add);
+
+		dense.addAll(other);
+
+		assertEquals(sorted(hashed.toMonthlyUsage()), sorted(dense.toMonthlyUsage()));
+		assertEquals(5, dense.toMonthlyUsage().size());
+	}
+
+	@Test
+	public void testAddAll_DifferentSnapshots() {
+		MonthlyUsageAccumulator totals = new MonthlyUsageAccumulator(new MsisdnIndex(new long[]{71234567891L}));
+		MonthlyUsageAccumulator part = new MonthlyUsageAccumulator(new MsisdnIndex(new long[]{71234567890L}));
+		part.add(new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-03-10T10:00:00"), LocalDateTime.parse("2023-03-10T10:00:30")));
+
+		totals.addAll(part);
+
+		List<MonthlyUsage> usages = totals.toMonthlyUsage().stream()
+				.sorted(Comparator.comparing(MonthlyUsage::getMsisdn))
+				.toList();
+		assertEquals(2, usages.size());
+		assertUsage(usages.get(0), "71234567890", "2023-03", 0, 30);
+		assertUsage(usages.get(1), "71234567891", "2023-03", 30, 0);
+	}
+
+	private static List<String> sorted(List<MonthlyUsage> usages) {
+		return usages.stream()
+				.map(usage -> usage.getMsisdn() + "," + usage.getMonth() + ","
+						+ usage.getIncomingSeconds() + "," + usage.getOutgoingSeconds())
+				.sorted()
+				.toList();
+	}
+
+	private static void assertUsage(MonthlyUsage usage, String msisdn, String month, long incoming, long outgoing) {
+		assertEquals(msisdn, usage.getMsisdn());
+		assertEquals(month, usage.getMonth());
+		assertEquals(incoming, usage.getIncomingSeconds());
+		assertEquals(outgoing, usage.getOutgoingSeconds());
+	}
+}
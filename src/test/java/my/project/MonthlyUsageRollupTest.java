@@ -0,0 +1,210 @@
+package my.project;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import my.project.entity.CallDataRecord;
+import my.project.entity.MonthlyUsage;
+import my.project.repositories.ArchivedMonthRepository;
+import my.project.repositories.CallDataRecordRepository;
+import my.project.repositories.MonthlyUsageRepository;
+import my.project.services.CallDataRecordService;
+import my.project.services.MonthlyUsageRebuilder;
+import my.project.services.ReportStorage;
+import my.project.services.SubscriberDirectory;
+import my.project.services.UsageDataReportCache;
+import my.project.services.UsageDataReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class MonthlyUsageRollupTest {
+
+	@Autowired
+	private CallDataRecordService callDataRecordService;
+
+	@Autowired
+	private UsageDataReportService usageDataReportService;
+
+	@Autowired
+	private MonthlyUsageRepository monthlyUsageRepository;
+
+	@Autowired
+	private CallDataRecordRepository callDataRecordRepository;
+
+	@Autowired
+	private ArchivedMonthRepository archivedMonthRepository;
+
+	@Autowired
+	private UsageDataReportCache usageDataReportCache;
+
+	@Autowired
+	private SubscriberDirectory subscriberDirectory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ReportStorage reportStorage;
+
+	@BeforeEach
+	public void setUp() {
+		callDataRecordService.deleteAllCallDataRecords();
+		usageDataReportCache.invalidateAll();
+	}
+
+	@Test
+	public void testIncrementalRollup_MatchesRebuild() {
+		callDataRecordService.generateCallDataRecords();
+		Map<String, String> incremental = snapshot();
+
+		usageDataReportService.rebuildMonthlyUsage();
+		Map<String, String> rebuilt = snapshot();
+
+		assertFalse(incremental.isEmpty());
+		assertEquals(rebuilt, incremental);
+	}
+
+	@Test
+	public void testParallelRebuild_ByteIdenticalToSequential() throws Exception {
+		callDataRecordService.generateCallDataRecords(50, 5, 30, 6);
+		usageDataReportService.rebuildMonthlyUsage();
+		Map<String, String> sequential = monthlyReports();
+		assertTrue(subscriberDirectory.size() >= 50);
+
+		MonthlyUsageRebuilder rebuilder =
+				new MonthlyUsageRebuilder(callDataRecordRepository, monthlyUsageRepository, archivedMonthRepository,
+						subscriberDirectory, transactionManager, 4);
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				monthlyUsageRepository.deleteAllExceptArchivedMonths();
+				rebuilder.rebuild();
+			});
+		} finally {
+			rebuilder.shutdown();
+		}
+		usageDataReportCache.invalidateAll();
+		Map<String, String> parallel = monthlyReports();
+
+		assertTrue(sequential.size() >= 6);
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void testArchiveMonth_MovesRecordsAndKeepsRollup() throws Exception {
+		callDataRecordRepository.saveAllInBatch(List.of(
+				new CallDataRecord("01", "71112223301", "71112223302",
+						LocalDateTime.of(2001, 3, 10, 10, 0), LocalDateTime.of(2001, 3, 10, 10, 5)),
+				new CallDataRecord("02", "71112223301", "71112223303",
+						LocalDateTime.of(2001, 3, 31, 23, 59), LocalDateTime.of(2001, 4, 1, 0, 1)),
+				new CallDataRecord("01", "71112223301", "71112223302",
+						LocalDateTime.of(2001, 4, 1, 0, 0), LocalDateTime.of(2001, 4, 1, 0, 1))));
+		String before = objectMapper.writeValueAsString(
+				usageDataReportService.getUsageDataReportByMsisdnAndMonth("71112223301", "2001-03"));
+
+		assertEquals(2, callDataRecordService.archiveMonth("2001-03"));
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cdr WHERE start_time >= 983404800 "
+				+ "AND start_time < 986083200", Integer.class));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cdr WHERE start_time >= 986083200 "
+				+ "AND start_time < 988675200", Integer.class));
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cdr_archive_2001_03", Integer.class));
+		assertEquals(2, archivedMonthRepository.findById("2001-03").orElseThrow().getRowCount());
+
+		usageDataReportService.rebuildMonthlyUsage();
+		usageDataReportCache.invalidateAll();
+		assertEquals(before, objectMapper.writeValueAsString(
+				usageDataReportService.getUsageDataReportByMsisdnAndMonth("71112223301", "2001-03")));
+
+		String uuid = callDataRecordService.generateReport("71112223301", "2001-03-01", "2001-04-30");
+		List<String> lines = Files.readAllLines(reportStorage.findReport(uuid));
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0).contains("2001-03-10T10:00"));
+		assertTrue(lines.get(2).contains("2001-04-01T00:00"));
+
+		callDataRecordService.deleteAllCallDataRecords();
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+				+ "WHERE TABLE_NAME = 'CDR_ARCHIVE_2001_03'", Integer.class));
+		assertEquals(0, archivedMonthRepository.count());
+	}
+
+	@Test
+	public void testArchiveMonth_ExistingTableWithDifferentColumnOrder() throws Exception {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE cdr_archive_2001_05 (end_time BIGINT, duration INTEGER, start_time BIGINT, "
+				+ "phone_two BIGINT, phone_one BIGINT, call_type TINYINT, id BIGINT)");
+		callDataRecordRepository.saveAllInBatch(List.of(new CallDataRecord("02", "71112223301", "71112223302",
+				LocalDateTime.of(2001, 5, 10, 10, 0), LocalDateTime.of(2001, 5, 10, 10, 5))));
+
+		assertEquals(1, callDataRecordService.archiveMonth("2001-05"));
+
+		String uuid = callDataRecordService.generateReport("71112223301", "2001-05-01", "2001-05-31");
+		assertEquals(List.of("02,71112223301,71112223302,2001-05-10T10:00:00,2001-05-10T10:05:00"),
+				Files.readAllLines(reportStorage.findReport(uuid)));
+	}
+
+	@Test
+	public void testBatchReports_MatchSingleReports() throws Exception {
+		callDataRecordService.generateCallDataRecords(30, 5, 20, 3);
+		String month = monthlyUsageRepository.findAll().get(0).getMonth();
+		List<String> msisdns = new ArrayList<>(monthlyUsageRepository.findAllByMonthOrderByMsisdn(month).stream()
+				.map(MonthlyUsage::getMsisdn)
+				.toList());
+		Collections.reverse(msisdns);
+		msisdns.add("70000000000");
+
+		for (String requestedMonth : Arrays.asList(month, null)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			List<String> batch = usageDataReportService.prepareBatch(msisdns, requestedMonth);
+			usageDataReportService.writeUsageDataReports(batch, requestedMonth, out);
+
+			List<String> expected = new ArrayList<>();
+			for (String msisdn : new TreeSet<>(msisdns.subList(0, msisdns.size() - 1))) {
+				expected.add(objectMapper.writeValueAsString(
+						usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, requestedMonth)));
+			}
+			assertEquals(expected, out.toString(StandardCharsets.UTF_8).lines().toList());
+		}
+	}
+
+	private Map<String, String> monthlyReports() throws Exception {
+		Map<String, String> reports = new TreeMap<>();
+		for (String month : monthlyUsageRepository.findAll().stream().map(MonthlyUsage::getMonth).distinct().toList()) {
+			reports.put(month, objectMapper.writeValueAsString(usageDataReportService.getUsageDataReportByMsisdn(month)));
+		}
+		return reports;
+	}
+
+	private Map<String, String> snapshot() {
+		return monthlyUsageRepository.findAll().stream()
+				.collect(Collectors.toMap(
+						usage -> usage.getMsisdn() + "/" + usage.getMonth(),
+						usage -> usage.getIncomingSeconds() + "/" + usage.getOutgoingSeconds()));
+	}
+}
@@ -0,0 +1,107 @@
+package my.project;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.entity.MonthlyUsageId;
+import my.project.repositories.MonthlyUsageRepository;
+import my.project.services.MsisdnActivityFilter;
+import my.project.util.BloomFilter;
+import my.project.util.CallDataRecordsSavedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MsisdnActivityFilterTest {
+
+	@Mock
+	private MonthlyUsageRepository monthlyUsageRepository;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private MsisdnActivityFilter filter;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		filter = new MsisdnActivityFilter(monthlyUsageRepository, meterRegistry, 1000, 0.01);
+	}
+
+	@Test
+	public void testBloomFilter_NoFalseNegativesAndBoundedFalsePositives() {
+		BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+		SplittableRandom random = new SplittableRandom(5);
+		long[] added = new long[10_000];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = 70_000_000_000L + random.nextLong(10_000_000_000L);
+			bloomFilter.put(added[i]);
+		}
+
+		for (long key : added) {
+			assertTrue(bloomFilter.mightContain(key));
+		}
+		int falsePositives = 0;
+		for (long key = 1; key <= 100_000; key++) {
+			if (bloomFilter.mightContain(key)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+		assertTrue(bloomFilter.expectedFalsePositiveRate() < 0.02);
+	}
+
+	@Test
+	public void testBloomFilter_InvalidParameters() {
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 0));
+	}
+
+	@Test
+	public void testMightContain_PassesEverythingUntilLoaded() {
+		assertTrue(filter.mightContain("71234567890", YearMonth.of(2023, 1)));
+		assertTrue(filter.mightContain("71234567890", YearMonth.of(2023, 1), YearMonth.of(2023, 12)));
+		assertEquals(2, meterRegistry.get("cdr.msisdn.filter.checks").tag("result", "passed").counter().count());
+	}
+
+	@Test
+	public void testMightContain_LoadedFromRollupsAndSavedRecords() {
+		when(monthlyUsageRepository.streamAllIds()).thenReturn(Stream.of(new MonthlyUsageId("71234567890", "2023-01")));
+		filter.load();
+		filter.onCallDataRecordsSaved(new CallDataRecordsSavedEvent(Set.of(new MonthlyUsageId("01234567891", "2023-03"))));
+
+		assertTrue(filter.mightContain("71234567890", YearMonth.of(2023, 1)));
+		assertTrue(filter.mightContain("71234567890", null));
+		assertFalse(filter.mightContain("71234567890", YearMonth.of(2023, 2)));
+		assertTrue(filter.mightContain("01234567891", YearMonth.of(2023, 3)));
+		assertFalse(filter.mightContain("79999999999", null));
+		assertFalse(filter.mightContain("7123456789x", null));
+
+		assertTrue(filter.mightContain("01234567891", YearMonth.of(2023, 1), YearMonth.of(2023, 12)));
+		assertFalse(filter.mightContain("01234567891", YearMonth.of(2023, 1), YearMonth.of(2023, 2)));
+		assertFalse(filter.mightContain("71234567890", YearMonth.of(2023, 2), YearMonth.of(2023, 1)));
+		assertEquals(4, meterRegistry.get("cdr.msisdn.filter.checks").tag("result", "passed").counter().count());
+		assertEquals(5, meterRegistry.get("cdr.msisdn.filter.checks").tag("result", "rejected").counter().count());
+	}
+
+	@Test
+	public void testFalsePositiveRateMetrics() {
+		when(monthlyUsageRepository.streamAllIds()).thenReturn(Stream.of(
+				new MonthlyUsageId("71234567890", "2023-01"),
+				new MonthlyUsageId("71234567891", "2023-02")));
+		filter.load();
+
+		double all = meterRegistry.get("cdr.msisdn.filter.fpp").tag("scope", "all").gauge().value();
+		double month = meterRegistry.get("cdr.msisdn.filter.fpp").tag("scope", "month").gauge().value();
+		assertTrue(all > 0 && all < 0.01);
+		assertTrue(month > 0 && month < all);
+		assertEquals(0.01, meterRegistry.get("cdr.msisdn.filter.fpp.target").gauge().value());
+	}
+}
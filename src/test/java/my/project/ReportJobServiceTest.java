@@ -0,0 +1,116 @@
+package my.project;
+
+import my.project.dto.ReportJobDTO;
+import my.project.services.CallDataRecordService;
+import my.project.services.ReportJobService;
+import my.project.util.NoDataToReceiveException;
+import my.project.util.ReportNotReadyException;
+import my.project.util.ReportQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReportJobServiceTest {
+
+	private final CallDataRecordService callDataRecordService = mock(CallDataRecordService.class);
+
+	private ReportJobService reportJobService;
+
+	@AfterEach
+	public void tearDown() {
+		reportJobService.shutdown();
+	}
+
+	@Test
+	public void testSubmit_Done() throws Exception {
+		reportJobService = new ReportJobService(callDataRecordService, 1, 1);
+		ReportJobDTO job = new ReportJobDTO("uuid-1", "71234567890", null, null);
+		when(callDataRecordService.createReportJob("71234567890", "2023-01-01", "2023-12-31", "csv")).thenReturn(job);
+		doAnswer(invocation -> {
+			job.setRowsWritten(3);
+			return null;
+		}).when(callDataRecordService).writeReport(job);
+
+		reportJobService.submit("71234567890", "2023-01-01", "2023-12-31", "csv");
+
+		awaitStatus("uuid-1", ReportJobDTO.Status.DONE);
+		assertEquals(3, reportJobService.getJob("uuid-1").getRowsWritten());
+	}
+
+	@Test
+	public void testSubmit_FailedWhenNoData() throws Exception {
+		reportJobService = new ReportJobService(callDataRecordService, 1, 1);
+		ReportJobDTO job = new ReportJobDTO("uuid-1", "71234567890", null, null);
+		when(callDataRecordService.createReportJob("71234567890", "2023-01-01", "2023-12-31", "csv")).thenReturn(job);
+		doThrow(new NoDataToReceiveException()).when(callDataRecordService).writeReport(job);
+
+		reportJobService.submit("71234567890", "2023-01-01", "2023-12-31", "csv");
+
+		awaitStatus("uuid-1", ReportJobDTO.Status.FAILED);
+		assertNotNull(reportJobService.getJob("uuid-1").getError());
+	}
+
+	@Test
+	public void testSubmit_QueueFull() throws Exception {
+		reportJobService = new ReportJobService(callDataRecordService, 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < 3; i++) {
+			String uuid = "uuid-" + i;
+			when(callDataRecordService.createReportJob(uuid, "2023-01-01", "2023-12-31", "csv"))
+					.thenReturn(new ReportJobDTO(uuid, uuid, null, null));
+		}
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(callDataRecordService).writeReport(any());
+
+		reportJobService.submit("uuid-0", "2023-01-01", "2023-12-31", "csv");
+		reportJobService.submit("uuid-1", "2023-01-01", "2023-12-31", "csv");
+
+		assertThrows(ReportQueueFullException.class, () -> reportJobService.submit("uuid-2", "2023-01-01", "2023-12-31", "csv"));
+		assertThrows(NoDataToReceiveException.class, () -> reportJobService.getJob("uuid-2"));
+		release.countDown();
+	}
+
+	@Test
+	public void testGetJob_Unknown() {
+		reportJobService = new ReportJobService(callDataRecordService, 1, 1);
+
+		assertThrows(NoDataToReceiveException.class, () -> reportJobService.getJob("unknown"));
+	}
+
+	@Test
+	public void testCheckReportReady() throws Exception {
+		reportJobService = new ReportJobService(callDataRecordService, 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		ReportJobDTO running = new ReportJobDTO("uuid-1", "71234567890", null, null);
+		ReportJobDTO failed = new ReportJobDTO("uuid-2", "71234567891", null, null);
+		when(callDataRecordService.createReportJob("71234567890", "2023-01-01", "2023-12-31", "csv")).thenReturn(running);
+		when(callDataRecordService.createReportJob("71234567891", "2023-01-01", "2023-12-31", "csv")).thenReturn(failed);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(callDataRecordService).writeReport(running);
+		doThrow(new NoDataToReceiveException()).when(callDataRecordService).writeReport(failed);
+
+		reportJobService.submit("71234567890", "2023-01-01", "2023-12-31", "csv");
+		awaitStatus("uuid-1", ReportJobDTO.Status.RUNNING);
+		assertThrows(ReportNotReadyException.class, () -> reportJobService.checkReportReady("uuid-1"));
+
+		release.countDown();
+		awaitStatus("uuid-1", ReportJobDTO.Status.DONE);
+		assertDoesNotThrow(() -> reportJobService.checkReportReady("uuid-1"));
+
+		reportJobService.submit("71234567891", "2023-01-01", "2023-12-31", "csv");
+		awaitStatus("uuid-2", ReportJobDTO.Status.FAILED);
+		assertThrows(ReportNotReadyException.class, () -> reportJobService.checkReportReady("uuid-2"));
+
+		assertDoesNotThrow(() -> reportJobService.checkReportReady("unknown"));
+	}
+
+	private void awaitStatus(String uuid, ReportJobDTO.Status status) throws InterruptedException {
+		for (int i = 0; i < 500 && reportJobService.getJob(uuid).getStatus() != status; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(status, reportJobService.getJob(uuid).getStatus());
+	}
+}
@@ -0,0 +1,55 @@
+package my.project;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.CallDataRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class RepositoryRowMetricsTest {
+
+	@Autowired
+	private CallDataRecordRepository callDataRecordRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	@Transactional
+	public void testRowsRecordedPerMethod() {
+		LocalDateTime start = LocalDateTime.parse("2023-01-10T10:00:00");
+		callDataRecordRepository.saveAllInBatch(List.of(
+				new CallDataRecord("01", "71234567890", "71234567891", start, start.plusMinutes(5)),
+				new CallDataRecord("02", "71234567891", "71234567890", start, start.plusMinutes(1)),
+				new CallDataRecord("01", "71234567892", "71234567891", start, start.plusMinutes(2))));
+
+		assertEquals(2, callDataRecordRepository.findAllAfterId(0, Limit.of(2)).size());
+		assertEquals(CallDataRecord.toEpochSecond(start.plusMinutes(5)),
+				callDataRecordRepository.findLastCallEndEpochSecond().orElseThrow());
+		try (Stream<CallDataRecord> records = callDataRecordRepository.streamAll()) {
+			assertEquals(3, records.count());
+		}
+
+		assertEquals(2, rows("findAllAfterId").max());
+		assertEquals(1, rows("findLastCallEndEpochSecond").max());
+		assertEquals(3, rows("streamAll").max());
+	}
+
+	private DistributionSummary rows(String method) {
+		return meterRegistry.get("cdr.repository.rows")
+				.tag("repository", "CallDataRecordRepository")
+				.tag("method", method)
+				.summary();
+	}
+}
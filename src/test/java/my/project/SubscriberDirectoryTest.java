@@ -0,0 +1,106 @@
+package my.project;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.entity.CallDataRecord;
+import my.project.repositories.SubscriberRepository;
+import my.project.services.SubscriberDirectory;
+import my.project.util.MsisdnIndex;
+import my.project.util.SubscribersSavedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SubscriberDirectoryTest {
+
+	@Mock
+	private SubscriberRepository subscriberRepository;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void testMsisdnIndex_DenseIds() {
+		SplittableRandom random = new SplittableRandom(3);
+		long[] msisdns = new long[50_000];
+		for (int i = 0; i < msisdns.length; i++) {
+			msisdns[i] = 70_000_000_000L + i * 7919L + random.nextInt(7919);
+		}
+
+		MsisdnIndex index = new MsisdnIndex(msisdns);
+
+		assertEquals(msisdns.length, index.size());
+		for (int id = 0; id < msisdns.length; id++) {
+			assertEquals(id, index.idOf(msisdns[id]));
+			assertEquals(msisdns[id], index.msisdnOf(id));
+		}
+		assertEquals(-1, index.idOf(69_999_999_999L));
+		assertEquals(-1, index.idOf(-1));
+		assertEquals(0, new MsisdnIndex(new long[]{71234567890L, 71234567890L}).idOf(71234567890L));
+	}
+
+	@Test
+	public void testRefresh_KeepsIdsAndSwapsSnapshot() {
+		when(subscriberRepository.findMsisdns(any())).thenReturn(List.of("71234567890", "01234567891"));
+		SubscriberDirectory directory = new SubscriberDirectory(subscriberRepository, meterRegistry, true);
+		CallDataRecord record = new CallDataRecord("01", "71234567890", "79999999999",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+
+		assertFalse(directory.accepts(record));
+		assertEquals(1, directory.idOf("01234567891"));
+		assertEquals("01234567891", directory.msisdnOf(1));
+		assertEquals(-1, directory.idOf("79999999999"));
+		MsisdnIndex snapshot = directory.snapshot();
+
+		when(subscriberRepository.findMsisdns(any())).thenReturn(List.of("71234567890", "01234567891", "79999999999"));
+		directory.onSubscribersSaved(new SubscribersSavedEvent(1));
+
+		assertTrue(directory.accepts(record));
+		assertEquals(0, directory.idOf("71234567890"));
+		assertEquals(2, directory.idOf("79999999999"));
+		assertEquals(3, directory.size());
+		assertEquals(-1, snapshot.idOf(79999999999L));
+		assertEquals(3, meterRegistry.get("cdr.subscribers.directory.size").gauge().value());
+		assertEquals(2, meterRegistry.get("cdr.subscribers.directory.refresh").timer().count());
+	}
+
+	@Test
+	public void testOnSubscribersSaved_NotLoaded() {
+		SubscriberDirectory directory = new SubscriberDirectory(subscriberRepository, meterRegistry, false);
+
+		directory.onSubscribersSaved(new SubscribersSavedEvent(10));
+
+		verify(subscriberRepository, never()).findMsisdns(any());
+		assertEquals(0, meterRegistry.get("cdr.subscribers.directory.size").gauge().value());
+	}
+
+	@Test
+	public void testAccepts() {
+		when(subscriberRepository.findMsisdns(any())).thenReturn(List.of("71234567890", "71234567891"));
+		CallDataRecord known = new CallDataRecord("01", "71234567890", "71234567891",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+		CallDataRecord unknown = new CallDataRecord("02", "71234567890", "79999999999",
+				LocalDateTime.parse("2023-01-10T10:00:00"), LocalDateTime.parse("2023-01-10T10:05:00"));
+
+		SubscriberDirectory permissive = new SubscriberDirectory(subscriberRepository, new SimpleMeterRegistry(), false);
+		assertTrue(permissive.accepts(unknown));
+		verify(subscriberRepository, never()).findMsisdns(any());
+
+		SubscriberDirectory strict = new SubscriberDirectory(subscriberRepository, meterRegistry, true);
+		assertTrue(strict.accepts(known));
+		assertFalse(strict.accepts(unknown));
+		assertEquals(2, meterRegistry.get("cdr.subscribers.directory.lookup").timer().count());
+	}
+}
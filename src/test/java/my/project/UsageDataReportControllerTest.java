@@ -1,10 +1,16 @@
 package my.project;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 
@@ -64,5 +70,26 @@ public class UsageDataReportControllerTest {
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$").isArray());
 	}
-}
 
+	@Test
+	public void testGetUsageDataReportBatch() throws Exception {
+		List<String> batch = List.of("71234567890", "71234567891");
+		when(usageDataReportService.prepareBatch(List.of("71234567891", "71234567890"), "2023-10")).thenReturn(batch);
+		doAnswer(invocation -> {
+			invocation.getArgument(2, OutputStream.class).write("{\"msisdn\":\"71234567890\"}\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(usageDataReportService).writeUsageDataReports(eq(batch), eq("2023-10"), any());
+
+		var result = mockMvc.perform(post("/udr/batch")
+						.param("month", "2023-10")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"71234567891\",\"71234567890\"]"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string("{\"msisdn\":\"71234567890\"}\n"));
+	}
+}
@@ -1,31 +1,60 @@
 package my.project;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import my.project.dto.UsageDataReportDTO;
-import my.project.entity.CallDataRecord;
-import my.project.repositories.CallDataRecordRepository;
+import my.project.entity.MonthlyUsage;
+import my.project.entity.MonthlyUsageId;
+import my.project.repositories.MonthlyUsageRepository;
+import my.project.services.MonthlyUsageRebuilder;
+import my.project.services.MsisdnActivityFilter;
+import my.project.services.UsageDataReportCache;
 import my.project.services.UsageDataReportService;
+import my.project.util.CallDataRecordsSavedEvent;
 import my.project.util.IncorrectPhoneNumberException;
+import my.project.util.MonthlyUsageRebuiltEvent;
 import my.project.util.NoDataToReceiveException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class UsageDataReportServiceTest {
 
-	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+	@Mock
+	private MonthlyUsageRepository monthlyUsageRepository;
+
+	@Spy
+	private UsageDataReportCache usageDataReportCache = new UsageDataReportCache(100, Duration.ofMinutes(10));
+
+	@Mock
+	private MonthlyUsageRebuilder monthlyUsageRebuilder;
 
 	@Mock
-	private CallDataRecordRepository callDataRecordRepository;
+	private MsisdnActivityFilter msisdnActivityFilter;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
 
 	@InjectMocks
 	private UsageDataReportService usageDataReportService;
@@ -33,6 +62,7 @@ public class UsageDataReportServiceTest {
 	@BeforeEach
 	public void setUp() {
 		MockitoAnnotations.openMocks(this);
+		when(msisdnActivityFilter.mightContain(any(), any())).thenReturn(true);
 	}
 
 	@Test
@@ -40,29 +70,44 @@ public class UsageDataReportServiceTest {
 		String msisdn = "71234567890";
 		String month = "2023-01";
 
-		CallDataRecord record1 = new CallDataRecord();
-		record1.setCallType("01");
-		record1.setPhoneOne(msisdn);
-		record1.setPhoneTwo("71234567891");
-		record1.setStartTime(LocalDateTime.parse("2023-01-10T10:00:00", FORMATTER));
-		record1.setEndTime(LocalDateTime.parse("2023-01-10T10:05:00", FORMATTER));
-
-		CallDataRecord record2 = new CallDataRecord();
-		record2.setCallType("02");
-		record2.setPhoneOne("71234567891");
-		record2.setPhoneTwo(msisdn);
-		record2.setStartTime(LocalDateTime.parse("2023-01-15T11:00:00", FORMATTER));
-		record2.setEndTime(LocalDateTime.parse("2023-01-15T11:10:00", FORMATTER));
-
-		when(callDataRecordRepository.findByMsisdnAndDateRange(msisdn,
-				LocalDateTime.parse("2023-01-01T00:00:00", FORMATTER),
-				LocalDateTime.parse("2023-02-01T00:00:00", FORMATTER).minusSeconds(1)))
-				.thenReturn(List.of(record1, record2));
+		when(monthlyUsageRepository.findById(new MonthlyUsageId(msisdn, month)))
+				.thenReturn(Optional.of(new MonthlyUsage(msisdn, month, 600, 300)));
 
 		UsageDataReportDTO report = usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, month);
 
 		assertNotNull(report);
 		assertEquals(msisdn, report.getMsisdn());
+		assertEquals("00:10:00", report.getIncomingCall().getTotalTime());
+		assertEquals("00:05:00", report.getOutcomingCall().getTotalTime());
+	}
+
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_TotalsOverOneDay() {
+		String msisdn = "71234567890";
+
+		when(monthlyUsageRepository.findAllByMsisdn(msisdn)).thenReturn(List.of(
+				new MonthlyUsage(msisdn, "2023-01", 80_000, 3_600),
+				new MonthlyUsage(msisdn, "2023-02", 10_061, 400_000)));
+
+		UsageDataReportDTO report = usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, null);
+
+		assertEquals(90_061, report.getIncomingCall().getTotalSeconds());
+		assertEquals("25:01:01", report.getIncomingCall().getTotalTime());
+		assertEquals("112:06:40", report.getOutcomingCall().getTotalTime());
+	}
+
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_AllMonths() {
+		String msisdn = "71234567890";
+
+		when(monthlyUsageRepository.findAllByMsisdn(msisdn)).thenReturn(List.of(
+				new MonthlyUsage(msisdn, "2023-01", 600, 300),
+				new MonthlyUsage(msisdn, "2023-02", 60, 30)));
+
+		UsageDataReportDTO report = usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, null);
+
+		assertEquals(660, report.getIncomingCall().getTotalSeconds());
+		assertEquals("00:05:30", report.getOutcomingCall().getTotalTime());
 	}
 
 	@Test
@@ -73,58 +118,145 @@ public class UsageDataReportServiceTest {
 		assertThrows(IncorrectPhoneNumberException.class, () -> usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, month));
 	}
 
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_IncorrectMonth() {
+		assertThrows(DateTimeParseException.class, () -> usageDataReportService.getUsageDataReportByMsisdnAndMonth("71234567890", "2023-13"));
+	}
+
 	@Test
 	public void testGetUsageDataReportByMsisdnAndMonth_NoDataToReceive() {
 		String msisdn = "71234567890";
 		String month = "2023-01";
 
-		when(callDataRecordRepository.findByMsisdnAndDateRange(msisdn,
-				LocalDateTime.parse("2023-01-01T00:00:00", FORMATTER),
-				LocalDateTime.parse("2023-02-01T00:00:00", FORMATTER).minusSeconds(1)))
-				.thenReturn(Collections.emptyList());
+		when(monthlyUsageRepository.findById(new MonthlyUsageId(msisdn, month))).thenReturn(Optional.empty());
 
 		assertThrows(NoDataToReceiveException.class, () -> usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, month));
 	}
 
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_RejectedByFilter() {
+		String msisdn = "71234567890";
+		when(msisdnActivityFilter.mightContain(msisdn, YearMonth.of(2023, 1))).thenReturn(false);
+
+		assertThrows(NoDataToReceiveException.class, () -> usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, "2023-01"));
+		verifyNoInteractions(monthlyUsageRepository);
+	}
+
+	@Test
+	public void testPrepareBatch_SortsDeduplicatesAndFilters() {
+		when(msisdnActivityFilter.mightContain("79999999999", YearMonth.of(2023, 1))).thenReturn(false);
+
+		List<String> batch = usageDataReportService.prepareBatch(
+				List.of("71234567891", "79999999999", "71234567890", "71234567891"), "2023-01");
+
+		assertEquals(List.of("71234567890", "71234567891"), batch);
+		assertThrows(IncorrectPhoneNumberException.class,
+				() -> usageDataReportService.prepareBatch(List.of("71234567890", "12345"), null));
+		verifyNoInteractions(monthlyUsageRepository);
+	}
+
+	@Test
+	public void testWriteUsageDataReports_OneQueryPerChunk() throws Exception {
+		List<String> msisdns = new ArrayList<>();
+		for (int i = 0; i < 1500; i++) {
+			msisdns.add(String.valueOf(71_000_000_000L + i));
+		}
+		when(monthlyUsageRepository.findUsagesByMsisdnIn(msisdns.subList(0, 1000))).thenReturn(List.of(
+				new MonthlyUsage("71000000000", "2023-01", 600, 300),
+				new MonthlyUsage("71000000000", "2023-02", 60, 30),
+				new MonthlyUsage("71000000999", "2023-01", 1, 2)));
+		when(monthlyUsageRepository.findUsagesByMsisdnIn(msisdns.subList(1000, 1500))).thenReturn(List.of(
+				new MonthlyUsage("71000001499", "2023-02", 3, 4)));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		usageDataReportService.writeUsageDataReports(msisdns, null, out);
+
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(3, lines.size());
+		JsonNode first = objectMapper.readTree(lines.get(0));
+		assertEquals("71000000000", first.get("msisdn").asText());
+		assertEquals(660, first.get("incomingCall").get("totalSeconds").asLong());
+		assertEquals(330, first.get("outcomingCall").get("totalSeconds").asLong());
+		assertEquals("71000001499", objectMapper.readTree(lines.get(2)).get("msisdn").asText());
+		verify(monthlyUsageRepository, times(2)).findUsagesByMsisdnIn(anyCollection());
+		verify(monthlyUsageRepository, never()).findUsagesByMonthAndMsisdnIn(any(), anyCollection());
+	}
+
 	@Test
 	public void testGetUsageDataReportByMsisdn_Success() {
 		String month = "2023-01";
 
-		CallDataRecord record1 = new CallDataRecord();
-		record1.setCallType("01");
-		record1.setPhoneOne("71234567890");
-		record1.setPhoneTwo("71234567891");
-		record1.setStartTime(LocalDateTime.parse("2023-01-10T10:00:00", FORMATTER));
-		record1.setEndTime(LocalDateTime.parse("2023-01-10T10:05:00", FORMATTER));
-
-		CallDataRecord record2 = new CallDataRecord();
-		record2.setCallType("02");
-		record2.setPhoneOne("71234567891");
-		record2.setPhoneTwo("71234567890");
-		record2.setStartTime(LocalDateTime.parse("2023-01-15T11:00:00", FORMATTER));
-		record2.setEndTime(LocalDateTime.parse("2023-01-15T11:10:00", FORMATTER));
-
-		when(callDataRecordRepository.findAllByDateRange(
-				LocalDateTime.parse("2023-01-01T00:00:00", FORMATTER),
-				LocalDateTime.parse("2023-02-01T00:00:00", FORMATTER).minusSeconds(1)))
-				.thenReturn(List.of(record1, record2));
+		when(monthlyUsageRepository.findAllByMonthOrderByMsisdn(month)).thenReturn(List.of(
+				new MonthlyUsage("71234567890", month, 600, 300),
+				new MonthlyUsage("71234567891", month, 300, 600)));
 
 		List<UsageDataReportDTO> reports = usageDataReportService.getUsageDataReportByMsisdn(month);
 
 		assertNotNull(reports);
 		assertEquals(2, reports.size());
+		assertEquals("71234567890", reports.get(0).getMsisdn());
+		assertEquals("00:10:00", reports.get(0).getIncomingCall().getTotalTime());
+		assertEquals("00:05:00", reports.get(0).getOutcomingCall().getTotalTime());
 	}
 
 	@Test
 	public void testGetUsageDataReportByMsisdn_NoDataToReceive() {
 		String month = "2023-01";
 
-		when(callDataRecordRepository.findAllByDateRange(
-				LocalDateTime.parse("2023-01-01T00:00:00", FORMATTER),
-				LocalDateTime.parse("2023-02-01T00:00:00", FORMATTER).minusSeconds(1)))
-				.thenReturn(Collections.emptyList());
+		when(monthlyUsageRepository.findAllByMonthOrderByMsisdn(month)).thenReturn(Collections.emptyList());
 
 		assertThrows(NoDataToReceiveException.class, () -> usageDataReportService.getUsageDataReportByMsisdn(month));
 	}
-}
 
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_Cached() {
+		String msisdn = "71234567890";
+		String month = "2023-01";
+
+		when(monthlyUsageRepository.findById(new MonthlyUsageId(msisdn, month)))
+				.thenReturn(Optional.of(new MonthlyUsage(msisdn, month, 600, 300)));
+
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, month);
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, month);
+
+		verify(monthlyUsageRepository, times(1)).findById(new MonthlyUsageId(msisdn, month));
+		assertEquals(1, usageDataReportService.getCacheStats().get("byMsisdn").getHits());
+		assertEquals(1, usageDataReportService.getCacheStats().get("byMsisdn").getMisses());
+	}
+
+	@Test
+	public void testGetUsageDataReportByMsisdnAndMonth_InvalidatedOnlyForAffectedMonth() {
+		String msisdn = "71234567890";
+
+		when(monthlyUsageRepository.findById(any())).thenAnswer(invocation -> {
+			MonthlyUsageId id = invocation.getArgument(0);
+			return Optional.of(new MonthlyUsage(id.getMsisdn(), id.getMonth(), 600, 300));
+		});
+
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, "2023-01");
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, "2023-02");
+		usageDataReportCache.onCallDataRecordsSaved(new CallDataRecordsSavedEvent(Set.of(new MonthlyUsageId(msisdn, "2023-02"))));
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, "2023-01");
+		usageDataReportService.getUsageDataReportByMsisdnAndMonth(msisdn, "2023-02");
+
+		verify(monthlyUsageRepository, times(1)).findById(new MonthlyUsageId(msisdn, "2023-01"));
+		verify(monthlyUsageRepository, times(2)).findById(new MonthlyUsageId(msisdn, "2023-02"));
+	}
+
+	@Test
+	public void testRebuildMonthlyUsage_InvalidatesCacheByEvent() {
+		when(monthlyUsageRebuilder.rebuild()).thenReturn(5);
+
+		assertEquals(5, usageDataReportService.rebuildMonthlyUsage());
+
+		verify(usageDataReportCache, never()).invalidateAll();
+		var order = inOrder(monthlyUsageRepository, monthlyUsageRebuilder, msisdnActivityFilter, eventPublisher);
+		order.verify(monthlyUsageRepository).deleteAllExceptArchivedMonths();
+		order.verify(monthlyUsageRebuilder).rebuild();
+		order.verify(msisdnActivityFilter).load();
+		order.verify(eventPublisher).publishEvent(new MonthlyUsageRebuiltEvent(5));
+
+		usageDataReportCache.onMonthlyUsageRebuilt(new MonthlyUsageRebuiltEvent(5));
+		verify(usageDataReportCache).invalidateAll();
+	}
+}
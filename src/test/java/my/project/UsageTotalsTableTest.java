@@ -0,0 +1,55 @@
+package my.project;
+
+import my.project.util.UsageTotalsTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UsageTotalsTableTest {
+
+	@Test
+	public void testAdd_MatchesHashMap() {
+		UsageTotalsTable table = new UsageTotalsTable(4);
+		Map<Long, long[]> expected = new HashMap<>();
+		SplittableRandom random = new SplittableRandom(7);
+		for (int i = 0; i < 100_000; i++) {
+			long key = random.nextInt(5_000) * 100_000_000_000L + random.nextLong(100_000_000_000L) % 20_000;
+			long incoming = random.nextInt(600);
+			long outgoing = random.nextInt(600);
+			table.add(key, incoming, outgoing);
+			long[] totals = expected.computeIfAbsent(key, k -> new long[2]);
+			totals[0] += incoming;
+			totals[1] += outgoing;
+		}
+
+		assertEquals(expected.size(), table.size());
+		Map<Long, long[]> actual = new HashMap<>();
+		table.forEach((key, incoming, outgoing) -> assertNull(actual.put(key, new long[]{incoming, outgoing})));
+		assertEquals(expected.keySet(), actual.keySet());
+		expected.forEach((key, totals) -> assertArrayEquals(totals, actual.get(key)));
+	}
+
+	@Test
+	public void testAddAll() {
+		UsageTotalsTable first = new UsageTotalsTable();
+		first.add(0, 1, 2);
+		first.add(5, 10, 0);
+		UsageTotalsTable second = new UsageTotalsTable();
+		second.add(5, 1, 1);
+		second.add(7, 0, 3);
+
+		first.addAll(second);
+
+		Map<Long, long[]> actual = new HashMap<>();
+		first.forEach((key, incoming, outgoing) -> actual.put(key, new long[]{incoming, outgoing}));
+		assertEquals(3, first.size());
+		assertArrayEquals(new long[]{1, 2}, actual.get(0L));
+		assertArrayEquals(new long[]{11, 1}, actual.get(5L));
+		assertArrayEquals(new long[]{0, 3}, actual.get(7L));
+		assertThrows(IllegalArgumentException.class, () -> first.add(-1, 0, 0));
+	}
+}